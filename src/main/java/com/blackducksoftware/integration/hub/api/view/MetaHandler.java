@@ -24,94 +24,91 @@
 package com.blackducksoftware.integration.hub.api.view;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 import com.blackducksoftware.integration.hub.api.core.HubView;
 import com.blackducksoftware.integration.hub.api.core.ResourceLink;
 import com.blackducksoftware.integration.hub.api.core.ResourceMetadata;
 import com.blackducksoftware.integration.hub.exception.HubIntegrationException;
 import com.blackducksoftware.integration.log.IntLogger;
+import com.blackducksoftware.integration.log.LogLevel;
+import com.google.gson.Gson;
 
 public class MetaHandler {
+    private static final int LINK_INDEX_SLOT_COUNT = 16;
+
     private final IntLogger logger;
+    private final Gson gson;
+    private final ThreadLocal<LinkIndex[]> linkIndexes = ThreadLocal.withInitial(MetaHandler::createLinkIndexes);
 
     public MetaHandler(final IntLogger logger) {
+        this(logger, null);
+    }
+
+    /**
+     * @param gson Used to render the json of views that did not retain it, for logging and error messages.
+     */
+    public MetaHandler(final IntLogger logger, final Gson gson) {
         this.logger = logger;
+        this.gson = gson;
     }
 
     public boolean hasLink(final HubView view, final String linkKey) throws HubIntegrationException {
         final ResourceMetadata meta = view._meta;
-        if (meta == null) {
-            return false;
-        }
-        final List<ResourceLink> links = meta.links;
-        if (links == null) {
+        if (meta == null || meta.links == null) {
             return false;
         }
-        for (final ResourceLink link : links) {
-            if (link.rel.equals(linkKey)) {
-                return true;
-            }
-        }
-        return false;
+        return getHrefs(meta.links, linkKey) != null;
     }
 
     public String getFirstLink(final HubView view, final String linkKey) throws HubIntegrationException {
         final List<ResourceLink> links = getLinkViews(view);
-        final StringBuilder linksAvailable = new StringBuilder();
-        linksAvailable.append("Could not find the link '" + linkKey + "', these are the available links : ");
-        int i = 0;
-        for (final ResourceLink link : links) {
-            if (link.rel.equals(linkKey)) {
-                return link.href;
-            }
-            if (i > 0) {
-                linksAvailable.append(", ");
-            }
-            linksAvailable.append("'" + link.rel + "'");
-            i++;
+        final List<String> hrefs = getHrefs(links, linkKey);
+        if (hrefs == null) {
+            throw new HubIntegrationException(createLinkNotFoundMessage(view, linkKey, links));
         }
-        linksAvailable.append(". For View : " + view._meta.href);
-        throw new HubIntegrationException(linksAvailable.toString());
+        return hrefs.get(0);
+    }
+
+    /**
+     * Resolves the first link without throwing, so it is cheap to call for links that are often absent.
+     */
+    public Optional<String> findFirstLink(final HubView view, final String linkKey) {
+        final ResourceMetadata meta = view._meta;
+        if (meta == null || meta.links == null) {
+            return Optional.empty();
+        }
+        final List<String> hrefs = getHrefs(meta.links, linkKey);
+        if (hrefs == null) {
+            return Optional.empty();
+        }
+        return Optional.of(hrefs.get(0));
     }
 
     public String getFirstLinkSafely(final HubView view, final String linkKey) {
-        try {
-            final String link = getFirstLink(view, linkKey);
-            return link;
-        } catch (final HubIntegrationException e) {
-            logger.debug("Link '" + linkKey + "' not found on view : " + view.json, e);
-            return null;
+        final Optional<String> link = findFirstLink(view, linkKey);
+        if (!link.isPresent() && isDebugEnabled()) {
+            logger.debug("Link '" + linkKey + "' not found on view : " + getJson(view));
         }
+        return link.orElse(null);
     }
 
     public List<String> getLinks(final HubView view, final String linkKey) throws HubIntegrationException {
         final List<ResourceLink> links = getLinkViews(view);
-        final List<String> linkHrefs = new ArrayList<>();
-        final StringBuilder linksAvailable = new StringBuilder();
-        linksAvailable.append("Could not find the link '" + linkKey + "', these are the available links : ");
-        int i = 0;
-        for (final ResourceLink link : links) {
-            if (link.rel.equals(linkKey)) {
-                linkHrefs.add(link.href);
-            }
-            if (i > 0) {
-                linksAvailable.append(", ");
-            }
-            linksAvailable.append("'" + link.rel + "'");
-            i++;
-        }
-        if (!linkHrefs.isEmpty()) {
-            return linkHrefs;
+        final List<String> hrefs = getHrefs(links, linkKey);
+        if (hrefs == null) {
+            throw new HubIntegrationException(createLinkNotFoundMessage(view, linkKey, links));
         }
-        linksAvailable.append(". For View : " + view._meta.href);
-        throw new HubIntegrationException(linksAvailable.toString());
+        return new ArrayList<>(hrefs);
     }
 
     public ResourceMetadata getMetaView(final HubView view) throws HubIntegrationException {
         final ResourceMetadata meta = view._meta;
         if (meta == null) {
-            throw new HubIntegrationException("Could not find meta information for this view : " + view.json);
+            throw new HubIntegrationException("Could not find meta information for this view : " + getJson(view));
         }
         return meta;
     }
@@ -120,7 +117,7 @@ public class MetaHandler {
         final ResourceMetadata meta = getMetaView(view);
         final List<ResourceLink> links = meta.links;
         if (links == null) {
-            throw new HubIntegrationException("Could not find any links for this view : " + view.json);
+            throw new HubIntegrationException("Could not find any links for this view : " + getJson(view));
         }
         return links;
     }
@@ -135,11 +132,99 @@ public class MetaHandler {
         final String href = meta.href;
         if (href == null) {
             if (logger != null) {
-                logger.error("Hub View has no href : " + view.json);
+                logger.error("Hub View has no href : " + getJson(view));
             }
             throw new HubIntegrationException("This Hub view does not have any href information.");
         }
         return href;
     }
 
+    private String createLinkNotFoundMessage(final HubView view, final String linkKey, final List<ResourceLink> links) {
+        final StringBuilder linksAvailable = new StringBuilder();
+        linksAvailable.append("Could not find the link '" + linkKey + "', these are the available links : ");
+        int i = 0;
+        for (final ResourceLink link : links) {
+            if (i > 0) {
+                linksAvailable.append(", ");
+            }
+            linksAvailable.append("'" + link.rel + "'");
+            i++;
+        }
+        linksAvailable.append(". For View : " + view._meta.href);
+        return linksAvailable.toString();
+    }
+
+    /**
+     * HubView can not hold an index itself, so the link lists of the views looked up are indexed per thread, each in a slot picked by the identity of the list. A list is recognized by its identity and size, so a link replaced in place
+     * is not noticed: replace the links or the _meta of the view instead. The first lookup of a list scans it, since many views only have one link resolved; the list is indexed once it is looked up again, as callers typically
+     * resolve several links of the same view.
+     */
+    private List<String> getHrefs(final List<ResourceLink> links, final String linkKey) {
+        final LinkIndex linkIndex = linkIndexes.get()[System.identityHashCode(links) & (LINK_INDEX_SLOT_COUNT - 1)];
+        if (linkIndex.isIndexOf(links)) {
+            return linkIndex.getHrefs(linkKey);
+        }
+        linkIndex.reset(links);
+        return LinkIndex.findHrefs(links, linkKey);
+    }
+
+    private static LinkIndex[] createLinkIndexes() {
+        final LinkIndex[] linkIndexes = new LinkIndex[LINK_INDEX_SLOT_COUNT];
+        for (int i = 0; i < linkIndexes.length; i++) {
+            linkIndexes[i] = new LinkIndex();
+        }
+        return linkIndexes;
+    }
+
+    private boolean isDebugEnabled() {
+        return logger != null && logger.getLogLevel() != null && logger.getLogLevel().compareTo(LogLevel.DEBUG) >= 0;
+    }
+
+    private String getJson(final HubView view) {
+        if (view.json == null && gson != null) {
+            return gson.toJson(view);
+        }
+        return view.json;
+    }
+
+    private static class LinkIndex {
+        // held strongly, which keeps at most LINK_INDEX_SLOT_COUNT lists of links alive per thread
+        private List<ResourceLink> links;
+        private int size;
+        private Map<String, List<String>> hrefsByRel;
+
+        public static List<String> findHrefs(final List<ResourceLink> links, final String rel) {
+            List<String> hrefs = null;
+            for (final ResourceLink link : links) {
+                if (rel.equals(link.rel)) {
+                    if (hrefs == null) {
+                        hrefs = new ArrayList<>(1);
+                    }
+                    hrefs.add(link.href);
+                }
+            }
+            return hrefs;
+        }
+
+        public boolean isIndexOf(final List<ResourceLink> links) {
+            return this.links == links && links.size() == size;
+        }
+
+        public void reset(final List<ResourceLink> links) {
+            this.links = links;
+            this.size = links.size();
+            this.hrefsByRel = null;
+        }
+
+        public List<String> getHrefs(final String rel) {
+            if (hrefsByRel == null) {
+                hrefsByRel = new HashMap<>();
+                for (final ResourceLink link : links) {
+                    hrefsByRel.computeIfAbsent(link.rel, key -> new ArrayList<>(1)).add(link.href);
+                }
+            }
+            return hrefsByRel.get(rel);
+        }
+    }
+
 }
@@ -0,0 +1,120 @@
+/**
+ * hub-common
+ *
+ * Copyright (C) 2018 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.configuration;
+
+import java.io.Serializable;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
+import org.apache.commons.lang3.builder.RecursiveToStringStyle;
+import org.apache.commons.lang3.builder.ReflectionToStringBuilder;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClientBuilder;
+
+/**
+ * How the connections to the Hub are pooled. A connection that is kept alive is reused by later requests, which then skip the TCP and TLS handshakes.
+ */
+public class HubConnectionPoolConfig implements Serializable {
+    private static final long serialVersionUID = 4716453043416386718L;
+
+    public static final int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 20;
+    public static final int DEFAULT_MAX_CONNECTIONS_TOTAL = 40;
+    public static final int DEFAULT_KEEP_ALIVE_SECONDS = 60;
+    public static final int DEFAULT_IDLE_EVICTION_SECONDS = 0;
+
+    private final int maxConnectionsPerRoute;
+    private final int maxConnectionsTotal;
+    private final int keepAliveSeconds;
+    private final int idleEvictionSeconds;
+
+    public HubConnectionPoolConfig() {
+        this(DEFAULT_MAX_CONNECTIONS_PER_ROUTE, DEFAULT_MAX_CONNECTIONS_TOTAL, DEFAULT_KEEP_ALIVE_SECONDS, DEFAULT_IDLE_EVICTION_SECONDS);
+    }
+
+    /**
+     * @param maxConnectionsPerRoute The most connections open to the Hub at once, which should be at least the number of requests made concurrently.
+     * @param keepAliveSeconds The longest an idle connection is kept for reuse, or less if the Hub says so. Zero or less keeps it for as long as the Hub allows.
+     * @param idleEvictionSeconds How long a connection may sit idle before it is closed in the background, so a connection the Hub or a proxy has dropped is not picked for a request. Zero or less, the default, disables the eviction. The
+     * eviction runs on a thread of its own until the connection is closed, so only enable it for connections that are closed when done with, such as those of SharedRestConnections.
+     */
+    public HubConnectionPoolConfig(final int maxConnectionsPerRoute, final int maxConnectionsTotal, final int keepAliveSeconds, final int idleEvictionSeconds) {
+        this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+        this.maxConnectionsTotal = maxConnectionsTotal;
+        this.keepAliveSeconds = keepAliveSeconds;
+        this.idleEvictionSeconds = idleEvictionSeconds;
+    }
+
+    public void applyTo(final HttpClientBuilder clientBuilder) {
+        if (maxConnectionsPerRoute > 0) {
+            clientBuilder.setMaxConnPerRoute(maxConnectionsPerRoute);
+        }
+        if (maxConnectionsTotal > 0) {
+            clientBuilder.setMaxConnTotal(Math.max(maxConnectionsTotal, maxConnectionsPerRoute));
+        }
+        if (keepAliveSeconds > 0) {
+            final long maxKeepAliveMilliseconds = TimeUnit.SECONDS.toMillis(keepAliveSeconds);
+            clientBuilder.setKeepAliveStrategy((response, context) -> {
+                final long hubKeepAliveMilliseconds = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+                return hubKeepAliveMilliseconds > 0 ? Math.min(hubKeepAliveMilliseconds, maxKeepAliveMilliseconds) : maxKeepAliveMilliseconds;
+            });
+        }
+        if (idleEvictionSeconds > 0) {
+            clientBuilder.evictExpiredConnections();
+            clientBuilder.evictIdleConnections(idleEvictionSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    public int getMaxConnectionsPerRoute() {
+        return maxConnectionsPerRoute;
+    }
+
+    public int getMaxConnectionsTotal() {
+        return maxConnectionsTotal;
+    }
+
+    public int getKeepAliveSeconds() {
+        return keepAliveSeconds;
+    }
+
+    public int getIdleEvictionSeconds() {
+        return idleEvictionSeconds;
+    }
+
+    @Override
+    public String toString() {
+        return ReflectionToStringBuilder.toString(this, RecursiveToStringStyle.JSON_STYLE);
+    }
+
+    @Override
+    public int hashCode() {
+        return HashCodeBuilder.reflectionHashCode(this, false);
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        return EqualsBuilder.reflectionEquals(this, obj, false);
+    }
+
+}
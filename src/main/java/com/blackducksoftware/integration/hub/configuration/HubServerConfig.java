@@ -37,6 +37,8 @@ import com.blackducksoftware.integration.hub.rest.CredentialsRestConnection;
 import com.blackducksoftware.integration.hub.rest.CredentialsRestConnectionBuilder;
 import com.blackducksoftware.integration.hub.rest.RestConnection;
 import com.blackducksoftware.integration.hub.rest.UriCombiner;
+import com.blackducksoftware.integration.hub.service.HubServicesFactory;
+import com.blackducksoftware.integration.hub.service.model.ResponseContentInterceptor;
 import com.blackducksoftware.integration.log.IntLogger;
 import com.blackducksoftware.integration.util.Stringable;
 
@@ -50,8 +52,20 @@ public class HubServerConfig extends Stringable implements Serializable {
     private final ProxyInfo proxyInfo;
     private final boolean alwaysTrustServerCertificate;
     private final UriCombiner uriCombiner;
+    private final boolean responseCompression;
+    private final HubConnectionPoolConfig connectionPoolConfig;
 
     public HubServerConfig(final URL url, final int timeoutSeconds, final Credentials credentials, final ProxyInfo proxyInfo, final boolean alwaysTrustServerCertificate, final UriCombiner uriCombiner) {
+        this(url, timeoutSeconds, credentials, proxyInfo, alwaysTrustServerCertificate, uriCombiner, true);
+    }
+
+    public HubServerConfig(final URL url, final int timeoutSeconds, final Credentials credentials, final ProxyInfo proxyInfo, final boolean alwaysTrustServerCertificate, final UriCombiner uriCombiner,
+            final boolean responseCompression) {
+        this(url, timeoutSeconds, credentials, proxyInfo, alwaysTrustServerCertificate, uriCombiner, responseCompression, new HubConnectionPoolConfig());
+    }
+
+    public HubServerConfig(final URL url, final int timeoutSeconds, final Credentials credentials, final ProxyInfo proxyInfo, final boolean alwaysTrustServerCertificate, final UriCombiner uriCombiner,
+            final boolean responseCompression, final HubConnectionPoolConfig connectionPoolConfig) {
         this.hubUrl = url;
         this.timeoutSeconds = timeoutSeconds;
         this.credentials = credentials;
@@ -59,9 +73,21 @@ public class HubServerConfig extends Stringable implements Serializable {
         this.proxyInfo = proxyInfo;
         this.alwaysTrustServerCertificate = alwaysTrustServerCertificate;
         this.uriCombiner = uriCombiner;
+        this.responseCompression = responseCompression;
+        this.connectionPoolConfig = connectionPoolConfig;
     }
 
     public HubServerConfig(final URL url, final int timeoutSeconds, final String apiToken, final ProxyInfo proxyInfo, final boolean alwaysTrustServerCertificate, final UriCombiner uriCombiner) {
+        this(url, timeoutSeconds, apiToken, proxyInfo, alwaysTrustServerCertificate, uriCombiner, true);
+    }
+
+    public HubServerConfig(final URL url, final int timeoutSeconds, final String apiToken, final ProxyInfo proxyInfo, final boolean alwaysTrustServerCertificate, final UriCombiner uriCombiner,
+            final boolean responseCompression) {
+        this(url, timeoutSeconds, apiToken, proxyInfo, alwaysTrustServerCertificate, uriCombiner, responseCompression, new HubConnectionPoolConfig());
+    }
+
+    public HubServerConfig(final URL url, final int timeoutSeconds, final String apiToken, final ProxyInfo proxyInfo, final boolean alwaysTrustServerCertificate, final UriCombiner uriCombiner,
+            final boolean responseCompression, final HubConnectionPoolConfig connectionPoolConfig) {
         this.hubUrl = url;
         this.timeoutSeconds = timeoutSeconds;
         this.credentials = null;
@@ -69,6 +95,8 @@ public class HubServerConfig extends Stringable implements Serializable {
         this.proxyInfo = proxyInfo;
         this.alwaysTrustServerCertificate = alwaysTrustServerCertificate;
         this.uriCombiner = uriCombiner;
+        this.responseCompression = responseCompression;
+        this.connectionPoolConfig = connectionPoolConfig;
     }
 
     public boolean shouldUseProxyForHub() {
@@ -105,6 +133,12 @@ public class HubServerConfig extends Stringable implements Serializable {
         if (uriCombiner != null) {
             logger.alwaysLog("--> UriCombiner: " + uriCombiner);
         }
+        if (!responseCompression) {
+            logger.alwaysLog("--> Response compression: " + isResponseCompression());
+        }
+        if (connectionPoolConfig != null) {
+            logger.alwaysLog("--> Connection pool: " + connectionPoolConfig);
+        }
     }
 
     public RestConnection createRestConnection(final IntLogger logger) throws EncryptionException {
@@ -115,6 +149,22 @@ public class HubServerConfig extends Stringable implements Serializable {
         }
     }
 
+    /**
+     * Creates a factory whose services connect to this Hub with the settings of this configuration.
+     */
+    public HubServicesFactory createHubServicesFactory(final IntLogger logger) throws EncryptionException {
+        return createHubServicesFactory(createRestConnection(logger));
+    }
+
+    /**
+     * Creates a factory whose services use the given connection, for example one shared through {@link SharedRestConnections}, with the other settings of this configuration.
+     */
+    public HubServicesFactory createHubServicesFactory(final RestConnection restConnection) {
+        final HubServicesFactory hubServicesFactory = new HubServicesFactory(restConnection);
+        hubServicesFactory.setResponseCompression(isResponseCompression());
+        return hubServicesFactory;
+    }
+
     public CredentialsRestConnection createCredentialsRestConnection(final IntLogger logger) throws EncryptionException {
         final CredentialsRestConnectionBuilder builder = new CredentialsRestConnectionBuilder();
         builder.setLogger(logger);
@@ -125,7 +175,7 @@ public class HubServerConfig extends Stringable implements Serializable {
         builder.applyProxyInfo(getProxyInfo());
         builder.setUriCombiner(uriCombiner);
 
-        return builder.build();
+        return applyConnectionConfig(builder.build());
     }
 
     public ApiTokenRestConnection createApiTokenRestConnection(final IntLogger logger) {
@@ -138,7 +188,15 @@ public class HubServerConfig extends Stringable implements Serializable {
         builder.applyProxyInfo(getProxyInfo());
         builder.setUriCombiner(uriCombiner);
 
-        return builder.build();
+        return applyConnectionConfig(builder.build());
+    }
+
+    private <T extends RestConnection> T applyConnectionConfig(final T restConnection) {
+        ResponseContentInterceptor.applyTo(restConnection.getClientBuilder());
+        if (connectionPoolConfig != null) {
+            connectionPoolConfig.applyTo(restConnection.getClientBuilder());
+        }
+        return restConnection;
     }
 
     public URL getHubUrl() {
@@ -165,4 +223,12 @@ public class HubServerConfig extends Stringable implements Serializable {
         return alwaysTrustServerCertificate;
     }
 
+    public boolean isResponseCompression() {
+        return responseCompression;
+    }
+
+    public HubConnectionPoolConfig getConnectionPoolConfig() {
+        return connectionPoolConfig;
+    }
+
 }
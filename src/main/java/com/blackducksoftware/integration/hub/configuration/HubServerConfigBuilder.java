@@ -61,6 +61,11 @@ public class HubServerConfigBuilder extends AbstractBuilder<HubServerConfig> {
     private String ignoredProxyHosts;
     private boolean alwaysTrustServerCertificate;
     private UriCombiner uriCombiner;
+    private boolean responseCompression = true;
+    private int maxConnectionsPerRoute = HubConnectionPoolConfig.DEFAULT_MAX_CONNECTIONS_PER_ROUTE;
+    private int maxConnectionsTotal = HubConnectionPoolConfig.DEFAULT_MAX_CONNECTIONS_TOTAL;
+    private int keepAliveSeconds = HubConnectionPoolConfig.DEFAULT_KEEP_ALIVE_SECONDS;
+    private int idleEvictionSeconds = HubConnectionPoolConfig.DEFAULT_IDLE_EVICTION_SECONDS;
     private IntLogger logger;
     private final HubServerConfigValidator validator;
 
@@ -104,11 +109,12 @@ public class HubServerConfigBuilder extends AbstractBuilder<HubServerConfig> {
         if (uriCombiner != null) {
             uriCombinerToUse = uriCombiner;
         }
+        final HubConnectionPoolConfig connectionPoolConfig = new HubConnectionPoolConfig(maxConnectionsPerRoute, maxConnectionsTotal, keepAliveSeconds, idleEvictionSeconds);
         if (StringUtils.isNotBlank(apiToken)) {
-            return new HubServerConfig(hubURL, NumberUtils.toInt(timeoutSeconds), apiToken, proxyInfo, alwaysTrustServerCertificate, uriCombinerToUse);
+            return new HubServerConfig(hubURL, NumberUtils.toInt(timeoutSeconds), apiToken, proxyInfo, alwaysTrustServerCertificate, uriCombinerToUse, responseCompression, connectionPoolConfig);
         } else {
             final Credentials credentials = getHubCredentials();
-            return new HubServerConfig(hubURL, NumberUtils.toInt(timeoutSeconds), credentials, proxyInfo, alwaysTrustServerCertificate, uriCombinerToUse);
+            return new HubServerConfig(hubURL, NumberUtils.toInt(timeoutSeconds), credentials, proxyInfo, alwaysTrustServerCertificate, uriCombinerToUse, responseCompression, connectionPoolConfig);
         }
     }
 
@@ -164,6 +170,11 @@ public class HubServerConfigBuilder extends AbstractBuilder<HubServerConfig> {
         final String hubProxyUsername = properties.getProperty("blackduck.hub.proxy.username");
         final String hubProxyPassword = properties.getProperty("blackduck.hub.proxy.password");
         final boolean hubAlwaysTrustServerCertificate = Boolean.parseBoolean(properties.getProperty("blackduck.hub.trust.cert"));
+        final String hubResponseCompression = properties.getProperty("blackduck.hub.response.compression");
+        final String hubMaxConnectionsPerRoute = properties.getProperty("blackduck.hub.max.connections.per.route");
+        final String hubMaxConnectionsTotal = properties.getProperty("blackduck.hub.max.connections.total");
+        final String hubKeepAliveSeconds = properties.getProperty("blackduck.hub.keep.alive.seconds");
+        final String hubIdleEvictionSeconds = properties.getProperty("blackduck.hub.idle.eviction.seconds");
 
         setHubUrl(hubUrl);
         setUsername(hubUsername);
@@ -176,6 +187,13 @@ public class HubServerConfigBuilder extends AbstractBuilder<HubServerConfig> {
         setProxyUsername(hubProxyUsername);
         setProxyPassword(hubProxyPassword);
         setAlwaysTrustServerCertificate(hubAlwaysTrustServerCertificate);
+        if (StringUtils.isNotBlank(hubResponseCompression)) {
+            setResponseCompression(Boolean.parseBoolean(hubResponseCompression));
+        }
+        setMaxConnectionsPerRoute(NumberUtils.toInt(hubMaxConnectionsPerRoute, maxConnectionsPerRoute));
+        setMaxConnectionsTotal(NumberUtils.toInt(hubMaxConnectionsTotal, maxConnectionsTotal));
+        setKeepAliveSeconds(NumberUtils.toInt(hubKeepAliveSeconds, keepAliveSeconds));
+        setIdleEvictionSeconds(NumberUtils.toInt(hubIdleEvictionSeconds, idleEvictionSeconds));
     }
 
     public void setHubUrl(final String hubUrl) {
@@ -252,6 +270,38 @@ public class HubServerConfigBuilder extends AbstractBuilder<HubServerConfig> {
         this.alwaysTrustServerCertificate = alwaysTrustServerCertificate;
     }
 
+    /**
+     * @param responseCompression Set to false to leave the decompression of every response to the connection. The responses are still compressed, but the bytes compression saved are no longer counted.
+     */
+    public void setResponseCompression(final boolean responseCompression) {
+        this.responseCompression = responseCompression;
+    }
+
+    /**
+     * @param maxConnectionsPerRoute The most connections open to the Hub at once, which should be at least the number of requests made concurrently.
+     */
+    public void setMaxConnectionsPerRoute(final int maxConnectionsPerRoute) {
+        this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+    }
+
+    public void setMaxConnectionsTotal(final int maxConnectionsTotal) {
+        this.maxConnectionsTotal = maxConnectionsTotal;
+    }
+
+    /**
+     * @param keepAliveSeconds The longest an idle connection is kept for reuse. Zero or less keeps it for as long as the Hub allows.
+     */
+    public void setKeepAliveSeconds(final int keepAliveSeconds) {
+        this.keepAliveSeconds = keepAliveSeconds;
+    }
+
+    /**
+     * @param idleEvictionSeconds How long a connection may sit idle before it is closed in the background. Zero or less, the default, disables the eviction, which runs on a thread of its own until the connection is closed.
+     */
+    public void setIdleEvictionSeconds(final int idleEvictionSeconds) {
+        this.idleEvictionSeconds = idleEvictionSeconds;
+    }
+
     public void setUriCombiner(final UriCombiner uriCombiner) {
         this.uriCombiner = uriCombiner;
     }
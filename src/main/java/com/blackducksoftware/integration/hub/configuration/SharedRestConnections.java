@@ -0,0 +1,109 @@
+/**
+ * hub-common
+ *
+ * Copyright (C) 2018 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.configuration;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.blackducksoftware.integration.exception.EncryptionException;
+import com.blackducksoftware.integration.hub.Credentials;
+import com.blackducksoftware.integration.hub.proxy.ProxyInfo;
+import com.blackducksoftware.integration.hub.rest.RestConnection;
+import com.blackducksoftware.integration.hub.service.HubServicesFactory;
+import com.blackducksoftware.integration.log.IntLogger;
+
+/**
+ * Hands out one pooled connection per Hub url, credentials and connection settings, so the factories created for the same Hub reuse its open connections and TLS sessions instead of each opening their own. A shared connection keeps the
+ * logger of the configuration it was first created for.
+ */
+public class SharedRestConnections implements Closeable {
+    private final Map<List<Object>, RestConnection> restConnections = new ConcurrentHashMap<>();
+
+    public RestConnection getRestConnection(final HubServerConfig hubServerConfig, final IntLogger logger) throws EncryptionException {
+        final List<Object> connectionKey = createConnectionKey(hubServerConfig);
+        final RestConnection restConnection = restConnections.get(connectionKey);
+        if (restConnection != null) {
+            return restConnection;
+        }
+        synchronized (restConnections) {
+            final RestConnection existingRestConnection = restConnections.get(connectionKey);
+            if (existingRestConnection != null) {
+                return existingRestConnection;
+            }
+            final RestConnection newRestConnection = hubServerConfig.createRestConnection(logger);
+            restConnections.put(connectionKey, newRestConnection);
+            return newRestConnection;
+        }
+    }
+
+    public HubServicesFactory createHubServicesFactory(final HubServerConfig hubServerConfig, final IntLogger logger) throws EncryptionException {
+        return hubServerConfig.createHubServicesFactory(getRestConnection(hubServerConfig, logger));
+    }
+
+    public int size() {
+        return restConnections.size();
+    }
+
+    /**
+     * Closes every shared connection. The factories using them can not make any more requests.
+     */
+    @Override
+    public void close() throws IOException {
+        final List<RestConnection> closing;
+        synchronized (restConnections) {
+            closing = new ArrayList<>(restConnections.values());
+            restConnections.clear();
+        }
+        IOException firstException = null;
+        for (final RestConnection restConnection : closing) {
+            try {
+                restConnection.close();
+            } catch (final IOException e) {
+                if (firstException == null) {
+                    firstException = e;
+                }
+            }
+        }
+        if (firstException != null) {
+            throw firstException;
+        }
+    }
+
+    /**
+     * Everything that goes into creating a connection, so configurations that differ in any of it do not share one.
+     */
+    private List<Object> createConnectionKey(final HubServerConfig hubServerConfig) {
+        final Credentials credentials = hubServerConfig.getGlobalCredentials();
+        final ProxyInfo proxyInfo = hubServerConfig.getProxyInfo();
+        return Arrays.asList(String.valueOf(hubServerConfig.getHubUrl()), hubServerConfig.getTimeout(), credentials != null ? credentials.getUsername() : null, credentials != null ? credentials.getEncryptedPassword() : null,
+                hubServerConfig.getApiToken(), proxyInfo != null ? proxyInfo.getHost() : null, proxyInfo != null ? proxyInfo.getPort() : null, proxyInfo != null ? proxyInfo.getUsername() : null,
+                proxyInfo != null ? proxyInfo.getEncryptedPassword() : null, proxyInfo != null ? proxyInfo.getIgnoredProxyHosts() : null, hubServerConfig.isAlwaysTrustServerCertificate(), hubServerConfig.getConnectionPoolConfig());
+    }
+
+}
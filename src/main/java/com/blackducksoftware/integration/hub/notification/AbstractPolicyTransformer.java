@@ -56,12 +56,7 @@ public abstract class AbstractPolicyTransformer extends AbstractNotificationTran
         if (ruleUrlsViolated == null || ruleUrlsViolated.isEmpty()) {
             return null;
         }
-        final List<PolicyRuleView> rules = new ArrayList<>();
-        for (final String ruleUrlViolated : ruleUrlsViolated) {
-            final PolicyRuleView ruleViolated = hubService.getResponse(ruleUrlViolated, PolicyRuleView.class);
-            rules.add(ruleViolated);
-        }
-        return rules;
+        return hubService.getResponses(ruleUrlsViolated, PolicyRuleView.class);
     }
 
     protected List<PolicyRuleView> getMatchingRules(final List<PolicyRuleView> rulesViolated) throws IntegrationException {
@@ -23,12 +23,17 @@
  */
 package com.blackducksoftware.integration.hub.notification;
 
+import java.io.Closeable;
+import java.io.IOException;
 import java.util.Date;
 import java.util.List;
 
 import com.blackducksoftware.integration.hub.api.generated.view.NotificationView;
 
-public class NotificationViewResults {
+/**
+ * The notifications may be held in a list spilled to disk, such as a SpillingResponseList, so close the results once done with them.
+ */
+public class NotificationViewResults implements Closeable {
     private final List<NotificationView> notificationViews;
     private final Date latestNotificationCreatedAtDate;
     private final String latestNotificationCreatedAtString;
@@ -51,4 +56,14 @@ public class NotificationViewResults {
         return latestNotificationCreatedAtString;
     }
 
+    /**
+     * Closes the list of notifications when it is Closeable, deleting the temporary file of a spilled list.
+     */
+    @Override
+    public void close() throws IOException {
+        if (notificationViews instanceof Closeable) {
+            ((Closeable) notificationViews).close();
+        }
+    }
+
 }
@@ -0,0 +1,129 @@
+/**
+ * hub-common
+ *
+ * Copyright (C) 2018 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.service;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import com.blackducksoftware.integration.exception.IntegrationException;
+import com.blackducksoftware.integration.hub.api.UriSingleResponse;
+import com.blackducksoftware.integration.hub.api.core.HubPath;
+import com.blackducksoftware.integration.hub.api.core.HubPathMultipleResponses;
+import com.blackducksoftware.integration.hub.api.core.HubPathSingleResponse;
+import com.blackducksoftware.integration.hub.api.core.HubResponse;
+import com.blackducksoftware.integration.hub.api.core.HubView;
+import com.blackducksoftware.integration.hub.api.core.LinkMultipleResponses;
+import com.blackducksoftware.integration.hub.api.core.LinkSingleResponse;
+import com.blackducksoftware.integration.hub.request.Request;
+
+/**
+ * Runs HubService calls on an executor and returns CompletableFutures, so lookups can be composed without blocking the calling thread. A failed call completes its future exceptionally with the IntegrationException it threw.
+ */
+public class AsyncHubService {
+    private final HubService hubService;
+    private final Executor executor;
+
+    public AsyncHubService(final HubService hubService, final Executor executor) {
+        this.hubService = hubService;
+        this.executor = executor;
+    }
+
+    public HubService getHubService() {
+        return hubService;
+    }
+
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    public <T extends HubResponse> CompletableFuture<List<T>> getAllResponses(final HubPathMultipleResponses<T> hubPathMultipleResponses) {
+        return supplyAsync(() -> hubService.getAllResponses(hubPathMultipleResponses));
+    }
+
+    public <T extends HubResponse> CompletableFuture<List<T>> getAllResponses(final HubPathMultipleResponses<T> hubPathMultipleResponses, final Request.Builder requestBuilder) {
+        return supplyAsync(() -> hubService.getAllResponses(hubPathMultipleResponses, requestBuilder));
+    }
+
+    public <T extends HubResponse> CompletableFuture<List<T>> getAllResponses(final HubView hubView, final LinkMultipleResponses<T> linkMultipleResponses) {
+        return supplyAsync(() -> hubService.getAllResponses(hubView, linkMultipleResponses));
+    }
+
+    public <T extends HubResponse> CompletableFuture<List<T>> getAllResponses(final HubView hubView, final LinkMultipleResponses<T> linkMultipleResponses, final Request.Builder requestBuilder) {
+        return supplyAsync(() -> hubService.getAllResponses(hubView, linkMultipleResponses, requestBuilder));
+    }
+
+    public <T extends HubResponse> CompletableFuture<List<T>> getAllResponses(final String uri, final Class<T> responseClass) {
+        return supplyAsync(() -> hubService.getAllResponses(uri, responseClass));
+    }
+
+    public <T extends HubResponse> CompletableFuture<T> getResponse(final HubPathSingleResponse<T> hubPathSingleResponse) {
+        return supplyAsync(() -> hubService.getResponse(hubPathSingleResponse));
+    }
+
+    public <T extends HubResponse> CompletableFuture<T> getResponse(final HubView hubView, final LinkSingleResponse<T> linkSingleResponse) {
+        return supplyAsync(() -> hubService.getResponse(hubView, linkSingleResponse));
+    }
+
+    public <T extends HubResponse> CompletableFuture<T> getResponse(final String uri, final Class<T> responseClass) {
+        return supplyAsync(() -> hubService.getResponse(uri, responseClass));
+    }
+
+    public <T extends HubResponse> CompletableFuture<T> getResponse(final UriSingleResponse<T> uriSingleResponse) {
+        return supplyAsync(() -> hubService.getResponse(uriSingleResponse));
+    }
+
+    public CompletableFuture<String> executePostRequestAndRetrieveURL(final HubPath path, final Request.Builder requestBuilder) {
+        return supplyAsync(() -> hubService.executePostRequestAndRetrieveURL(path, requestBuilder));
+    }
+
+    public CompletableFuture<String> executePostRequestAndRetrieveURL(final Request request) {
+        return supplyAsync(() -> hubService.executePostRequestAndRetrieveURL(request));
+    }
+
+    /**
+     * Runs any blocking Hub call on this service's executor, for calls that have no async variant here.
+     */
+    public <T> CompletableFuture<T> supplyAsync(final HubCall<T> hubCall) {
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                try {
+                    future.complete(hubCall.call());
+                } catch (final IntegrationException | RuntimeException | Error e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (final RuntimeException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    @FunctionalInterface
+    public interface HubCall<T> {
+        T call() throws IntegrationException;
+    }
+
+}
@@ -27,6 +27,7 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Optional;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -134,11 +135,9 @@ public class CodeLocationService extends DataService {
     public CodeLocationView getCodeLocationByName(final String codeLocationName) throws IntegrationException {
         if (StringUtils.isNotBlank(codeLocationName)) {
             final Request.Builder requestBuilder = RequestFactory.createCommonGetRequestBuilder().addQueryParameter("q", "name:" + codeLocationName);
-            final List<CodeLocationView> codeLocations = hubService.getAllResponses(ApiDiscovery.CODELOCATIONS_LINK_RESPONSE, requestBuilder);
-            for (final CodeLocationView codeLocation : codeLocations) {
-                if (codeLocationName.equals(codeLocation.name)) {
-                    return codeLocation;
-                }
+            final Optional<CodeLocationView> codeLocation = hubService.findFirst(ApiDiscovery.CODELOCATIONS_LINK_RESPONSE, requestBuilder, codeLocationView -> codeLocationName.equals(codeLocationView.name));
+            if (codeLocation.isPresent()) {
+                return codeLocation.get();
             }
         }
 
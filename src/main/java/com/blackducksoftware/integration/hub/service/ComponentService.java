@@ -24,6 +24,7 @@
 package com.blackducksoftware.integration.hub.service;
 
 import java.util.List;
+import java.util.Optional;
 
 import com.blackducksoftware.integration.exception.IntegrationException;
 import com.blackducksoftware.integration.hub.api.generated.discovery.ApiDiscovery;
@@ -62,26 +63,27 @@ public class ComponentService extends DataService {
     }
 
     public ComponentSearchResultView getExactComponentMatch(final ExternalId externalId) throws IntegrationException {
-        final List<ComponentSearchResultView> allComponents = getAllComponents(externalId);
         final String hubOriginIdToMatch = externalId.createHubOriginId();
-        for (final ComponentSearchResultView componentItem : allComponents) {
-            if (null != hubOriginIdToMatch) {
-                if (hubOriginIdToMatch.equals(componentItem.originId)) {
-                    return componentItem;
-                }
+        if (null != hubOriginIdToMatch) {
+            final Optional<ComponentSearchResultView> componentItem = hubService.findFirst(ApiDiscovery.COMPONENTS_LINK_RESPONSE, createComponentsRequestBuilder(externalId), component -> hubOriginIdToMatch.equals(component.originId));
+            if (componentItem.isPresent()) {
+                return componentItem.get();
             }
         }
         throw new HubIntegrationException("Couldn't find an exact component that matches " + hubOriginIdToMatch);
     }
 
     public List<ComponentSearchResultView> getAllComponents(final ExternalId externalId) throws IntegrationException {
+        final List<ComponentSearchResultView> allComponents = hubService.getAllResponses(ApiDiscovery.COMPONENTS_LINK_RESPONSE, createComponentsRequestBuilder(externalId));
+        return allComponents;
+    }
+
+    private Request.Builder createComponentsRequestBuilder(final ExternalId externalId) {
         final String forge = externalId.forge.getName();
         final String hubOriginId = externalId.createHubOriginId();
         final String componentQuery = String.format("id:%s|%s", forge, hubOriginId);
 
-        final Request.Builder requestBuilder = new Request.Builder().addQueryParameter("q", componentQuery);
-        final List<ComponentSearchResultView> allComponents = hubService.getAllResponses(ApiDiscovery.COMPONENTS_LINK_RESPONSE, requestBuilder);
-        return allComponents;
+        return new Request.Builder().addQueryParameter("q", componentQuery);
     }
 
     public List<VulnerabilityV2View> getVulnerabilitiesFromComponentVersion(final ExternalId externalId) throws IntegrationException {
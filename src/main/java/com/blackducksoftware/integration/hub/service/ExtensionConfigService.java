@@ -36,15 +36,25 @@ import com.blackducksoftware.integration.hub.api.generated.view.ExternalExtensio
 import com.blackducksoftware.integration.hub.api.generated.view.ExternalExtensionView;
 import com.blackducksoftware.integration.hub.service.model.UserConfigItem;
 import com.blackducksoftware.integration.hub.service.model.UserConfigTransform;
+import com.blackducksoftware.integration.parallel.processor.ItemTransformer;
 import com.blackducksoftware.integration.parallel.processor.ParallelResourceProcessor;
 import com.blackducksoftware.integration.parallel.processor.ParallelResourceProcessorResults;
 
 public class ExtensionConfigService extends DataService {
     private final UserConfigTransform userConfigTransform;
+    private final HubTaskExecutor hubTaskExecutor;
 
     public ExtensionConfigService(final HubService hubService) {
+        this(hubService, null);
+    }
+
+    /**
+     * @param hubTaskExecutor If not null, user configs are transformed on its threads rather than on a pool sized to the number of processors.
+     */
+    public ExtensionConfigService(final HubService hubService, final HubTaskExecutor hubTaskExecutor) {
         super(hubService);
         userConfigTransform = new UserConfigTransform(hubService);
+        this.hubTaskExecutor = hubTaskExecutor;
     }
 
     private ParallelResourceProcessor<UserConfigItem, ExternalExtensionUserView> createProcessor() {
@@ -64,6 +74,9 @@ public class ExtensionConfigService extends DataService {
     public ParallelResourceProcessorResults<UserConfigItem> getUserConfigList(final String extensionUrl) throws IntegrationException {
         final ExternalExtensionView extension = hubService.getResponse(extensionUrl, ExternalExtensionView.class);
         final List<ExternalExtensionUserView> userOptionList = hubService.getAllResponses(extension, ExternalExtensionView.USER_OPTIONS_LINK_RESPONSE);
+        if (hubTaskExecutor != null) {
+            return hubTaskExecutor.process(userOptionList, Collections.<Class<?>, ItemTransformer<UserConfigItem, ExternalExtensionUserView>> singletonMap(ExternalExtensionUserView.class, userConfigTransform));
+        }
         try (ParallelResourceProcessor<UserConfigItem, ExternalExtensionUserView> parallelProcessor = createProcessor()) {
             final ParallelResourceProcessorResults<UserConfigItem> itemList = parallelProcessor.process(userOptionList);
             return itemList;
@@ -24,49 +24,282 @@
 package com.blackducksoftware.integration.hub.service;
 
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.StringUtils;
 
 import com.blackducksoftware.integration.exception.IntegrationException;
 import com.blackducksoftware.integration.hub.api.core.HubResponse;
+import com.blackducksoftware.integration.hub.api.generated.view.NotificationUserView;
+import com.blackducksoftware.integration.hub.api.generated.view.NotificationView;
 import com.blackducksoftware.integration.hub.exception.HubIntegrationException;
 import com.blackducksoftware.integration.hub.request.Request;
 import com.blackducksoftware.integration.hub.request.Response;
 import com.blackducksoftware.integration.hub.rest.RestConnection;
+import com.blackducksoftware.integration.hub.service.cache.CachedResponse;
+import com.blackducksoftware.integration.hub.service.cache.HubResponseBinder;
+import com.blackducksoftware.integration.hub.service.cache.HubResponseCache;
+import com.blackducksoftware.integration.hub.service.instrumentation.HubInstrumentation;
+import com.blackducksoftware.integration.hub.service.model.AdaptiveConcurrencyLimiter;
+import com.blackducksoftware.integration.hub.service.model.AdaptiveConcurrencyLimiter.LimitedCall;
+import com.blackducksoftware.integration.hub.service.model.HubEndpoint;
+import com.blackducksoftware.integration.hub.service.model.RequestFactory;
+import com.blackducksoftware.integration.hub.service.model.ResponseContent;
+import com.blackducksoftware.integration.hub.service.model.RetryPolicy;
 import com.google.gson.Gson;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
 import com.google.gson.JsonParser;
 
-public class HubResponseTransformer {
+public class HubResponseTransformer implements HubResponseBinder {
+    private static final int NOT_MODIFIED = 304;
+
     private final RestConnection restConnection;
     private final JsonParser jsonParser;
     private final Gson gson;
+    private final boolean retainJson;
+    private final HubResponseCache hubResponseCache;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private final RetryPolicy retryPolicy;
+    private final HubInstrumentation instrumentation;
+    private final boolean responseCompression;
 
     public HubResponseTransformer(final RestConnection restConnection) {
+        this(restConnection, true);
+    }
+
+    public HubResponseTransformer(final RestConnection restConnection, final boolean retainJson) {
+        this(restConnection, retainJson, null);
+    }
+
+    /**
+     * @param retainJson When false, the json field of the transformed responses is left empty rather than filled with a serialized copy of each view. Use {@link #getJson(HubResponse)} to render it on demand. The json of notifications is
+     *            always retained, since their content is only present there.
+     * @param hubResponseCache If not null, single responses are stored here along with their ETag/Last-Modified validators, and later requests for the same uri are revalidated so an unchanged response is not transferred again.
+     */
+    public HubResponseTransformer(final RestConnection restConnection, final boolean retainJson, final HubResponseCache hubResponseCache) {
+        this(restConnection, retainJson, hubResponseCache, null);
+    }
+
+    /**
+     * @param concurrencyLimiter If not null, every request is sent through this limiter.
+     */
+    public HubResponseTransformer(final RestConnection restConnection, final boolean retainJson, final HubResponseCache hubResponseCache, final AdaptiveConcurrencyLimiter concurrencyLimiter) {
+        this(restConnection, retainJson, hubResponseCache, concurrencyLimiter, null);
+    }
+
+    /**
+     * @param retryPolicy If not null, the GET requests made to transform responses are retried according to this policy.
+     */
+    public HubResponseTransformer(final RestConnection restConnection, final boolean retainJson, final HubResponseCache hubResponseCache, final AdaptiveConcurrencyLimiter concurrencyLimiter, final RetryPolicy retryPolicy) {
+        this(restConnection, retainJson, hubResponseCache, concurrencyLimiter, retryPolicy, null);
+    }
+
+    /**
+     * @param instrumentation If not null, the latency, size, bind time and errors of every request are reported to this instrumentation.
+     */
+    public HubResponseTransformer(final RestConnection restConnection, final boolean retainJson, final HubResponseCache hubResponseCache, final AdaptiveConcurrencyLimiter concurrencyLimiter, final RetryPolicy retryPolicy,
+            final HubInstrumentation instrumentation) {
+        this(restConnection, retainJson, hubResponseCache, concurrencyLimiter, retryPolicy, instrumentation, true);
+    }
+
+    /**
+     * @param responseCompression When true, the Hub is asked to compress the responses that are transformed, and they are decompressed as they are read rather than by the connection, so the bytes transferred are counted before
+     *            decompression.
+     */
+    public HubResponseTransformer(final RestConnection restConnection, final boolean retainJson, final HubResponseCache hubResponseCache, final AdaptiveConcurrencyLimiter concurrencyLimiter, final RetryPolicy retryPolicy,
+            final HubInstrumentation instrumentation, final boolean responseCompression) {
         this.restConnection = restConnection;
         this.jsonParser = restConnection.jsonParser;
         this.gson = restConnection.gson;
+        this.retainJson = retainJson;
+        this.hubResponseCache = hubResponseCache;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.retryPolicy = retryPolicy;
+        this.instrumentation = instrumentation != null ? instrumentation : HubInstrumentation.NONE;
+        this.responseCompression = responseCompression;
+    }
+
+    public boolean isRetainJson() {
+        return retainJson;
+    }
+
+    /**
+     * @return true if the json of responses of the class is retained. NotificationView and NotificationUserView do not declare the content of the notification, so their json is retained even when retainJson is false.
+     */
+    public boolean isRetainJson(final Class<?> clazz) {
+        return retainJson || NotificationView.class.isAssignableFrom(clazz) || NotificationUserView.class.isAssignableFrom(clazz);
+    }
+
+    public HubResponseCache getHubResponseCache() {
+        return hubResponseCache;
+    }
+
+    public AdaptiveConcurrencyLimiter getConcurrencyLimiter() {
+        return concurrencyLimiter;
+    }
+
+    public HubInstrumentation getInstrumentation() {
+        return instrumentation;
+    }
+
+    public boolean isResponseCompression() {
+        return responseCompression;
+    }
+
+    /**
+     * Sends a GET whose response is read through {@link ResponseContent}, asking for it compressed if response compression is enabled.
+     */
+    public Response executeGetRequest(final Request request) throws IntegrationException {
+        if (responseCompression) {
+            return restConnection.executeRequest(RequestFactory.acceptCompressedResponse(request));
+        }
+        return restConnection.executeRequest(request);
+    }
+
+    /**
+     * Reports the size of the content read so far, both as transferred and after decompression.
+     */
+    public void recordResponseBytes(final String endpoint, final ResponseContent responseContent) {
+        instrumentation.recordResponseBytes(endpoint, responseContent.getByteCount());
+        instrumentation.recordTransferredBytes(endpoint, responseContent.getTransferredByteCount());
+    }
+
+    /**
+     * Runs a call that sends a request for the uri to the Hub through the concurrency limiter, if there is one, and reports its latency and any error to the instrumentation. The time spent waiting for the limiter is not included.
+     */
+    public <T> T executeLimited(final String uri, final LimitedCall<T> call) throws IntegrationException {
+        final String endpoint = HubEndpoint.getEndpointKey(uri);
+        final LimitedCall<T> instrumentedCall = instrumentation == HubInstrumentation.NONE ? call : () -> executeInstrumented(endpoint, call);
+        if (concurrencyLimiter == null) {
+            return instrumentedCall.call();
+        }
+        return concurrencyLimiter.execute(endpoint, instrumentedCall);
+    }
+
+    private <T> T executeInstrumented(final String endpoint, final LimitedCall<T> call) throws IntegrationException {
+        final long start = System.nanoTime();
+        try {
+            return call.call();
+        } catch (final IntegrationException | RuntimeException e) {
+            instrumentation.recordError(endpoint, e);
+            throw e;
+        } finally {
+            instrumentation.recordRequest(endpoint, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
+    }
+
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    /**
+     * Runs a call that sends an idempotent GET to the Hub through the concurrency limiter, retrying it according to the retry policy, if there is one. Each attempt waits for its own place under the limit.
+     */
+    public <T> T executeIdempotent(final String uri, final LimitedCall<T> call) throws IntegrationException {
+        if (retryPolicy == null) {
+            return executeLimited(uri, call);
+        }
+        return retryPolicy.execute(uri, () -> executeLimited(uri, call));
     }
 
     public <T extends HubResponse> T getResponse(final Request request, final Class<T> clazz) throws IntegrationException {
-        try (Response response = restConnection.executeRequest(request)) {
-            final String jsonResponse = response.getContentString();
-            final JsonObject jsonObject = jsonParser.parse(jsonResponse).getAsJsonObject();
-            return getResponseAs(jsonObject, clazz);
-        } catch (final IOException e) {
-            throw new HubIntegrationException(e.getMessage(), e);
+        if (hubResponseCache != null) {
+            return getResponseWithRevalidation(request, clazz);
         }
+        return executeIdempotent(request.getUri(), () -> {
+            try (Response response = executeGetRequest(request)) {
+                try (ResponseContent responseContent = new ResponseContent(response); Reader reader = new InputStreamReader(responseContent.getInputStream(), StandardCharsets.UTF_8)) {
+                    final JsonObject jsonObject = jsonParser.parse(reader).getAsJsonObject();
+                    final String endpoint = HubEndpoint.getEndpointKey(request.getUri());
+                    recordResponseBytes(endpoint, responseContent);
+                    final long bindStart = System.nanoTime();
+                    final T hubResponse = getResponseAs(jsonObject, clazz);
+                    instrumentation.recordBind(endpoint, 1, System.nanoTime() - bindStart);
+                    return hubResponse;
+                }
+            } catch (final IOException | JsonParseException e) {
+                throw new HubIntegrationException(e.getMessage(), e);
+            }
+        });
+    }
+
+    private <T extends HubResponse> T getResponseWithRevalidation(final Request originalRequest, final Class<T> clazz) throws IntegrationException {
+        final String uri = originalRequest.getUri();
+        final CachedResponse cachedResponse = hubResponseCache.get(uri);
+        final Request request = cachedResponse != null ? RequestFactory.withAdditionalHeaders(originalRequest) : originalRequest;
+        if (cachedResponse != null) {
+            if (StringUtils.isNotBlank(cachedResponse.getETag())) {
+                request.getAdditionalHeaders().put("If-None-Match", cachedResponse.getETag());
+            }
+            if (StringUtils.isNotBlank(cachedResponse.getLastModified())) {
+                request.getAdditionalHeaders().put("If-Modified-Since", cachedResponse.getLastModified());
+            }
+        }
+
+        return executeIdempotent(uri, () -> {
+            try (Response response = executeGetRequest(request)) {
+                if (NOT_MODIFIED == response.getStatusCode() && cachedResponse != null) {
+                    return getResponseAsInstrumented(uri, cachedResponse.getBody(), clazz);
+                }
+                final String body;
+                try (ResponseContent responseContent = new ResponseContent(response)) {
+                    body = responseContent.getContentString();
+                    recordResponseBytes(HubEndpoint.getEndpointKey(uri), responseContent);
+                }
+                final String eTag = response.getHeaderValue("ETag");
+                final String lastModified = response.getHeaderValue("Last-Modified");
+                final String cacheControl = response.getHeaderValue("Cache-Control");
+                final boolean storable = (StringUtils.isNotBlank(eTag) || StringUtils.isNotBlank(lastModified)) && !StringUtils.containsIgnoreCase(cacheControl, "no-store");
+                if (storable) {
+                    hubResponseCache.put(new CachedResponse(uri, eTag, lastModified, body));
+                } else if (cachedResponse != null) {
+                    hubResponseCache.remove(uri);
+                }
+                return getResponseAsInstrumented(uri, body, clazz);
+            } catch (final IOException | JsonParseException e) {
+                throw new HubIntegrationException(e.getMessage(), e);
+            }
+        });
+    }
+
+    private <T extends HubResponse> T getResponseAsInstrumented(final String uri, final String view, final Class<T> clazz) {
+        final long bindStart = System.nanoTime();
+        final T hubResponse = getResponseAs(view, clazz);
+        instrumentation.recordBind(HubEndpoint.getEndpointKey(uri), 1, System.nanoTime() - bindStart);
+        return hubResponse;
     }
 
     public <T extends HubResponse> T getResponseAs(final JsonElement view, final Class<T> clazz) {
         final T hubItem = gson.fromJson(view, clazz);
-        hubItem.json = gson.toJson(view);
+        if (isRetainJson(clazz)) {
+            hubItem.json = gson.toJson(view);
+        }
         return hubItem;
     }
 
+    @Override
     public <T extends HubResponse> T getResponseAs(final String view, final Class<T> clazz) {
         final T hubItem = gson.fromJson(view, clazz);
-        hubItem.json = view;
+        if (isRetainJson(clazz)) {
+            hubItem.json = view;
+        }
         return hubItem;
     }
 
+    /**
+     * @return the json the response was created from if it was retained, otherwise the json rendered from the bound response. Fields the response class does not declare are only present in the retained json.
+     */
+    @Override
+    public String getJson(final HubResponse hubResponse) {
+        if (hubResponse.json != null) {
+            return hubResponse.json;
+        }
+        return gson.toJson(hubResponse);
+    }
+
 }
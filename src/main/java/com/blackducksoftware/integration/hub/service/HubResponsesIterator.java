@@ -0,0 +1,124 @@
+/**
+ * hub-common
+ *
+ * Copyright (C) 2018 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.service;
+
+import java.io.Closeable;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import com.blackducksoftware.integration.exception.IntegrationException;
+import com.blackducksoftware.integration.hub.api.core.HubResponse;
+import com.blackducksoftware.integration.hub.exception.UncheckedHubIntegrationException;
+import com.blackducksoftware.integration.hub.service.model.PagedRequest;
+import com.blackducksoftware.integration.hub.service.model.PagedResponse;
+
+/**
+ * Walks the items of a paged Hub response, requesting the next page only once the items of the current page have been consumed. Only one page is referenced at a time. If a page can not be retrieved, hasNext and next throw an
+ * UncheckedHubIntegrationException and can be called again to resume from the offset of that page. The pages and items read are reported to the instrumentation once the iterator is exhausted or closed, whichever comes first.
+ */
+public class HubResponsesIterator<T extends HubResponse> implements Iterator<T>, Closeable {
+    private final HubResponsesTransformer hubResponsesTransformer;
+    private final PagedRequest pagedRequest;
+    private final Class<T> clazz;
+    private final Map<String, Class<? extends T>> typeMap;
+
+    private Iterator<T> currentPage = Collections.emptyIterator();
+    private int nextOffset;
+    private int totalCount = -1;
+    private boolean exhausted = false;
+    private int pageCount;
+    private int itemCount;
+    private boolean recorded = false;
+
+    public HubResponsesIterator(final HubResponsesTransformer hubResponsesTransformer, final PagedRequest pagedRequest, final Class<T> clazz, final Map<String, Class<? extends T>> typeMap) {
+        this.hubResponsesTransformer = hubResponsesTransformer;
+        this.pagedRequest = pagedRequest;
+        this.clazz = clazz;
+        this.typeMap = typeMap;
+        this.nextOffset = pagedRequest.getOffset();
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!currentPage.hasNext() && hasMorePages()) {
+            fetchNextPage();
+        }
+        if (!currentPage.hasNext()) {
+            close();
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        itemCount++;
+        return currentPage.next();
+    }
+
+    /**
+     * Reports the pages and items read so far as one paged call, unless they have already been reported. The iterator has no more items afterwards.
+     */
+    @Override
+    public void close() {
+        exhausted = true;
+        currentPage = Collections.emptyIterator();
+        if (!recorded) {
+            recorded = true;
+            hubResponsesTransformer.recordPagedCall(pagedRequest.createRequest().getUri(), pageCount, itemCount);
+        }
+    }
+
+    /**
+     * @return the totalCount reported by the Hub, or -1 if the first page has not been requested yet.
+     */
+    public int getTotalCount() {
+        return totalCount;
+    }
+
+    private boolean hasMorePages() {
+        return !exhausted && (totalCount < 0 || nextOffset < totalCount);
+    }
+
+    private void fetchNextPage() {
+        final PagedRequest offsetPagedRequest = hubResponsesTransformer.createPagedRequest(pagedRequest, nextOffset);
+        try {
+            final PagedResponse<T> pagedResponse = hubResponsesTransformer.getPagedResponse(offsetPagedRequest, clazz, typeMap);
+            pageCount++;
+            totalCount = pagedResponse.getTotalCount();
+            nextOffset += offsetPagedRequest.getLimit();
+            // an empty page means the Hub has nothing more for us, regardless of the totalCount it reported
+            exhausted = pagedResponse.getItems().isEmpty();
+            currentPage = pagedResponse.getItems().iterator();
+        } catch (final IntegrationException e) {
+            throw new UncheckedHubIntegrationException(e);
+        }
+    }
+
+}
@@ -24,30 +24,88 @@
 package com.blackducksoftware.integration.hub.service;
 
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+import org.apache.commons.lang3.math.NumberUtils;
 
 import com.blackducksoftware.integration.exception.IntegrationException;
 import com.blackducksoftware.integration.hub.api.core.HubResponse;
 import com.blackducksoftware.integration.hub.exception.HubIntegrationException;
+import com.blackducksoftware.integration.hub.request.Request;
 import com.blackducksoftware.integration.hub.request.Response;
 import com.blackducksoftware.integration.hub.rest.RestConnection;
+import com.blackducksoftware.integration.hub.service.model.AdaptivePageSizePolicy;
+import com.blackducksoftware.integration.hub.service.model.HubEndpoint;
+import com.blackducksoftware.integration.hub.service.model.HubExecutionMode;
 import com.blackducksoftware.integration.hub.service.model.PagedRequest;
+import com.blackducksoftware.integration.hub.service.model.PagedResponse;
+import com.blackducksoftware.integration.hub.service.model.ResponseContent;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
 import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 
 public class HubResponsesTransformer {
+    public static final int DEFAULT_PAGE_FETCH_PARALLELISM = 1;
+
     private final RestConnection restConnection;
     private final HubResponseTransformer hubResponseTransformer;
     private final JsonParser jsonParser;
+    private final int pageFetchParallelism;
+    private final AdaptivePageSizePolicy adaptivePageSizePolicy;
+    private final HubTaskExecutor hubTaskExecutor;
 
     public HubResponsesTransformer(final RestConnection restConnection, final HubResponseTransformer hubResponseTransformer) {
+        this(restConnection, hubResponseTransformer, DEFAULT_PAGE_FETCH_PARALLELISM);
+    }
+
+    /**
+     * @param pageFetchParallelism The maximum number of pages to request concurrently once the totalCount is known. A value of 1 (or less) fetches the pages one at a time.
+     */
+    public HubResponsesTransformer(final RestConnection restConnection, final HubResponseTransformer hubResponseTransformer, final int pageFetchParallelism) {
+        this(restConnection, hubResponseTransformer, pageFetchParallelism, null);
+    }
+
+    /**
+     * @param adaptivePageSizePolicy If not null, the limit of each page is tuned by this policy when retrieving all the items.
+     */
+    public HubResponsesTransformer(final RestConnection restConnection, final HubResponseTransformer hubResponseTransformer, final int pageFetchParallelism, final AdaptivePageSizePolicy adaptivePageSizePolicy) {
+        this(restConnection, hubResponseTransformer, pageFetchParallelism, adaptivePageSizePolicy, null);
+    }
+
+    /**
+     * @param hubTaskExecutor The executor the pages are requested on concurrently. When null, this transformer gets one of its own.
+     */
+    public HubResponsesTransformer(final RestConnection restConnection, final HubResponseTransformer hubResponseTransformer, final int pageFetchParallelism, final AdaptivePageSizePolicy adaptivePageSizePolicy,
+            final HubTaskExecutor hubTaskExecutor) {
         this.restConnection = restConnection;
         this.hubResponseTransformer = hubResponseTransformer;
         this.jsonParser = restConnection.jsonParser;
+        this.pageFetchParallelism = Math.max(DEFAULT_PAGE_FETCH_PARALLELISM, pageFetchParallelism);
+        this.adaptivePageSizePolicy = adaptivePageSizePolicy;
+        this.hubTaskExecutor = hubTaskExecutor != null ? hubTaskExecutor : new HubTaskExecutor(HubExecutionMode.PLATFORM_THREADS);
+    }
+
+    public int getPageFetchParallelism() {
+        return pageFetchParallelism;
+    }
+
+    public AdaptivePageSizePolicy getAdaptivePageSizePolicy() {
+        return adaptivePageSizePolicy;
+    }
+
+    public HubTaskExecutor getHubTaskExecutor() {
+        return hubTaskExecutor;
     }
 
     public <T extends HubResponse> List<T> getResponses(final PagedRequest pagedRequest, final Class<T> clazz) throws IntegrationException {
@@ -60,41 +118,149 @@ public class HubResponsesTransformer {
 
     public <T extends HubResponse> List<T> getResponses(final PagedRequest pagedRequest, final Class<T> clazz, final boolean getAll, final Map<String, Class<? extends T>> typeMap) throws IntegrationException {
         final List<T> allResponses = new LinkedList<>();
-        int totalCount = 0;
-        int currentOffset = pagedRequest.getOffset();
-        try (Response initialResponse = restConnection.executeRequest(pagedRequest.createRequest())) {
-            final String initialJsonResponse = initialResponse.getContentString();
-            final JsonObject initialJsonObject = jsonParser.parse(initialJsonResponse).getAsJsonObject();
-            if (typeMap != null) {
-                allResponses.addAll(getResponses(initialJsonObject, clazz, typeMap));
+        final PagedRequest initialPagedRequest = getAll ? createPagedRequest(pagedRequest, pagedRequest.getOffset()) : pagedRequest;
+        final Request initialRequest = initialPagedRequest.createRequest();
+        final PagedResponse<T> initialPage = getPage(initialRequest, clazz, typeMap);
+        allResponses.addAll(initialPage.getItems());
+        int pageCount = 1;
+        if (getAll) {
+            final int totalCount = initialPage.getTotalCount();
+            int currentOffset = initialPagedRequest.getOffset() + initialPagedRequest.getLimit();
+            if (pageFetchParallelism > 1) {
+                pageCount += addRemainingPagesInParallel(allResponses, createPagedRequest(pagedRequest, currentOffset), clazz, typeMap, totalCount);
             } else {
-                allResponses.addAll(getResponses(initialJsonObject, clazz));
+                while (allResponses.size() < totalCount && currentOffset < totalCount) {
+                    final PagedRequest offsetPagedRequest = createPagedRequest(pagedRequest, currentOffset);
+                    allResponses.addAll(getPagedResponse(offsetPagedRequest, clazz, typeMap).getItems());
+                    currentOffset += offsetPagedRequest.getLimit();
+                    pageCount++;
+                }
             }
-            if (getAll) {
-                totalCount = initialJsonObject.get("totalCount").getAsInt();
-            } else {
-                return allResponses;
+        }
+        recordPagedCall(initialRequest.getUri(), pageCount, allResponses.size());
+        return allResponses;
+    }
+
+    /**
+     * Reports a call that retrieved items of the paged uri to the instrumentation.
+     */
+    public void recordPagedCall(final String uri, final int pageCount, final int itemCount) {
+        hubResponseTransformer.getInstrumentation().recordPagedCall(HubEndpoint.getEndpointKey(uri), pageCount, itemCount);
+    }
+
+    /**
+     * @return a request for the page at the offset, using the limit tuned by the adaptive page size policy when there is one, or the limit of the original request otherwise.
+     */
+    public PagedRequest createPagedRequest(final PagedRequest pagedRequest, final int offset) {
+        int limit = pagedRequest.getLimit();
+        if (adaptivePageSizePolicy != null) {
+            limit = adaptivePageSizePolicy.getPageSize(pagedRequest.createRequest().getUri(), limit);
+        }
+        return new PagedRequest(pagedRequest.getRequestBuilder(), offset, limit);
+    }
+
+    /**
+     * @return the number of pages retrieved.
+     */
+    private <T extends HubResponse> int addRemainingPagesInParallel(final List<T> allResponses, final PagedRequest firstRemainingPagedRequest, final Class<T> clazz, final Map<String, Class<? extends T>> typeMap, final int totalCount)
+            throws IntegrationException {
+        // the requests are created up front, on this thread, so the shared request builder is never touched concurrently
+        final int limit = firstRemainingPagedRequest.getLimit();
+        final List<Request> pageRequests = new ArrayList<>();
+        for (int offset = firstRemainingPagedRequest.getOffset(); offset < totalCount; offset += limit) {
+            final PagedRequest offsetPagedRequest = new PagedRequest(firstRemainingPagedRequest.getRequestBuilder(), offset, limit);
+            pageRequests.add(offsetPagedRequest.createRequest());
+        }
+        if (pageRequests.isEmpty()) {
+            return 0;
+        }
+
+        final List<Callable<List<T>>> pageTasks = new ArrayList<>(pageRequests.size());
+        for (final Request pageRequest : pageRequests) {
+            pageTasks.add(() -> getPage(pageRequest, clazz, typeMap).getItems());
+        }
+        try {
+            // the pages come back in the order of the requests, which keeps the items in the order the Hub returned them
+            for (final List<T> pageItems : hubTaskExecutor.invokeAll(pageTasks, pageFetchParallelism)) {
+                allResponses.addAll(pageItems);
             }
-            while (allResponses.size() < totalCount && currentOffset < totalCount) {
-                currentOffset += pagedRequest.getLimit();
-                final PagedRequest offsetPagedRequest = new PagedRequest(pagedRequest.getRequestBuilder(), currentOffset, pagedRequest.getLimit());
-                try (Response response = restConnection.executeRequest(offsetPagedRequest.createRequest())) {
-                    final String jsonResponse = response.getContentString();
-                    final JsonObject jsonObject = jsonParser.parse(jsonResponse).getAsJsonObject();
-                    if (typeMap != null) {
-                        allResponses.addAll(getResponses(jsonObject, clazz, typeMap));
-                    } else {
-                        allResponses.addAll(getResponses(jsonObject, clazz));
+            return pageRequests.size();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new HubIntegrationException("Interrupted while retrieving the remaining pages", e);
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof IntegrationException) {
+                throw (IntegrationException) e.getCause();
+            }
+            throw new HubIntegrationException(e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    public <T extends HubResponse> PagedResponse<T> getPagedResponse(final PagedRequest pagedRequest, final Class<T> clazz, final Map<String, Class<? extends T>> typeMap) throws IntegrationException {
+        return getPage(pagedRequest.createRequest(), clazz, typeMap);
+    }
+
+    private <T extends HubResponse> PagedResponse<T> getPage(final Request request, final Class<T> clazz, final Map<String, Class<? extends T>> typeMap) throws IntegrationException {
+        // the page is read inside the limited call, so a request holds its place in the concurrency limit until its body has been consumed, and a failure while reading it is retried like any other
+        return hubResponseTransformer.executeIdempotent(request.getUri(), () -> {
+            final long start = System.currentTimeMillis();
+            try (Response response = hubResponseTransformer.executeGetRequest(request)) {
+                try (ResponseContent responseContent = new ResponseContent(response); JsonReader jsonReader = new JsonReader(new InputStreamReader(responseContent.getInputStream(), StandardCharsets.UTF_8))) {
+                    final String endpoint = HubEndpoint.getEndpointKey(request.getUri());
+                    final PagedResponse<T> pagedResponse = readPage(endpoint, jsonReader, clazz, typeMap);
+                    hubResponseTransformer.recordResponseBytes(endpoint, responseContent);
+                    if (adaptivePageSizePolicy != null) {
+                        final int limit = NumberUtils.toInt(request.getQueryParameters().get("limit"), 0);
+                        adaptivePageSizePolicy.recordPage(request.getUri(), limit, pagedResponse.getItems().size(), System.currentTimeMillis() - start, responseContent.getByteCount());
                     }
-                } catch (final IOException e) {
-                    throw new HubIntegrationException(e);
+                    return pagedResponse;
                 }
+            } catch (final IOException | JsonParseException e) {
+                throw new HubIntegrationException(e.getMessage(), e);
+            }
+        });
+    }
+
+    /**
+     * Reads the totalCount and the items of a page directly from the response stream, so only one item is held as a json tree at any time rather than the entire page.
+     */
+    private <T extends HubResponse> PagedResponse<T> readPage(final String endpoint, final JsonReader jsonReader, final Class<T> clazz, final Map<String, Class<? extends T>> typeMap) throws IOException {
+        int totalCount = 0;
+        long bindNanoseconds = 0;
+        final List<T> items = new ArrayList<>();
+        jsonReader.beginObject();
+        while (jsonReader.hasNext()) {
+            final String name = jsonReader.nextName();
+            if ("totalCount".equals(name)) {
+                totalCount = jsonReader.nextInt();
+            } else if ("items".equals(name) && jsonReader.peek() == JsonToken.BEGIN_ARRAY) {
+                jsonReader.beginArray();
+                while (jsonReader.hasNext()) {
+                    final JsonElement element = jsonParser.parse(jsonReader);
+                    final long bindStart = System.nanoTime();
+                    final Class<? extends T> actualClass = typeMap != null ? getActualClass(element, clazz, typeMap) : clazz;
+                    items.add(hubResponseTransformer.getResponseAs(element, actualClass));
+                    bindNanoseconds += System.nanoTime() - bindStart;
+                }
+                jsonReader.endArray();
+            } else {
+                jsonReader.skipValue();
             }
-        } catch (final IOException e) {
-            throw new HubIntegrationException(e.getMessage(), e);
         }
-        return allResponses;
+        jsonReader.endObject();
+        hubResponseTransformer.getInstrumentation().recordBind(endpoint, items.size(), bindNanoseconds);
+        return new PagedResponse<>(totalCount, items);
+    }
 
+    private <T extends HubResponse> Class<? extends T> getActualClass(final JsonElement element, final Class<T> clazz, final Map<String, Class<? extends T>> typeMap) {
+        final JsonObject elementObject = element.getAsJsonObject();
+        if (elementObject.has("type")) {
+            final String type = elementObject.get("type").getAsString();
+            if (typeMap.containsKey(type)) {
+                return typeMap.get(type);
+            }
+        }
+        return clazz;
     }
 
     public <T extends HubResponse> List<T> getResponses(final JsonArray responsesArray, final Class<T> clazz) {
@@ -122,14 +288,7 @@ public class HubResponsesTransformer {
         final JsonElement responsesElement = jsonObject.get("items");
         final JsonArray responsesArray = responsesElement.getAsJsonArray();
         for (final JsonElement element : responsesArray) {
-            Class<? extends T> actualClass = clazz;
-            final JsonObject elementObject = element.getAsJsonObject();
-            if (elementObject.has("type")) {
-                final String type = elementObject.get("type").getAsString();
-                if (typeMap.containsKey(type)) {
-                    actualClass = typeMap.get(type);
-                }
-            }
+            final Class<? extends T> actualClass = getActualClass(element, clazz, typeMap);
             final T item = hubResponseTransformer.getResponseAs(element, actualClass);
             responseList.add(item);
         }
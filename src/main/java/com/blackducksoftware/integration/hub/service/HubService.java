@@ -25,9 +25,20 @@ package com.blackducksoftware.integration.hub.service;
 
 import java.io.IOException;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import org.apache.commons.lang3.StringUtils;
 
@@ -44,10 +55,16 @@ import com.blackducksoftware.integration.hub.api.core.ResourceLink;
 import com.blackducksoftware.integration.hub.api.core.ResourceMetadata;
 import com.blackducksoftware.integration.hub.api.view.MetaHandler;
 import com.blackducksoftware.integration.hub.exception.HubIntegrationException;
+import com.blackducksoftware.integration.hub.exception.UncheckedHubIntegrationException;
 import com.blackducksoftware.integration.hub.request.Request;
 import com.blackducksoftware.integration.hub.request.Response;
+import com.blackducksoftware.integration.hub.rest.HttpMethod;
 import com.blackducksoftware.integration.hub.rest.RestConnection;
 import com.blackducksoftware.integration.hub.rest.UriCombiner;
+import com.blackducksoftware.integration.hub.service.bucket.HubBucketItem;
+import com.blackducksoftware.integration.hub.service.cache.HubRequestCoalescer;
+import com.blackducksoftware.integration.hub.service.instrumentation.HubInstrumentation;
+import com.blackducksoftware.integration.hub.service.cache.HubViewCache;
 import com.blackducksoftware.integration.hub.service.model.PagedRequest;
 import com.blackducksoftware.integration.hub.service.model.RequestFactory;
 import com.google.gson.Gson;
@@ -56,6 +73,7 @@ import com.google.gson.JsonParser;
 public class HubService {
     public static final HubPath BOMIMPORT_PATH = new HubPath("/api/bom-import");
     public static final HubPath SCANSUMMARIES_PATH = new HubPath("/api/scan-summaries");
+    public static final int DEFAULT_BULK_REQUEST_PARALLELISM = 1;
 
     private final RestConnection restConnection;
     private final MetaHandler metaHandler;
@@ -65,26 +83,104 @@ public class HubService {
     private final JsonParser jsonParser;
     private final Gson gson;
     private final UriCombiner uriCombiner;
+    private final HubViewCache hubViewCache;
+    private final HubRequestCoalescer hubRequestCoalescer;
+    private final int bulkRequestParallelism;
+    private final HubTaskExecutor hubTaskExecutor;
 
     public HubService(final RestConnection restConnection) {
         this(restConnection, new UriCombiner());
     }
 
     public HubService(final RestConnection restConnection, final UriCombiner uriCombiner) {
+        this(restConnection, uriCombiner, HubResponsesTransformer.DEFAULT_PAGE_FETCH_PARALLELISM);
+    }
+
+    public HubService(final RestConnection restConnection, final UriCombiner uriCombiner, final int pageFetchParallelism) {
+        this(restConnection, uriCombiner, new HubResponseTransformer(restConnection), pageFetchParallelism);
+    }
+
+    public HubService(final RestConnection restConnection, final UriCombiner uriCombiner, final HubResponseTransformer hubResponseTransformer, final int pageFetchParallelism) {
+        this(restConnection, uriCombiner, hubResponseTransformer, new HubResponsesTransformer(restConnection, hubResponseTransformer, pageFetchParallelism));
+    }
+
+    public HubService(final RestConnection restConnection, final UriCombiner uriCombiner, final HubResponseTransformer hubResponseTransformer, final HubResponsesTransformer hubResponsesTransformer) {
+        this(restConnection, uriCombiner, hubResponseTransformer, hubResponsesTransformer, null);
+    }
+
+    /**
+     * @param hubViewCache If not null, single responses retrieved by uri are served from, and added to, this cache. Each caller gets a view of its own, and a request other than a GET removes the view of its uri.
+     */
+    public HubService(final RestConnection restConnection, final UriCombiner uriCombiner, final HubResponseTransformer hubResponseTransformer, final HubResponsesTransformer hubResponsesTransformer, final HubViewCache hubViewCache) {
+        this(restConnection, uriCombiner, hubResponseTransformer, hubResponsesTransformer, hubViewCache, null);
+    }
+
+    /**
+     * @param hubRequestCoalescer If not null, concurrent requests for the same single response share one GET, and each caller gets a response of its own.
+     */
+    public HubService(final RestConnection restConnection, final UriCombiner uriCombiner, final HubResponseTransformer hubResponseTransformer, final HubResponsesTransformer hubResponsesTransformer, final HubViewCache hubViewCache,
+            final HubRequestCoalescer hubRequestCoalescer) {
+        this(restConnection, uriCombiner, hubResponseTransformer, hubResponsesTransformer, hubViewCache, hubRequestCoalescer, DEFAULT_BULK_REQUEST_PARALLELISM);
+    }
+
+    /**
+     * @param bulkRequestParallelism The maximum number of single responses retrieved concurrently by getResponseItems(List) and getResponses(List, Class). The default of 1 retrieves them one at a time.
+     */
+    public HubService(final RestConnection restConnection, final UriCombiner uriCombiner, final HubResponseTransformer hubResponseTransformer, final HubResponsesTransformer hubResponsesTransformer, final HubViewCache hubViewCache,
+            final HubRequestCoalescer hubRequestCoalescer, final int bulkRequestParallelism) {
+        this(restConnection, uriCombiner, hubResponseTransformer, hubResponsesTransformer, hubViewCache, hubRequestCoalescer, bulkRequestParallelism, null);
+    }
+
+    /**
+     * @param hubTaskExecutor The executor whose threads and limit on concurrent tasks are used for concurrent requests, meant to be shared by every HubService of a HubServicesFactory. When null, this service gets one of its own.
+     */
+    public HubService(final RestConnection restConnection, final UriCombiner uriCombiner, final HubResponseTransformer hubResponseTransformer, final HubResponsesTransformer hubResponsesTransformer, final HubViewCache hubViewCache,
+            final HubRequestCoalescer hubRequestCoalescer, final int bulkRequestParallelism, final HubTaskExecutor hubTaskExecutor) {
         this.restConnection = restConnection;
         this.hubBaseUrl = restConnection.baseUrl;
         this.jsonParser = restConnection.jsonParser;
         this.gson = restConnection.gson;
         this.uriCombiner = uriCombiner;
-        this.metaHandler = new MetaHandler(restConnection.logger);
-        this.hubResponseTransformer = new HubResponseTransformer(restConnection);
-        this.hubResponsesTransformer = new HubResponsesTransformer(restConnection, hubResponseTransformer);
+        this.metaHandler = new MetaHandler(restConnection.logger, restConnection.gson);
+        this.hubResponseTransformer = hubResponseTransformer;
+        this.hubResponsesTransformer = hubResponsesTransformer;
+        this.hubViewCache = hubViewCache;
+        this.hubRequestCoalescer = hubRequestCoalescer;
+        this.bulkRequestParallelism = bulkRequestParallelism;
+        this.hubTaskExecutor = hubTaskExecutor != null ? hubTaskExecutor : hubResponsesTransformer.getHubTaskExecutor();
     }
 
     public RestConnection getRestConnection() {
         return restConnection;
     }
 
+    public HubViewCache getHubViewCache() {
+        return hubViewCache;
+    }
+
+    public HubRequestCoalescer getHubRequestCoalescer() {
+        return hubRequestCoalescer;
+    }
+
+    public int getBulkRequestParallelism() {
+        return bulkRequestParallelism;
+    }
+
+    public HubTaskExecutor getHubTaskExecutor() {
+        return hubTaskExecutor;
+    }
+
+    public MetaHandler getMetaHandler() {
+        return metaHandler;
+    }
+
+    /**
+     * @return the instrumentation the requests of this service are reported to, which is HubInstrumentation.NONE unless one was configured.
+     */
+    public HubInstrumentation getInstrumentation() {
+        return hubResponseTransformer.getInstrumentation();
+    }
+
     public URL getHubBaseUrl() {
         return hubBaseUrl;
     }
@@ -97,6 +193,10 @@ public class HubService {
         return gson;
     }
 
+    public String getJson(final HubResponse hubResponse) {
+        return hubResponseTransformer.getJson(hubResponse);
+    }
+
     public boolean hasLink(final HubView view, final String linkKey) throws HubIntegrationException {
         return metaHandler.hasLink(view, linkKey);
     }
@@ -109,6 +209,10 @@ public class HubService {
         return metaHandler.getFirstLinkSafely(view, linkKey);
     }
 
+    public Optional<String> findFirstLink(final HubView view, final String linkKey) {
+        return metaHandler.findFirstLink(view, linkKey);
+    }
+
     public List<String> getLinks(final HubView view, final String linkKey) throws HubIntegrationException {
         return metaHandler.getLinks(view, linkKey);
     }
@@ -163,8 +267,7 @@ public class HubService {
 
     public <T extends HubResponse> T getResponse(final HubPathSingleResponse<T> hubPathSingleResponse) throws IntegrationException {
         final String uri = uriCombiner.pieceTogetherUri(hubBaseUrl, hubPathSingleResponse.hubPath.getPath());
-        final Request request = RequestFactory.createCommonGetRequest(uri);
-        return hubResponseTransformer.getResponse(request, hubPathSingleResponse.responseClass);
+        return getResponse(uri, hubPathSingleResponse.responseClass);
     }
 
     // ------------------------------------------------
@@ -211,8 +314,7 @@ public class HubService {
         if (StringUtils.isBlank(uri)) {
             return null;
         }
-        final Request request = RequestFactory.createCommonGetRequest(uri);
-        return hubResponseTransformer.getResponse(request, linkSingleResponse.responseClass);
+        return getResponse(uri, linkSingleResponse.responseClass);
     }
 
     // ------------------------------------------------
@@ -233,32 +335,212 @@ public class HubService {
     }
 
     public <T extends HubResponse> T getResponse(final String uri, final Class<T> responseClass) throws IntegrationException {
+        if (hubViewCache != null) {
+            final String cachedJson = hubViewCache.getJson(uri, responseClass);
+            if (cachedJson != null) {
+                return hubResponseTransformer.getResponseAs(cachedJson, responseClass);
+            }
+        }
+        if (hubRequestCoalescer != null) {
+            return hubRequestCoalescer.getResponse(uri, responseClass, hubResponseTransformer, () -> retrieveResponse(uri, responseClass));
+        }
+        return retrieveResponse(uri, responseClass);
+    }
+
+    private <T extends HubResponse> T retrieveResponse(final String uri, final Class<T> responseClass) throws IntegrationException {
         final Request request = RequestFactory.createCommonGetRequest(uri);
-        return hubResponseTransformer.getResponse(request, responseClass);
+        final T response = hubResponseTransformer.getResponse(request, responseClass);
+        if (hubViewCache != null) {
+            hubViewCache.put(uri, responseClass, hubResponseTransformer.getJson(response));
+        }
+        return response;
     }
 
     // ------------------------------------------------
     // getting responses from a UriSingleResponse
     // ------------------------------------------------
     public <T extends HubResponse> T getResponse(final UriSingleResponse<T> uriSingleResponse) throws IntegrationException {
-        final Request request = RequestFactory.createCommonGetRequest(uriSingleResponse.uri);
-        return hubResponseTransformer.getResponse(request, uriSingleResponse.responseClass);
+        return getResponse(uriSingleResponse.uri, uriSingleResponse.responseClass);
+    }
+
+    // ------------------------------------------------
+    // getting many single responses at once
+    // ------------------------------------------------
+    /**
+     * Retrieves the responses, up to the bulk request parallelism of this service at once, requesting each distinct uri only once. The items are returned in the order of the given list, and an item holds the exception rather than the
+     * response when its uri could not be retrieved.
+     */
+    public List<HubBucketItem<HubResponse>> getResponseItems(final List<? extends UriSingleResponse<? extends HubResponse>> uriSingleResponses) throws IntegrationException {
+        final Map<String, UriSingleResponse<? extends HubResponse>> distinctUriSingleResponses = new LinkedHashMap<>();
+        for (final UriSingleResponse<? extends HubResponse> uriSingleResponse : uriSingleResponses) {
+            distinctUriSingleResponses.putIfAbsent(uriSingleResponse.uri, uriSingleResponse);
+        }
+        final Map<String, HubBucketItem<HubResponse>> itemsByUri = retrieveItems(distinctUriSingleResponses.values());
+
+        final List<HubBucketItem<HubResponse>> items = new ArrayList<>(uriSingleResponses.size());
+        for (final UriSingleResponse<? extends HubResponse> uriSingleResponse : uriSingleResponses) {
+            items.add(itemsByUri.get(uriSingleResponse.uri));
+        }
+        return items;
+    }
+
+    /**
+     * Retrieves the responses the way getResponseItems(List) does, in the order of the given uris, throwing the first failure encountered.
+     */
+    public <T extends HubResponse> List<T> getResponses(final List<String> uris, final Class<T> responseClass) throws IntegrationException {
+        final List<UriSingleResponse<T>> uriSingleResponses = new ArrayList<>(uris.size());
+        for (final String uri : uris) {
+            uriSingleResponses.add(new UriSingleResponse<>(uri, responseClass));
+        }
+
+        final List<T> responses = new ArrayList<>(uris.size());
+        for (final HubBucketItem<HubResponse> item : getResponseItems(uriSingleResponses)) {
+            if (item.hasException()) {
+                final Exception e = item.getE().get();
+                if (e instanceof IntegrationException) {
+                    throw (IntegrationException) e;
+                }
+                throw new HubIntegrationException(e.getMessage(), e);
+            }
+            if (item.getHubResponse().isPresent()) {
+                responses.add(responseClass.cast(item.getHubResponse().get()));
+            }
+        }
+        return responses;
+    }
+
+    private Map<String, HubBucketItem<HubResponse>> retrieveItems(final Collection<UriSingleResponse<? extends HubResponse>> uriSingleResponses) throws IntegrationException {
+        final List<Callable<HubBucketItem<HubResponse>>> tasks = new ArrayList<>(uriSingleResponses.size());
+        for (final UriSingleResponse<? extends HubResponse> uriSingleResponse : uriSingleResponses) {
+            tasks.add(() -> retrieveItem(uriSingleResponse));
+        }
+        final List<HubBucketItem<HubResponse>> items;
+        try {
+            items = hubTaskExecutor.invokeAll(tasks, bulkRequestParallelism);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new HubIntegrationException("Interrupted while retrieving the responses", e);
+        } catch (final ExecutionException e) {
+            // retrieveItem records every Exception, so only an Error can get here
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new HubIntegrationException(e.getCause().getMessage(), e.getCause());
+        }
+
+        final Map<String, HubBucketItem<HubResponse>> itemsByUri = new LinkedHashMap<>();
+        for (final HubBucketItem<HubResponse> item : items) {
+            itemsByUri.put(item.getUri(), item);
+        }
+        return itemsByUri;
+    }
+
+    private HubBucketItem<HubResponse> retrieveItem(final UriSingleResponse<? extends HubResponse> uriSingleResponse) {
+        try {
+            final HubResponse response = getResponse(uriSingleResponse.uri, uriSingleResponse.responseClass);
+            return new HubBucketItem<>(uriSingleResponse.uri, response);
+        } catch (final Exception e) {
+            return new HubBucketItem<>(uriSingleResponse.uri, e);
+        }
+    }
+
+    // ------------------------------------------------
+    // streaming responses, one page at a time
+    // the returned Stream will throw an UncheckedHubIntegrationException if a page can not be retrieved
+    // the paged call is reported to the instrumentation once the Stream is exhausted or closed
+    // ------------------------------------------------
+    public <T extends HubResponse> Stream<T> streamResponses(final HubPathMultipleResponses<T> hubPathMultipleResponses) throws IntegrationException {
+        return streamResponses(hubPathMultipleResponses, RequestFactory.createCommonGetRequestBuilder(), null);
+    }
+
+    public <T extends HubResponse> Stream<T> streamResponses(final HubPathMultipleResponses<T> hubPathMultipleResponses, final Request.Builder requestBuilder) throws IntegrationException {
+        return streamResponses(hubPathMultipleResponses, requestBuilder, null);
+    }
+
+    public <T extends HubResponse> Stream<T> streamResponses(final HubPathMultipleResponses<T> hubPathMultipleResponses, final Request.Builder requestBuilder, final Map<String, Class<? extends T>> typeMap) throws IntegrationException {
+        final String uri = uriCombiner.pieceTogetherUri(hubBaseUrl, hubPathMultipleResponses.hubPath.getPath());
+        requestBuilder.uri(uri);
+        return streamResponses(hubPathMultipleResponses.responseClass, requestBuilder, typeMap);
+    }
+
+    public <T extends HubResponse> Stream<T> streamResponses(final HubView hubView, final LinkMultipleResponses<T> linkMultipleResponses) throws IntegrationException {
+        return streamResponses(hubView, linkMultipleResponses, RequestFactory.createCommonGetRequestBuilder());
+    }
+
+    public <T extends HubResponse> Stream<T> streamResponses(final HubView hubView, final LinkMultipleResponses<T> linkMultipleResponses, final Request.Builder requestBuilder) throws IntegrationException {
+        final String uri = metaHandler.getFirstLinkSafely(hubView, linkMultipleResponses.link);
+        if (StringUtils.isBlank(uri)) {
+            return Stream.empty();
+        }
+        requestBuilder.uri(uri);
+        return streamResponses(linkMultipleResponses.responseClass, requestBuilder, null);
+    }
+
+    public <T extends HubResponse> Stream<T> streamResponses(final String uri, final Class<T> responseClass) throws IntegrationException {
+        return streamResponses(responseClass, RequestFactory.createCommonGetRequestBuilder(uri), null);
+    }
+
+    public <T extends HubResponse> Stream<T> streamResponses(final Class<T> responseClass, final Request.Builder requestBuilder, final Map<String, Class<? extends T>> typeMap) {
+        final HubResponsesIterator<T> iterator = getResponsesIterator(responseClass, requestBuilder, typeMap);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false).onClose(iterator::close);
+    }
+
+    public <T extends HubResponse> HubResponsesIterator<T> getResponsesIterator(final Class<T> responseClass, final Request.Builder requestBuilder, final Map<String, Class<? extends T>> typeMap) {
+        return new HubResponsesIterator<>(hubResponsesTransformer, new PagedRequest(requestBuilder), responseClass, typeMap);
+    }
+
+    // ------------------------------------------------
+    // finding the first matching response, stopping as soon as it is found
+    // ------------------------------------------------
+    public <T extends HubResponse> Optional<T> findFirst(final HubPathMultipleResponses<T> hubPathMultipleResponses, final Predicate<T> predicate) throws IntegrationException {
+        return findFirst(streamResponses(hubPathMultipleResponses), predicate);
+    }
+
+    public <T extends HubResponse> Optional<T> findFirst(final HubPathMultipleResponses<T> hubPathMultipleResponses, final Request.Builder requestBuilder, final Predicate<T> predicate) throws IntegrationException {
+        return findFirst(streamResponses(hubPathMultipleResponses, requestBuilder), predicate);
+    }
+
+    public <T extends HubResponse> Optional<T> findFirst(final HubView hubView, final LinkMultipleResponses<T> linkMultipleResponses, final Predicate<T> predicate) throws IntegrationException {
+        return findFirst(streamResponses(hubView, linkMultipleResponses), predicate);
+    }
+
+    public <T extends HubResponse> Optional<T> findFirst(final HubView hubView, final LinkMultipleResponses<T> linkMultipleResponses, final Request.Builder requestBuilder, final Predicate<T> predicate) throws IntegrationException {
+        return findFirst(streamResponses(hubView, linkMultipleResponses, requestBuilder), predicate);
+    }
+
+    public <T extends HubResponse> Optional<T> findFirst(final String uri, final Class<T> responseClass, final Predicate<T> predicate) throws IntegrationException {
+        return findFirst(streamResponses(uri, responseClass), predicate);
+    }
+
+    private <T extends HubResponse> Optional<T> findFirst(final Stream<T> responses, final Predicate<T> predicate) throws IntegrationException {
+        try (Stream<T> closedResponses = responses) {
+            return closedResponses.filter(predicate).findFirst();
+        } catch (final UncheckedHubIntegrationException e) {
+            throw e.getCause();
+        }
     }
 
     // ------------------------------------------------
     // handling plain requests
     // ------------------------------------------------
     public Response executeGetRequest(final String uri) throws IntegrationException {
-        return restConnection.executeRequest(RequestFactory.createCommonGetRequest(uri));
+        return executeRequest(RequestFactory.createCommonGetRequest(uri));
     }
 
     public Response executeGetRequest(final HubPath path) throws IntegrationException {
         final String uri = uriCombiner.pieceTogetherUri(restConnection.baseUrl, path.getPath());
-        return restConnection.executeRequest(RequestFactory.createCommonGetRequest(uri));
+        return executeRequest(RequestFactory.createCommonGetRequest(uri));
     }
 
+    /**
+     * Sends the request through the concurrency limiter of the HubResponseTransformer, if it has one. The limiter only covers the request until the response is returned, not the reading of its content. Any request other than a GET
+     * removes the view of its uri from the HubViewCache.
+     */
     public Response executeRequest(final Request request) throws IntegrationException {
-        return restConnection.executeRequest(request);
+        if (hubViewCache != null && request.getMethod() != null && HttpMethod.GET != request.getMethod()) {
+            hubViewCache.invalidate(request.getUri());
+        }
+        return hubResponseTransformer.executeLimited(request.getUri(), () -> restConnection.executeRequest(request));
     }
 
     // ------------------------------------------------
@@ -23,7 +23,9 @@
  */
 package com.blackducksoftware.integration.hub.service;
 
+import java.io.Closeable;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 import org.apache.commons.lang3.builder.RecursiveToStringStyle;
 import org.apache.commons.lang3.builder.ReflectionToStringBuilder;
@@ -37,14 +39,36 @@ import com.blackducksoftware.integration.hub.notification.PolicyNotificationFilt
 import com.blackducksoftware.integration.hub.rest.RestConnection;
 import com.blackducksoftware.integration.hub.rest.UriCombiner;
 import com.blackducksoftware.integration.hub.service.bucket.HubBucketService;
+import com.blackducksoftware.integration.hub.service.cache.HubRequestCoalescer;
+import com.blackducksoftware.integration.hub.service.cache.HubResponseCache;
+import com.blackducksoftware.integration.hub.service.cache.HubViewCache;
+import com.blackducksoftware.integration.hub.service.instrumentation.HubInstrumentation;
+import com.blackducksoftware.integration.hub.service.model.AdaptiveConcurrencyLimiter;
+import com.blackducksoftware.integration.hub.service.model.AdaptivePageSizePolicy;
+import com.blackducksoftware.integration.hub.service.model.HubExecutionMode;
+import com.blackducksoftware.integration.hub.service.model.RetryPolicy;
 import com.blackducksoftware.integration.phonehome.PhoneHomeClient;
 import com.blackducksoftware.integration.phonehome.google.analytics.GoogleAnalyticsConstants;
 import com.blackducksoftware.integration.util.CIEnvironmentVariables;
 import com.blackducksoftware.integration.util.IntegrationEscapeUtil;
 
-public class HubServicesFactory {
+public class HubServicesFactory implements Closeable {
     private final CIEnvironmentVariables ciEnvironmentVariables;
     private final RestConnection restConnection;
+    private int pageFetchParallelism = HubResponsesTransformer.DEFAULT_PAGE_FETCH_PARALLELISM;
+    private boolean retainResponseJson = true;
+    private AdaptivePageSizePolicy adaptivePageSizePolicy;
+    private HubResponseCache hubResponseCache;
+    private HubViewCache hubViewCache;
+    private HubRequestCoalescer hubRequestCoalescer;
+    private int bulkRequestParallelism = HubService.DEFAULT_BULK_REQUEST_PARALLELISM;
+    private HubTaskExecutor hubTaskExecutor;
+    private HubTaskExecutor defaultHubTaskExecutor;
+    private int maxNotificationsInMemory;
+    private AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private RetryPolicy retryPolicy;
+    private HubInstrumentation instrumentation;
+    private boolean responseCompression = true;
 
     public HubServicesFactory(final RestConnection restConnection) {
         this.ciEnvironmentVariables = new CIEnvironmentVariables();
@@ -61,6 +85,153 @@ public class HubServicesFactory {
         ciEnvironmentVariables.putAll(environmentVariables);
     }
 
+    /**
+     * @param pageFetchParallelism The number of pages each HubService created by this factory may request concurrently when retrieving all the items of a paged response.
+     */
+    public void setPageFetchParallelism(final int pageFetchParallelism) {
+        this.pageFetchParallelism = pageFetchParallelism;
+    }
+
+    public int getPageFetchParallelism() {
+        return pageFetchParallelism;
+    }
+
+    /**
+     * @param retainResponseJson When false, the HubService instances created by this factory do not fill the json field of the responses they return. HubService.getJson will render it on demand.
+     */
+    public void setRetainResponseJson(final boolean retainResponseJson) {
+        this.retainResponseJson = retainResponseJson;
+    }
+
+    public boolean isRetainResponseJson() {
+        return retainResponseJson;
+    }
+
+    /**
+     * @param adaptivePageSizePolicy When set, the HubService instances created by this factory share this policy, so the page sizes it tunes are remembered across them. Set to null to always use the requested limit.
+     */
+    public void setAdaptivePageSizePolicy(final AdaptivePageSizePolicy adaptivePageSizePolicy) {
+        this.adaptivePageSizePolicy = adaptivePageSizePolicy;
+    }
+
+    public AdaptivePageSizePolicy getAdaptivePageSizePolicy() {
+        return adaptivePageSizePolicy;
+    }
+
+    /**
+     * @param hubResponseCache When set, single GET responses retrieved by the HubService instances created by this factory are stored in this cache and revalidated with the Hub rather than transferred again. Set to null to disable.
+     */
+    public void setHubResponseCache(final HubResponseCache hubResponseCache) {
+        this.hubResponseCache = hubResponseCache;
+    }
+
+    public HubResponseCache getHubResponseCache() {
+        return hubResponseCache;
+    }
+
+    /**
+     * @param hubViewCache When set, the HubService instances created by this factory share this cache of views retrieved by uri. Only the json of a view is cached, so each hit binds a new view that the caller is free to modify. Entries expire after the time to live of their response class, and any request other than a GET sent through a HubService removes the entry of its uri. Set to null to disable.
+     */
+    public void setHubViewCache(final HubViewCache hubViewCache) {
+        this.hubViewCache = hubViewCache;
+    }
+
+    public HubViewCache getHubViewCache() {
+        return hubViewCache;
+    }
+
+    /**
+     * @param hubRequestCoalescer When set, concurrent requests for the same uri made through the HubService instances created by this factory wait on a single GET. Set to null to disable.
+     */
+    public void setHubRequestCoalescer(final HubRequestCoalescer hubRequestCoalescer) {
+        this.hubRequestCoalescer = hubRequestCoalescer;
+    }
+
+    public HubRequestCoalescer getHubRequestCoalescer() {
+        return hubRequestCoalescer;
+    }
+
+    /**
+     * @param bulkRequestParallelism The number of single responses each HubService created by this factory may request concurrently when retrieving a list of uris. The default of 1 requests them one at a time.
+     */
+    public void setBulkRequestParallelism(final int bulkRequestParallelism) {
+        this.bulkRequestParallelism = bulkRequestParallelism;
+    }
+
+    public int getBulkRequestParallelism() {
+        return bulkRequestParallelism;
+    }
+
+    /**
+     * @param hubTaskExecutor When set, the PhoneHomeService, NotificationService and ExtensionConfigService instances created by this factory run their fan-out work through it, for example on virtual threads with
+     * new HubTaskExecutor(HubExecutionMode.VIRTUAL_THREADS). Set to null to use pools sized to the number of processors. The HubService instances created by this factory make their concurrent requests through it, or through an executor
+     * of this factory when it is null.
+     */
+    public void setHubTaskExecutor(final HubTaskExecutor hubTaskExecutor) {
+        this.hubTaskExecutor = hubTaskExecutor;
+    }
+
+    public HubTaskExecutor getHubTaskExecutor() {
+        return hubTaskExecutor;
+    }
+
+    /**
+     * @param maxNotificationsInMemory When greater than 0, the NotificationService instances created by this factory keep at most this many notifications of a date range in memory and spill the rest to a temporary file.
+     */
+    public void setMaxNotificationsInMemory(final int maxNotificationsInMemory) {
+        this.maxNotificationsInMemory = maxNotificationsInMemory;
+    }
+
+    public int getMaxNotificationsInMemory() {
+        return maxNotificationsInMemory;
+    }
+
+    /**
+     * @param concurrencyLimiter When set, every request made by the HubService instances created by this factory waits for room under the limit of this shared limiter, which adapts to the latency and throttling responses of the Hub.
+     * Set to null to send requests without a limit.
+     */
+    public void setConcurrencyLimiter(final AdaptiveConcurrencyLimiter concurrencyLimiter) {
+        this.concurrencyLimiter = concurrencyLimiter;
+    }
+
+    public AdaptiveConcurrencyLimiter getConcurrencyLimiter() {
+        return concurrencyLimiter;
+    }
+
+    /**
+     * @param retryPolicy When set, the GET requests made by the HubService instances created by this factory to retrieve responses and pages are retried on transient failures according to this shared policy. Set to null to disable.
+     */
+    public void setRetryPolicy(final RetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+    }
+
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    /**
+     * @param instrumentation When set, the requests made by the HubService instances created by this factory are reported to it, for example an InMemoryHubInstrumentation whose snapshots can be logged. Set to null to disable.
+     */
+    public void setInstrumentation(final HubInstrumentation instrumentation) {
+        this.instrumentation = instrumentation;
+    }
+
+    public HubInstrumentation getInstrumentation() {
+        return instrumentation;
+    }
+
+    /**
+     * @param responseCompression When true, the default, the HubService instances created by this factory ask the Hub to compress the responses they transform and decompress them as they are read, so the bytes compression saved are
+     * counted. When false, the decompression is left to the connection. HubServerConfig.createHubServicesFactory sets this from the configuration.
+     */
+    public void setResponseCompression(final boolean responseCompression) {
+        this.responseCompression = responseCompression;
+    }
+
+    public boolean isResponseCompression() {
+        return responseCompression;
+    }
+
     public SignatureScannerService createSignatureScannerService() {
         return createSignatureScannerService(120000l);
     }
@@ -70,6 +241,9 @@ public class HubServicesFactory {
     }
 
     public PhoneHomeService createPhoneHomeService() {
+        if (hubTaskExecutor != null) {
+            return new PhoneHomeService(createHubService(), createPhoneHomeClient(), createHubRegistrationService(), ciEnvironmentVariables, hubTaskExecutor);
+        }
         return new PhoneHomeService(createHubService(), createPhoneHomeClient(), createHubRegistrationService(), ciEnvironmentVariables);
     }
 
@@ -91,15 +265,15 @@ public class HubServicesFactory {
     }
 
     public NotificationService createNotificationService() {
-        return new NotificationService(createHubService());
+        return new NotificationService(createHubService(), null, hubTaskExecutor, maxNotificationsInMemory);
     }
 
     public NotificationService createNotificationService(final PolicyNotificationFilter policyNotificationFilter) {
-        return new NotificationService(createHubService(), policyNotificationFilter);
+        return new NotificationService(createHubService(), policyNotificationFilter, hubTaskExecutor, maxNotificationsInMemory);
     }
 
     public ExtensionConfigService createExtensionConfigService() {
-        return new ExtensionConfigService(createHubService());
+        return new ExtensionConfigService(createHubService(), hubTaskExecutor);
     }
 
     public LicenseService createLicenseService() {
@@ -127,11 +301,50 @@ public class HubServicesFactory {
     }
 
     public HubService createHubService() {
-        return new HubService(restConnection);
+        return createHubService(new UriCombiner());
     }
 
     public HubService createHubService(final UriCombiner uriCombiner) {
-        return new HubService(restConnection, uriCombiner);
+        final HubResponseTransformer hubResponseTransformer = new HubResponseTransformer(restConnection, retainResponseJson, hubResponseCache, concurrencyLimiter, retryPolicy, instrumentation, responseCompression);
+        final HubTaskExecutor sharedHubTaskExecutor = getSharedHubTaskExecutor();
+        final HubResponsesTransformer hubResponsesTransformer = new HubResponsesTransformer(restConnection, hubResponseTransformer, pageFetchParallelism, adaptivePageSizePolicy, sharedHubTaskExecutor);
+        return new HubService(restConnection, uriCombiner, hubResponseTransformer, hubResponsesTransformer, hubViewCache, hubRequestCoalescer, bulkRequestParallelism, sharedHubTaskExecutor);
+    }
+
+    /**
+     * @return the HubTaskExecutor set on this factory, or else one created for the HubService instances of this factory, so they all share its threads and its limit on concurrent tasks.
+     */
+    private synchronized HubTaskExecutor getSharedHubTaskExecutor() {
+        if (hubTaskExecutor != null) {
+            return hubTaskExecutor;
+        }
+        if (defaultHubTaskExecutor == null) {
+            defaultHubTaskExecutor = new HubTaskExecutor(HubExecutionMode.PLATFORM_THREADS);
+        }
+        return defaultHubTaskExecutor;
+    }
+
+    /**
+     * Stops the threads of the RetryPolicy and of the HubTaskExecutor used by the services of this factory once their current work is done. The services can still be used afterwards; the threads are started again as needed.
+     */
+    @Override
+    public synchronized void close() {
+        if (retryPolicy != null) {
+            retryPolicy.close();
+        }
+        if (hubTaskExecutor != null) {
+            hubTaskExecutor.close();
+        }
+        if (defaultHubTaskExecutor != null) {
+            defaultHubTaskExecutor.close();
+        }
+    }
+
+    /**
+     * @param executor The executor that runs the blocking Hub calls. It should not be a small CPU-bound pool, since its threads wait on the network.
+     */
+    public AsyncHubService createAsyncHubService(final Executor executor) {
+        return new AsyncHubService(createHubService(), executor);
     }
 
     public RestConnection getRestConnection() {
@@ -0,0 +1,340 @@
+/**
+ * hub-common
+ *
+ * Copyright (C) 2018 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.service;
+
+import java.io.Closeable;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.blackducksoftware.integration.hub.service.model.HubExecutionMode;
+import com.blackducksoftware.integration.hub.service.model.SpillingResponseList;
+import com.blackducksoftware.integration.parallel.processor.ItemTransformer;
+import com.blackducksoftware.integration.parallel.processor.ParallelResourceProcessorResults;
+
+/**
+ * Creates the executors used for fan-out work, such as transforming notifications or phoning home, and caps how many of those tasks, each making Hub requests, run at once. A single instance is meant to be shared by the services of a
+ * HubServicesFactory so the cap applies to all of them. The threads of {@link #invokeAll(List, int)} are shared by every call and exit once idle, so close only needs to be called to stop them early.
+ */
+public class HubTaskExecutor implements Closeable {
+    public static final int DEFAULT_MAX_CONCURRENT_TASKS = 64;
+    public static final long SHARED_THREAD_KEEP_ALIVE_SECONDS = 30;
+    public static final int PROCESS_BATCH_SIZE = 100;
+
+    private static final Method NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR = findNewVirtualThreadPerTaskExecutor();
+
+    private final HubExecutionMode executionMode;
+    private final int maxConcurrentTasks;
+    private final Semaphore semaphore;
+    // set while the current thread runs a task under a permit, so the tasks it fans out to run under that same permit instead of waiting for another
+    private final ThreadLocal<Boolean> holdingPermit = new ThreadLocal<>();
+    private ExecutorService sharedExecutorService;
+
+    public HubTaskExecutor(final HubExecutionMode executionMode) {
+        this(executionMode, DEFAULT_MAX_CONCURRENT_TASKS);
+    }
+
+    /**
+     * @param maxConcurrentTasks The maximum number of tasks making Hub requests at once, or 0 or less for no limit beyond the size of the executors.
+     */
+    public HubTaskExecutor(final HubExecutionMode executionMode, final int maxConcurrentTasks) {
+        this.executionMode = executionMode;
+        this.maxConcurrentTasks = maxConcurrentTasks;
+        this.semaphore = maxConcurrentTasks > 0 ? new Semaphore(maxConcurrentTasks) : null;
+    }
+
+    public static boolean isVirtualThreadSupported() {
+        return NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR != null;
+    }
+
+    private static Method findNewVirtualThreadPerTaskExecutor() {
+        // looked up reflectively so this library still runs on runtimes without virtual threads
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (final NoSuchMethodException | SecurityException e) {
+            return null;
+        }
+    }
+
+    public HubExecutionMode getExecutionMode() {
+        return executionMode;
+    }
+
+    public int getMaxConcurrentTasks() {
+        return maxConcurrentTasks;
+    }
+
+    public boolean isUsingVirtualThreads() {
+        return HubExecutionMode.VIRTUAL_THREADS == executionMode && isVirtualThreadSupported();
+    }
+
+    /**
+     * @param platformThreadCount The size of the pool created when virtual threads are not in use.
+     */
+    public ExecutorService createExecutorService(final int platformThreadCount) {
+        if (isUsingVirtualThreads()) {
+            try {
+                return (ExecutorService) NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR.invoke(null);
+            } catch (final ReflectiveOperationException e) {
+                // fall back to platform threads
+            }
+        }
+        return Executors.newFixedThreadPool(platformThreadCount);
+    }
+
+    /**
+     * @return a task that waits for a permit before running the given one, when the number of concurrent tasks is limited. A task created on a thread that already holds a permit and run on that thread does not wait for another.
+     */
+    public <T> Callable<T> limit(final Callable<T> task) {
+        if (semaphore == null) {
+            return task;
+        }
+        return () -> {
+            if (isHoldingPermit()) {
+                return task.call();
+            }
+            semaphore.acquire();
+            holdingPermit.set(Boolean.TRUE);
+            try {
+                return task.call();
+            } finally {
+                holdingPermit.remove();
+                semaphore.release();
+            }
+        };
+    }
+
+    /**
+     * Runs the tasks, at most parallelism of them at once, and returns their results in the order of the tasks. The calling thread runs tasks itself, and is only helped by the shared threads of this executor while permits are available,
+     * so a task that calls invokeAll again never waits for a thread or a permit held by its caller. Once a task fails, the tasks that have not started are skipped.
+     * @throws ExecutionException wrapping the failure of the first task, in the order of the tasks, that failed.
+     */
+    public <T> List<T> invokeAll(final List<? extends Callable<T>> tasks, final int parallelism) throws InterruptedException, ExecutionException {
+        final int taskCount = tasks.size();
+        if (taskCount == 0) {
+            return new ArrayList<>();
+        }
+        final Object[] results = new Object[taskCount];
+        final Throwable[] failures = new Throwable[taskCount];
+        final AtomicInteger nextTask = new AtomicInteger();
+        final AtomicBoolean failed = new AtomicBoolean();
+        final Runnable worker = () -> {
+            int taskIndex;
+            while (!failed.get() && (taskIndex = nextTask.getAndIncrement()) < taskCount) {
+                try {
+                    results[taskIndex] = tasks.get(taskIndex).call();
+                } catch (final Throwable e) {
+                    failures[taskIndex] = e;
+                    failed.set(true);
+                }
+            }
+        };
+
+        final boolean acquiredPermit = semaphore != null && !isHoldingPermit();
+        if (acquiredPermit) {
+            semaphore.acquire();
+            holdingPermit.set(Boolean.TRUE);
+        }
+        try {
+            final int helperCount = Math.max(0, Math.min(parallelism, taskCount) - 1);
+            final CountDownLatch helpersFinished = new CountDownLatch(helperCount);
+            for (int i = 0; i < helperCount; i++) {
+                if (!startHelper(worker, helpersFinished)) {
+                    for (int j = i; j < helperCount; j++) {
+                        helpersFinished.countDown();
+                    }
+                    break;
+                }
+            }
+            worker.run();
+            try {
+                helpersFinished.await();
+            } catch (final InterruptedException e) {
+                // the helpers finish the tasks they have started, but take no new ones
+                failed.set(true);
+                throw e;
+            }
+        } finally {
+            if (acquiredPermit) {
+                holdingPermit.remove();
+                semaphore.release();
+            }
+        }
+
+        for (final Throwable failure : failures) {
+            if (failure != null) {
+                throw new ExecutionException(failure);
+            }
+        }
+        @SuppressWarnings("unchecked")
+        final List<T> resultList = (List<T>) Arrays.asList(results);
+        return resultList;
+    }
+
+    /**
+     * Stops the shared threads once they have finished their current tasks. They are started again if invokeAll is called afterwards.
+     */
+    @Override
+    public synchronized void close() {
+        if (sharedExecutorService != null) {
+            sharedExecutorService.shutdown();
+            sharedExecutorService = null;
+        }
+    }
+
+    private boolean isHoldingPermit() {
+        return Boolean.TRUE.equals(holdingPermit.get());
+    }
+
+    private boolean startHelper(final Runnable worker, final CountDownLatch helpersFinished) {
+        if (semaphore != null && !semaphore.tryAcquire()) {
+            return false;
+        }
+        try {
+            getSharedExecutorService().execute(() -> {
+                holdingPermit.set(Boolean.TRUE);
+                try {
+                    worker.run();
+                } finally {
+                    holdingPermit.remove();
+                    if (semaphore != null) {
+                        semaphore.release();
+                    }
+                    helpersFinished.countDown();
+                }
+            });
+            return true;
+        } catch (final RejectedExecutionException e) {
+            if (semaphore != null) {
+                semaphore.release();
+            }
+            return false;
+        }
+    }
+
+    private synchronized ExecutorService getSharedExecutorService() {
+        if (sharedExecutorService == null) {
+            sharedExecutorService = createSharedExecutorService();
+        }
+        return sharedExecutorService;
+    }
+
+    private ExecutorService createSharedExecutorService() {
+        if (isUsingVirtualThreads()) {
+            try {
+                return (ExecutorService) NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR.invoke(null);
+            } catch (final ReflectiveOperationException e) {
+                // fall back to platform threads
+            }
+        }
+        // no queue: a helper either gets a thread right away or the caller runs its share of the tasks
+        final int maxThreads = maxConcurrentTasks > 0 ? maxConcurrentTasks : Integer.MAX_VALUE;
+        final ThreadFactory defaultThreadFactory = Executors.defaultThreadFactory();
+        final AtomicInteger threadCount = new AtomicInteger();
+        return new ThreadPoolExecutor(0, maxThreads, SHARED_THREAD_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new SynchronousQueue<>(), runnable -> {
+            final Thread thread = defaultThreadFactory.newThread(runnable);
+            thread.setName("hub-task-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Transforms each item with the transformer registered for its class, the way ParallelResourceProcessor does, but on this executor's threads and with as many of them at once as it allows, since transformers mostly wait for the
+     * Hub. Items without a transformer are skipped. The items of a {@link SpillingResponseList} are taken {@value #PROCESS_BATCH_SIZE} at a time, so only one batch of them is read back into memory and waiting at any time; any other list
+     * is transformed in one go.
+     */
+    public <R, S> ParallelResourceProcessorResults<R> process(final List<S> items, final Map<Class<?>, ItemTransformer<R, S>> transformers) {
+        final List<R> results = new ArrayList<>();
+        final List<Exception> exceptions = new ArrayList<>();
+        final int parallelism = maxConcurrentTasks > 0 ? maxConcurrentTasks : isUsingVirtualThreads() ? Integer.MAX_VALUE : DEFAULT_MAX_CONCURRENT_TASKS;
+        final int batchSize = items instanceof SpillingResponseList ? PROCESS_BATCH_SIZE : Math.max(1, items.size());
+        final List<Callable<TransformedItem<R>>> batch = new ArrayList<>(Math.min(batchSize, items.size()));
+        final Iterator<S> itemIterator = items.iterator();
+        try {
+            while (itemIterator.hasNext()) {
+                final S item = itemIterator.next();
+                final ItemTransformer<R, S> transformer = transformers.get(item.getClass());
+                if (transformer != null) {
+                    batch.add(() -> transform(transformer, item));
+                }
+                if (batch.size() == batchSize || (!itemIterator.hasNext() && !batch.isEmpty())) {
+                    for (final TransformedItem<R> transformedItem : invokeAll(batch, parallelism)) {
+                        if (transformedItem.exception != null) {
+                            exceptions.add(transformedItem.exception);
+                        } else {
+                            results.addAll(transformedItem.results);
+                        }
+                    }
+                    batch.clear();
+                }
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            exceptions.add(e);
+        } catch (final ExecutionException e) {
+            // transform records every Exception, so only an Error can get here
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            exceptions.add(e);
+        }
+        return new ParallelResourceProcessorResults<>(results, exceptions);
+    }
+
+    private <R, S> TransformedItem<R> transform(final ItemTransformer<R, S> transformer, final S item) {
+        try {
+            return new TransformedItem<>(transformer.transform(item), null);
+        } catch (final Exception e) {
+            return new TransformedItem<>(null, e);
+        }
+    }
+
+    private static class TransformedItem<R> {
+        private final List<R> results;
+        private final Exception exception;
+
+        public TransformedItem(final List<R> results, final Exception exception) {
+            this.results = results;
+            this.exception = exception;
+        }
+    }
+
+}
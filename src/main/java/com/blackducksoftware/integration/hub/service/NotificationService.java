@@ -26,8 +26,10 @@ package com.blackducksoftware.integration.hub.service;
 import java.io.IOException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -36,6 +38,7 @@ import java.util.SortedSet;
 import java.util.TimeZone;
 import java.util.TreeSet;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import com.blackducksoftware.integration.exception.IntegrationException;
 import com.blackducksoftware.integration.hub.RestConstants;
@@ -52,6 +55,8 @@ import com.blackducksoftware.integration.hub.api.view.PolicyOverrideNotification
 import com.blackducksoftware.integration.hub.api.view.RuleViolationClearedNotificationView;
 import com.blackducksoftware.integration.hub.api.view.RuleViolationNotificationView;
 import com.blackducksoftware.integration.hub.api.view.VulnerabilityNotificationView;
+import com.blackducksoftware.integration.hub.exception.HubIntegrationException;
+import com.blackducksoftware.integration.hub.exception.UncheckedHubIntegrationException;
 import com.blackducksoftware.integration.hub.notification.NotificationContentItem;
 import com.blackducksoftware.integration.hub.notification.NotificationResults;
 import com.blackducksoftware.integration.hub.notification.NotificationViewResults;
@@ -68,7 +73,9 @@ import com.blackducksoftware.integration.hub.notification.content.RuleViolationC
 import com.blackducksoftware.integration.hub.notification.content.RuleViolationNotificationContent;
 import com.blackducksoftware.integration.hub.notification.content.VulnerabilityNotificationContent;
 import com.blackducksoftware.integration.hub.request.Request;
+import com.blackducksoftware.integration.hub.service.model.SpillingResponseList;
 import com.blackducksoftware.integration.log.IntLogger;
+import com.blackducksoftware.integration.parallel.processor.ItemTransformer;
 import com.blackducksoftware.integration.parallel.processor.ParallelResourceProcessor;
 import com.blackducksoftware.integration.parallel.processor.ParallelResourceProcessorResults;
 import com.google.gson.JsonObject;
@@ -77,14 +84,32 @@ public class NotificationService extends DataService {
     private final Map<String, Class<? extends NotificationView>> typeMap = new HashMap<>();
 
     private final PolicyNotificationFilter policyNotificationFilter;
+    private final HubTaskExecutor hubTaskExecutor;
+    private final int maxNotificationsInMemory;
 
     public NotificationService(final HubService hubService) {
         this(hubService, null);
     }
 
     public NotificationService(final HubService hubService, final PolicyNotificationFilter policyNotificationFilter) {
+        this(hubService, policyNotificationFilter, null);
+    }
+
+    /**
+     * @param hubTaskExecutor If not null, notifications are transformed on its threads rather than on a pool sized to the number of processors.
+     */
+    public NotificationService(final HubService hubService, final PolicyNotificationFilter policyNotificationFilter, final HubTaskExecutor hubTaskExecutor) {
+        this(hubService, policyNotificationFilter, hubTaskExecutor, 0);
+    }
+
+    /**
+     * @param maxNotificationsInMemory If greater than 0, getAllNotifications keeps at most this many notifications in memory and spills the rest to a temporary file, so a long date range does not exhaust the heap.
+     */
+    public NotificationService(final HubService hubService, final PolicyNotificationFilter policyNotificationFilter, final HubTaskExecutor hubTaskExecutor, final int maxNotificationsInMemory) {
         super(hubService);
         this.policyNotificationFilter = policyNotificationFilter;
+        this.hubTaskExecutor = hubTaskExecutor;
+        this.maxNotificationsInMemory = maxNotificationsInMemory;
         typeMap.put("VULNERABILITY", VulnerabilityNotificationView.class);
         typeMap.put("RULE_VIOLATION", RuleViolationNotificationView.class);
         typeMap.put("POLICY_OVERRIDE", PolicyOverrideNotificationView.class);
@@ -93,8 +118,12 @@ public class NotificationService extends DataService {
 
     public NotificationResults getAllNotificationResults(final Date startDate, final Date endDate) throws IntegrationException {
         final List<NotificationView> itemList = getAllNotifications(startDate, endDate);
-        final NotificationResults results = processNotificationsInParallel(itemList);
-        return results;
+        try {
+            final NotificationResults results = processNotificationsInParallel(itemList);
+            return results;
+        } finally {
+            closeSpilledNotifications(itemList);
+        }
     }
 
     public NotificationResults getAllUserNotificationResults(final UserView user, final Date startDate, final Date endDate) throws IntegrationException {
@@ -105,13 +134,46 @@ public class NotificationService extends DataService {
         return results;
     }
 
+    /**
+     * When maxNotificationsInMemory is greater than 0, the list returned is a {@link SpillingResponseList}, which is Closeable: close it once done with the notifications to delete its temporary file.
+     */
     public List<NotificationView> getAllNotifications(final Date startDate, final Date endDate) throws IntegrationException {
         final Request.Builder requestBuilder = createNotificationRequestBuilder(startDate, endDate);
         final HubPathMultipleResponses<NotificationView> notificationLinkResponse = new HubPathMultipleResponses<>(ApiDiscovery.NOTIFICATIONS_LINK, NotificationView.class);
+        if (maxNotificationsInMemory > 0) {
+            return getAllNotificationsSpilling(notificationLinkResponse, requestBuilder);
+        }
         final List<NotificationView> allNotificationItems = hubService.getResponses(notificationLinkResponse, requestBuilder, true, typeMap);
         return allNotificationItems;
     }
 
+    /**
+     * The notifications are read page by page into a list that spills to disk, so only the current page and the notifications kept in memory are on the heap. The caller should close the list when done with it.
+     */
+    private SpillingResponseList<NotificationView> getAllNotificationsSpilling(final HubPathMultipleResponses<NotificationView> notificationLinkResponse, final Request.Builder requestBuilder) throws IntegrationException {
+        final SpillingResponseList<NotificationView> allNotificationItems = new SpillingResponseList<>(hubService.getGson(), maxNotificationsInMemory, null);
+        try (Stream<NotificationView> notificationStream = hubService.streamResponses(notificationLinkResponse, requestBuilder, typeMap)) {
+            notificationStream.forEach(allNotificationItems::append);
+            return allNotificationItems;
+        } catch (final UncheckedHubIntegrationException e) {
+            closeSpilledNotifications(allNotificationItems);
+            throw e.getCause();
+        } catch (final RuntimeException e) {
+            closeSpilledNotifications(allNotificationItems);
+            throw e;
+        }
+    }
+
+    private void closeSpilledNotifications(final List<NotificationView> notificationViews) {
+        if (notificationViews instanceof SpillingResponseList) {
+            try {
+                ((SpillingResponseList<NotificationView>) notificationViews).close();
+            } catch (final IOException e) {
+                logger.debug("Error deleting the spilled notifications", e);
+            }
+        }
+    }
+
     public List<NotificationUserView> getAllUserNotifications(final UserView user, final Date startDate, final Date endDate) throws IntegrationException {
         final Request.Builder requestBuilder = createNotificationRequestBuilder(startDate, endDate);
         final String userNotificationsUri = hubService.getFirstLink(user, UserView.NOTIFICATIONS_LINK);
@@ -121,40 +183,47 @@ public class NotificationService extends DataService {
         return allUserNotificationItems;
     }
 
+    /**
+     * The results hold the list of getAllNotifications; close them once done with the notifications so a list spilled to disk deletes its temporary file.
+     */
     public NotificationViewResults getAllNotificationViewResults(final Date startDate, final Date endDate) throws IntegrationException {
         final List<NotificationView> allNotificationItems = getAllNotifications(startDate, endDate);
         if (allNotificationItems == null || allNotificationItems.isEmpty()) {
-            return new NotificationViewResults(allNotificationItems, null, null);
+            closeSpilledNotifications(allNotificationItems);
+            return new NotificationViewResults(Collections.emptyList(), null, null);
         }
 
-        final SimpleDateFormat sdf = new SimpleDateFormat(RestConstants.JSON_DATE_FORMAT);
-        sdf.setTimeZone(TimeZone.getTimeZone("UTC"));
+        try {
+            final SimpleDateFormat sdf = new SimpleDateFormat(RestConstants.JSON_DATE_FORMAT);
+            sdf.setTimeZone(TimeZone.getTimeZone("UTC"));
 
-        // we know that the first notification in the list is the most current
-        final Date latestCreatedAtDate = allNotificationItems.get(0).createdAt;
-        final String latestCreatedAtString = sdf.format(latestCreatedAtDate);
+            // we know that the first notification in the list is the most current
+            final Date latestCreatedAtDate = allNotificationItems.get(0).createdAt;
+            final String latestCreatedAtString = sdf.format(latestCreatedAtDate);
 
-        return new NotificationViewResults(allNotificationItems, latestCreatedAtDate, latestCreatedAtString);
+            return new NotificationViewResults(allNotificationItems, latestCreatedAtDate, latestCreatedAtString);
+        } catch (final RuntimeException e) {
+            closeSpilledNotifications(allNotificationItems);
+            throw e;
+        }
     }
 
-    public List<CommonNotificationState> getCommonNotifications(final List<NotificationView> notificationViews) {
-        final List<CommonNotificationState> commonStates = notificationViews
-                .stream()
-                .map(view -> {
-                    final Optional<NotificationContent> notificationContent = parseNotificationContent(view.json, view.type);
-                    return new CommonNotificationState(view, notificationContent.orElse(null));
-                }).collect(Collectors.toList());
+    public List<CommonNotificationState> getCommonNotifications(final List<NotificationView> notificationViews) throws IntegrationException {
+        final List<CommonNotificationState> commonStates = new ArrayList<>(notificationViews.size());
+        for (final NotificationView view : notificationViews) {
+            final Optional<NotificationContent> notificationContent = parseNotificationContent(hubService.getJson(view), view.type);
+            commonStates.add(new CommonNotificationState(view, notificationContent.orElse(null)));
+        }
 
         return commonStates;
     }
 
-    public List<CommonNotificationState> getCommonUserNotifications(final List<NotificationUserView> notificationUserViews) {
-        final List<CommonNotificationState> commonStates = notificationUserViews
-                .stream()
-                .map(view -> {
-                    final Optional<NotificationContent> notificationContent = parseNotificationContent(view.json, view.type);
-                    return new CommonNotificationState(view, notificationContent.orElse(null));
-                }).collect(Collectors.toList());
+    public List<CommonNotificationState> getCommonUserNotifications(final List<NotificationUserView> notificationUserViews) throws IntegrationException {
+        final List<CommonNotificationState> commonStates = new ArrayList<>(notificationUserViews.size());
+        for (final NotificationUserView view : notificationUserViews) {
+            final Optional<NotificationContent> notificationContent = parseNotificationContent(hubService.getJson(view), view.type);
+            commonStates.add(new CommonNotificationState(view, notificationContent.orElse(null)));
+        }
 
         return commonStates;
     }
@@ -171,14 +240,37 @@ public class NotificationService extends DataService {
         return uriResponses;
     }
 
+    /**
+     * The notifications of a spilled list are transformed {@value HubTaskExecutor#PROCESS_BATCH_SIZE} at a time, so only one batch of them is read back into memory at once. Notifications held in memory are transformed in one go.
+     */
     private NotificationResults processNotificationsInParallel(final List<NotificationView> itemList) {
         final SortedSet<NotificationContentItem> contentList = new TreeSet<>();
         final List<Exception> exceptionList = new LinkedList<>();
-        NotificationResults results;
-        try (ParallelResourceProcessor<NotificationContentItem, NotificationView> parallelProcessor = createProcessor(logger)) {
-            final ParallelResourceProcessorResults<NotificationContentItem> processorResults = parallelProcessor.process(itemList);
+        if (hubTaskExecutor != null) {
+            final ParallelResourceProcessorResults<NotificationContentItem> processorResults = hubTaskExecutor.process(itemList, createTransformers());
             contentList.addAll(processorResults.getResults());
             exceptionList.addAll(processorResults.getExceptions());
+            return new NotificationResults(contentList, exceptionList);
+        }
+        NotificationResults results;
+        try (ParallelResourceProcessor<NotificationContentItem, NotificationView> parallelProcessor = createProcessor(logger)) {
+            if (itemList instanceof SpillingResponseList) {
+                final List<NotificationView> batch = new ArrayList<>(HubTaskExecutor.PROCESS_BATCH_SIZE);
+                final Iterator<NotificationView> itemIterator = itemList.iterator();
+                while (itemIterator.hasNext()) {
+                    batch.add(itemIterator.next());
+                    if (batch.size() == HubTaskExecutor.PROCESS_BATCH_SIZE || !itemIterator.hasNext()) {
+                        final ParallelResourceProcessorResults<NotificationContentItem> processorResults = parallelProcessor.process(batch);
+                        contentList.addAll(processorResults.getResults());
+                        exceptionList.addAll(processorResults.getExceptions());
+                        batch.clear();
+                    }
+                }
+            } else {
+                final ParallelResourceProcessorResults<NotificationContentItem> processorResults = parallelProcessor.process(itemList);
+                contentList.addAll(processorResults.getResults());
+                exceptionList.addAll(processorResults.getExceptions());
+            }
         } catch (final IOException ex) {
             logger.debug("Error closing processor", ex);
             exceptionList.add(ex);
@@ -190,15 +282,24 @@ public class NotificationService extends DataService {
 
     private ParallelResourceProcessor<NotificationContentItem, NotificationView> createProcessor(final IntLogger logger) {
         final ParallelResourceProcessor<NotificationContentItem, NotificationView> parallelProcessor = new ParallelResourceProcessor<>(logger);
-        parallelProcessor.addTransformer(RuleViolationNotificationView.class, new PolicyViolationTransformer(hubService, policyNotificationFilter));
-        parallelProcessor.addTransformer(PolicyOverrideNotificationView.class, new PolicyViolationOverrideTransformer(hubService, policyNotificationFilter));
-        parallelProcessor.addTransformer(VulnerabilityNotificationView.class, new VulnerabilityTransformer(hubService));
-        parallelProcessor.addTransformer(RuleViolationClearedNotificationView.class, new PolicyViolationClearedTransformer(hubService, policyNotificationFilter));
+        createTransformers().forEach(parallelProcessor::addTransformer);
         return parallelProcessor;
     }
 
-    private Optional<NotificationContent> parseNotificationContent(final String notificationJson, final NotificationType type) {
+    private Map<Class<?>, ItemTransformer<NotificationContentItem, NotificationView>> createTransformers() {
+        final Map<Class<?>, ItemTransformer<NotificationContentItem, NotificationView>> transformers = new HashMap<>();
+        transformers.put(RuleViolationNotificationView.class, new PolicyViolationTransformer(hubService, policyNotificationFilter));
+        transformers.put(PolicyOverrideNotificationView.class, new PolicyViolationOverrideTransformer(hubService, policyNotificationFilter));
+        transformers.put(VulnerabilityNotificationView.class, new VulnerabilityTransformer(hubService));
+        transformers.put(RuleViolationClearedNotificationView.class, new PolicyViolationClearedTransformer(hubService, policyNotificationFilter));
+        return transformers;
+    }
+
+    private Optional<NotificationContent> parseNotificationContent(final String notificationJson, final NotificationType type) throws IntegrationException {
         final JsonObject jsonObject = hubService.getJsonParser().parse(notificationJson).getAsJsonObject();
+        if (!jsonObject.has("content")) {
+            throw new HubIntegrationException(String.format("The %s notification has no content: %s", type, notificationJson));
+        }
         if (type == NotificationType.LICENSE_LIMIT) {
             return Optional.of(hubService.getGson().fromJson(jsonObject.get("content"), LicenseLimitNotificationContent.class));
         } else if (type == NotificationType.POLICY_OVERRIDE) {
@@ -224,7 +325,7 @@ public class NotificationService extends DataService {
 
     // this is a terrible hack to keep NotificationResults around a bit longer so that hub-jira can move forward
     private NotificationView convertUserNotificationView(final NotificationUserView notificationUserView) {
-        final NotificationView notificationView = hubService.getGson().fromJson(notificationUserView.json, NotificationView.class);
+        final NotificationView notificationView = hubService.getGson().fromJson(hubService.getJson(notificationUserView), NotificationView.class);
         return notificationView;
     }
 
@@ -45,6 +45,7 @@ public class PhoneHomeService extends DataService {
     private final PhoneHomeClient phoneHomeClient;
     private final ExecutorService executorService;
     private final CIEnvironmentVariables ciEnvironmentVariables;
+    private final HubTaskExecutor hubTaskExecutor;
 
     public PhoneHomeService(final HubService hubService, final PhoneHomeClient phoneHomeClient, final HubRegistrationService hubRegistrationService, final CIEnvironmentVariables ciEnvironmentVariables) {
         super(hubService);
@@ -53,6 +54,20 @@ public class PhoneHomeService extends DataService {
         this.ciEnvironmentVariables = ciEnvironmentVariables;
         final ThreadFactory threadFactory = Executors.defaultThreadFactory();
         executorService = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), threadFactory);
+        hubTaskExecutor = null;
+    }
+
+    /**
+     * @param hubTaskExecutor Creates the executor the phone home requests run on, and limits how many run at once.
+     */
+    public PhoneHomeService(final HubService hubService, final PhoneHomeClient phoneHomeClient, final HubRegistrationService hubRegistrationService, final CIEnvironmentVariables ciEnvironmentVariables,
+            final HubTaskExecutor hubTaskExecutor) {
+        super(hubService);
+        this.hubRegistrationService = hubRegistrationService;
+        this.phoneHomeClient = phoneHomeClient;
+        this.ciEnvironmentVariables = ciEnvironmentVariables;
+        this.hubTaskExecutor = hubTaskExecutor;
+        executorService = hubTaskExecutor.createExecutorService(Runtime.getRuntime().availableProcessors());
     }
 
     public PhoneHomeService(final HubService hubService, IntLogger logger, final PhoneHomeClient phoneHomeClient, final HubRegistrationService hubRegistrationService, final CIEnvironmentVariables ciEnvironmentVariables) {
@@ -62,6 +77,7 @@ public class PhoneHomeService extends DataService {
         this.ciEnvironmentVariables = ciEnvironmentVariables;
         final ThreadFactory threadFactory = Executors.defaultThreadFactory();
         executorService = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), threadFactory);
+        hubTaskExecutor = null;
     }
 
     /**
@@ -148,7 +164,7 @@ public class PhoneHomeService extends DataService {
 
     public PhoneHomeResponse startPhoneHome(final PhoneHomeRequestBody phoneHomeRequestBody) {
         final PhoneHomeCallable task = new PhoneHomeCallable(logger, phoneHomeClient, phoneHomeRequestBody, ciEnvironmentVariables);
-        final Future<Boolean> resultTask = executorService.submit(task);
+        final Future<Boolean> resultTask = executorService.submit(hubTaskExecutor == null ? task : hubTaskExecutor.limit(task));
         return new PhoneHomeResponse(resultTask);
     }
 
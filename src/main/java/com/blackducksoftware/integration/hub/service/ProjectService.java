@@ -26,6 +26,8 @@ package com.blackducksoftware.integration.hub.service;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Predicate;
 
 import org.apache.commons.lang3.StringUtils;
 
@@ -46,7 +48,6 @@ import com.blackducksoftware.integration.hub.api.generated.view.VersionBomPolicy
 import com.blackducksoftware.integration.hub.api.generated.view.VulnerableComponentView;
 import com.blackducksoftware.integration.hub.bdio.model.externalid.ExternalId;
 import com.blackducksoftware.integration.hub.exception.DoesNotExistException;
-import com.blackducksoftware.integration.hub.exception.HubIntegrationException;
 import com.blackducksoftware.integration.hub.request.Request;
 import com.blackducksoftware.integration.hub.request.Response;
 import com.blackducksoftware.integration.hub.rest.HttpMethod;
@@ -64,34 +65,22 @@ public class ProjectService extends DataService {
     }
 
     public List<ProjectView> getAllProjectMatches(final String projectName) throws IntegrationException {
-        String q = null;
-        if (StringUtils.isNotBlank(projectName)) {
-            q = "name:" + projectName;
-        }
-        final Request.Builder requestBuilder = RequestFactory.createCommonGetRequestBuilder().addQueryParameter("q", q);
+        final Request.Builder requestBuilder = createProjectNameRequestBuilder(projectName);
         final List<ProjectView> allProjectItems = hubService.getAllResponses(ApiDiscovery.PROJECTS_LINK_RESPONSE, requestBuilder);
 
         return allProjectItems;
     }
 
     public List<ProjectView> getProjectMatches(final String projectName, final int limit) throws IntegrationException {
-        String q = null;
-        if (StringUtils.isNotBlank(projectName)) {
-            q = "name:" + projectName;
-        }
-        final Request.Builder requestBuilder = RequestFactory.createCommonGetRequestBuilder().addQueryParameter("q", q).addQueryParameter("limit", String.valueOf(limit));
+        final Request.Builder requestBuilder = createProjectNameRequestBuilder(projectName).addQueryParameter("limit", String.valueOf(limit));
         final List<ProjectView> projectItems = hubService.getResponses(ApiDiscovery.PROJECTS_LINK_RESPONSE, requestBuilder, false);
         return projectItems;
     }
 
     public ProjectView getProjectByName(final String projectName) throws IntegrationException {
-        final List<ProjectView> allProjectItems = getAllProjectMatches(projectName);
-        for (final ProjectView project : allProjectItems) {
-            if (projectName.equalsIgnoreCase(project.name)) {
-                return project;
-            }
-        }
-        throw new DoesNotExistException("This Project does not exist. Project : " + projectName);
+        final Request.Builder requestBuilder = createProjectNameRequestBuilder(projectName);
+        final Optional<ProjectView> project = hubService.findFirst(ApiDiscovery.PROJECTS_LINK_RESPONSE, requestBuilder, projectView -> projectName.equalsIgnoreCase(projectView.name));
+        return project.orElseThrow(() -> new DoesNotExistException("This Project does not exist. Project : " + projectName));
     }
 
     public String createHubProject(final ProjectRequest project) throws IntegrationException {
@@ -114,12 +103,8 @@ public class ProjectService extends DataService {
             q = String.format("versionName:%s", projectVersionName);
         }
         final Request.Builder requestBuilder = RequestFactory.createCommonGetRequestBuilder().addQueryParameter("q", q);
-        final List<ProjectVersionView> allProjectVersionMatchingItems = hubService.getAllResponses(project, ProjectView.VERSIONS_LINK_RESPONSE, requestBuilder);
-        final ProjectVersionView projectVersion = findMatchingVersion(allProjectVersionMatchingItems, projectVersionName);
-        if (null != projectVersion) {
-            return projectVersion;
-        }
-        throw new DoesNotExistException(String.format("Could not find the version: %s for project: %s", projectVersionName, project.name));
+        final Optional<ProjectVersionView> projectVersion = hubService.findFirst(project, ProjectView.VERSIONS_LINK_RESPONSE, requestBuilder, createVersionNameMatcher(projectVersionName));
+        return projectVersion.orElseThrow(() -> new DoesNotExistException(String.format("Could not find the version: %s for project: %s", projectVersionName, project.name)));
     }
 
     public String createHubVersion(final ProjectView project, final ProjectVersionRequest version) throws IntegrationException {
@@ -192,14 +177,11 @@ public class ProjectService extends DataService {
         logger.debug("Attempting to get the assigned users for Project: " + project.name);
         final List<AssignedUserView> assignedUsers = getAssignedUsersToProject(project);
 
-        final List<UserView> resolvedUserViews = new ArrayList<>();
+        final List<String> userUris = new ArrayList<>();
         for (final AssignedUserView assigned : assignedUsers) {
-            final UserView userView = hubService.getResponse(assigned.user, UserView.class);
-            if (userView != null) {
-                resolvedUserViews.add(userView);
-            }
+            userUris.add(assigned.user);
         }
-        return resolvedUserViews;
+        return hubService.getResponses(userUris, UserView.class);
     }
 
     public List<AssignedUserGroupView> getAssignedGroupsToProject(final String projectName) throws IntegrationException {
@@ -221,14 +203,11 @@ public class ProjectService extends DataService {
         logger.debug("Attempting to get the assigned users for Project: " + project.name);
         final List<AssignedUserGroupView> assignedGroups = getAssignedGroupsToProject(project);
 
-        final List<UserGroupView> resolvedGroupViews = new ArrayList<>();
+        final List<String> groupUris = new ArrayList<>();
         for (final AssignedUserGroupView assigned : assignedGroups) {
-            final UserGroupView groupView = hubService.getResponse(assigned.group, UserGroupView.class);
-            if (groupView != null) {
-                resolvedGroupViews.add(groupView);
-            }
+            groupUris.add(assigned.group);
         }
-        return resolvedGroupViews;
+        return hubService.getResponses(groupUris, UserGroupView.class);
     }
 
     public void addComponentToProjectVersion(final ExternalId componentExternalId, final String projectName, final String projectVersionName) throws IntegrationException {
@@ -306,8 +285,7 @@ public class ProjectService extends DataService {
     public VersionBomPolicyStatusView getPolicyStatusForProjectAndVersion(final String projectName, final String projectVersionName) throws IntegrationException {
         final ProjectView projectItem = getProjectByName(projectName);
 
-        final List<ProjectVersionView> projectVersions = hubService.getAllResponses(projectItem, ProjectView.VERSIONS_LINK_RESPONSE);
-        final ProjectVersionView projectVersionView = findMatchingVersion(projectVersions, projectVersionName);
+        final ProjectVersionView projectVersionView = hubService.findFirst(projectItem, ProjectView.VERSIONS_LINK_RESPONSE, createVersionNameMatcher(projectVersionName)).orElse(null);
 
         return getPolicyStatusForVersion(projectVersionView);
     }
@@ -316,13 +294,16 @@ public class ProjectService extends DataService {
         return hubService.getResponse(version, ProjectVersionView.POLICY_STATUS_LINK_RESPONSE);
     }
 
-    private ProjectVersionView findMatchingVersion(final List<ProjectVersionView> projectVersions, final String projectVersionName) throws HubIntegrationException {
-        for (final ProjectVersionView version : projectVersions) {
-            if (projectVersionName.equals(version.versionName)) {
-                return version;
-            }
+    private Request.Builder createProjectNameRequestBuilder(final String projectName) {
+        String q = null;
+        if (StringUtils.isNotBlank(projectName)) {
+            q = "name:" + projectName;
         }
-        return null;
+        return RequestFactory.createCommonGetRequestBuilder().addQueryParameter("q", q);
+    }
+
+    private Predicate<ProjectVersionView> createVersionNameMatcher(final String projectVersionName) {
+        return version -> projectVersionName.equals(version.versionName);
     }
 
 }
@@ -194,10 +194,13 @@ public class ScanStatusService extends DataService {
     }
 
     private List<ScanSummaryView> getPendingScans(final List<ScanSummaryView> scanSummaries) throws IntegrationException {
-        final List<ScanSummaryView> pendingScans = new ArrayList<>();
+        final List<String> scanSummaryLinks = new ArrayList<>();
         for (final ScanSummaryView scanSummaryItem : scanSummaries) {
-            final String scanSummaryLink = this.hubService.getHref(scanSummaryItem);
-            final ScanSummaryView currentScanSummaryItem = this.hubService.getResponse(scanSummaryLink, ScanSummaryView.class);
+            scanSummaryLinks.add(this.hubService.getHref(scanSummaryItem));
+        }
+
+        final List<ScanSummaryView> pendingScans = new ArrayList<>();
+        for (final ScanSummaryView currentScanSummaryItem : this.hubService.getResponses(scanSummaryLinks, ScanSummaryView.class)) {
             if (isPending(currentScanSummaryItem.status)) {
                 pendingScans.add(currentScanSummaryItem);
             } else if (isError(currentScanSummaryItem.status)) {
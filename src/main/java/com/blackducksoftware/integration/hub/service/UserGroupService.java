@@ -25,6 +25,7 @@ package com.blackducksoftware.integration.hub.service;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 
 import com.blackducksoftware.integration.exception.IntegrationException;
 import com.blackducksoftware.integration.hub.api.generated.discovery.ApiDiscovery;
@@ -46,13 +47,8 @@ public class UserGroupService {
     }
 
     public UserView getUserByUserName(final String userName) throws IntegrationException {
-        final List<UserView> allUsers = hubService.getAllResponses(ApiDiscovery.USERS_LINK_RESPONSE);
-        for (final UserView user : allUsers) {
-            if (user.userName.equalsIgnoreCase(userName)) {
-                return user;
-            }
-        }
-        throw new DoesNotExistException("This User does not exist. UserName : " + userName);
+        final Optional<UserView> user = hubService.findFirst(ApiDiscovery.USERS_LINK_RESPONSE, userView -> userView.userName.equalsIgnoreCase(userName));
+        return user.orElseThrow(() -> new DoesNotExistException("This User does not exist. UserName : " + userName));
     }
 
     public List<ProjectView> getProjectsForUser(final String userName) throws IntegrationException {
@@ -64,15 +60,11 @@ public class UserGroupService {
         logger.debug("Attempting to get the assigned projects for User: " + userView.userName);
         final List<AssignedProjectView> assignedProjectViews = hubService.getAllResponses(userView, UserView.PROJECTS_LINK_RESPONSE);
 
-        final List<ProjectView> resolvedProjectViews = new ArrayList<>();
+        final List<String> projectUris = new ArrayList<>();
         for (final AssignedProjectView assigned : assignedProjectViews) {
-            final ProjectView project = hubService.getResponse(assigned.project, ProjectView.class);
-            if (project != null) {
-                resolvedProjectViews.add(project);
-            }
+            projectUris.add(assigned.project);
         }
-
-        return resolvedProjectViews;
+        return hubService.getResponses(projectUris, ProjectView.class);
     }
 
     public List<RoleAssignmentView> getRolesForUser(final String userName) throws IntegrationException {
@@ -85,13 +77,8 @@ public class UserGroupService {
     }
 
     public UserGroupView getGroupByName(final String groupName) throws IntegrationException {
-        final List<UserGroupView> allGroups = hubService.getAllResponses(ApiDiscovery.USERGROUPS_LINK_RESPONSE);
-        for (final UserGroupView group : allGroups) {
-            if (group.name.equalsIgnoreCase(groupName)) {
-                return group;
-            }
-        }
-        throw new DoesNotExistException("This Group does not exist. Group name : " + groupName);
+        final Optional<UserGroupView> group = hubService.findFirst(ApiDiscovery.USERGROUPS_LINK_RESPONSE, groupView -> groupView.name.equalsIgnoreCase(groupName));
+        return group.orElseThrow(() -> new DoesNotExistException("This Group does not exist. Group name : " + groupName));
     }
 
 }
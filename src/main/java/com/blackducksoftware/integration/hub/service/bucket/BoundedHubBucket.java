@@ -0,0 +1,169 @@
+/**
+ * hub-common
+ *
+ * Copyright (C) 2018 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.service.bucket;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToLongFunction;
+
+import com.blackducksoftware.integration.hub.api.core.HubResponse;
+
+/**
+ * A bucket that holds at most a maximum number of items, or items of at most a maximum estimated size, evicting the least recently used items to stay within them. An evicted uri is simply retrieved again the next time it is asked for.
+ */
+public class BoundedHubBucket extends HubBucket {
+    /**
+     * A rough size of an item apart from its json, and of an item whose json was not retained.
+     */
+    public static final long ITEM_OVERHEAD_BYTES = 512;
+
+    private final int maxItems;
+    private final long maxEstimatedBytes;
+    private final ToLongFunction<HubBucketItem<HubResponse>> weigher;
+    private final List<EvictionListener> evictionListeners = new CopyOnWriteArrayList<>();
+    // access ordered, so the eldest entry is the least recently used
+    private final LinkedHashMap<String, HubBucketItem<HubResponse>> usageOrder = new LinkedHashMap<>(16, 0.75f, true);
+    private final AtomicLong evictionCount = new AtomicLong();
+    private long estimatedBytes;
+
+    /**
+     * @param maxItems The most items to hold, or 0 for no limit on the number of items.
+     * @param maxEstimatedBytes The most estimated bytes to hold, or 0 for no limit on the size.
+     */
+    public BoundedHubBucket(final int maxItems, final long maxEstimatedBytes) {
+        this(maxItems, maxEstimatedBytes, BoundedHubBucket::estimateBytes);
+    }
+
+    /**
+     * @param weigher Estimates the size of an item in bytes.
+     */
+    public BoundedHubBucket(final int maxItems, final long maxEstimatedBytes, final ToLongFunction<HubBucketItem<HubResponse>> weigher) {
+        this.maxItems = maxItems;
+        this.maxEstimatedBytes = maxEstimatedBytes;
+        this.weigher = weigher;
+    }
+
+    /**
+     * @return the size of the json of the response, two bytes per character, plus an overhead for the item itself.
+     */
+    public static long estimateBytes(final HubBucketItem<HubResponse> bucketItem) {
+        final String json = bucketItem.getJson();
+        if (json == null) {
+            return ITEM_OVERHEAD_BYTES;
+        }
+        return ITEM_OVERHEAD_BYTES + 2L * json.length();
+    }
+
+    public void addEvictionListener(final EvictionListener evictionListener) {
+        evictionListeners.add(evictionListener);
+    }
+
+    public void removeEvictionListener(final EvictionListener evictionListener) {
+        evictionListeners.remove(evictionListener);
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    public long getEstimatedBytes() {
+        synchronized (usageOrder) {
+            return estimatedBytes;
+        }
+    }
+
+    public int getMaxItems() {
+        return maxItems;
+    }
+
+    public long getMaxEstimatedBytes() {
+        return maxEstimatedBytes;
+    }
+
+    @Override
+    protected void itemStored(final HubBucketItem<HubResponse> bucketItem, final HubBucketItem<HubResponse> previousItem) {
+        final List<HubBucketItem<HubResponse>> evictedItems = new ArrayList<>();
+        synchronized (usageOrder) {
+            if (peek(bucketItem.getUri()) != bucketItem) {
+                // replaced or removed by another thread already, which accounts for the item now stored
+                return;
+            }
+            final HubBucketItem<HubResponse> replacedItem = usageOrder.put(bucketItem.getUri(), bucketItem);
+            if (replacedItem != null) {
+                estimatedBytes -= weigher.applyAsLong(replacedItem);
+            }
+            estimatedBytes += weigher.applyAsLong(bucketItem);
+
+            // the item just stored is the most recently used, so it is only evicted if it exceeds the limits on its own
+            final Iterator<Map.Entry<String, HubBucketItem<HubResponse>>> leastRecentlyUsed = usageOrder.entrySet().iterator();
+            while (isOverLimit() && leastRecentlyUsed.hasNext()) {
+                final HubBucketItem<HubResponse> evictedItem = leastRecentlyUsed.next().getValue();
+                leastRecentlyUsed.remove();
+                estimatedBytes -= weigher.applyAsLong(evictedItem);
+                evictedItems.add(evictedItem);
+            }
+        }
+
+        // removed outside the lock, and only if another thread has not replaced the item in the meantime
+        for (final HubBucketItem<HubResponse> evictedItem : evictedItems) {
+            if (remove(evictedItem)) {
+                evictionCount.incrementAndGet();
+                for (final EvictionListener evictionListener : evictionListeners) {
+                    evictionListener.onEviction(evictedItem);
+                }
+            }
+        }
+    }
+
+    @Override
+    protected void itemAccessed(final HubBucketItem<HubResponse> bucketItem) {
+        synchronized (usageOrder) {
+            usageOrder.get(bucketItem.getUri());
+        }
+    }
+
+    @Override
+    protected void itemRemoved(final HubBucketItem<HubResponse> bucketItem) {
+        synchronized (usageOrder) {
+            if (usageOrder.remove(bucketItem.getUri(), bucketItem)) {
+                estimatedBytes -= weigher.applyAsLong(bucketItem);
+            }
+        }
+    }
+
+    private boolean isOverLimit() {
+        return (maxItems > 0 && usageOrder.size() > maxItems) || (maxEstimatedBytes > 0 && estimatedBytes > maxEstimatedBytes);
+    }
+
+    @FunctionalInterface
+    public interface EvictionListener {
+        void onEviction(HubBucketItem<HubResponse> evictedItem);
+    }
+
+}
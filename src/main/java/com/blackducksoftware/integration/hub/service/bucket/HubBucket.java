@@ -23,16 +23,25 @@
  */
 package com.blackducksoftware.integration.hub.service.bucket;
 
-import java.util.HashMap;
-import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import com.blackducksoftware.integration.hub.api.UriSingleResponse;
 import com.blackducksoftware.integration.hub.api.core.HubResponse;
 
+/**
+ * The responses, or the errors, retrieved for a set of uris. A bucket can be shared by several threads; use {@link #computeIfAbsent(String, HubBucketItemLoader)} to retrieve a uri only once no matter how many of them ask for it.
+ */
 public class HubBucket {
-    private final Map<String, HubBucketItem<HubResponse>> bucket = new HashMap<>();
+    private final ConcurrentMap<String, HubBucketItem<HubResponse>> bucket = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, CompletableFuture<HubBucketItem<HubResponse>>> inFlightLoads = new ConcurrentHashMap<>();
+    private final AtomicLong loadCount = new AtomicLong();
+    private final AtomicLong sharedLoadCount = new AtomicLong();
 
     public boolean contains(final String uri) {
         return bucket.containsKey(uri);
@@ -43,40 +52,165 @@ public class HubBucket {
     }
 
     public HubBucketItem<HubResponse> get(final String uri) {
-        return bucket.get(uri);
+        final HubBucketItem<HubResponse> bucketItem = bucket.get(uri);
+        if (bucketItem != null) {
+            itemAccessed(bucketItem);
+        }
+        return bucketItem;
     }
 
     @SuppressWarnings("unchecked")
     public <T extends HubResponse> T get(final UriSingleResponse<T> uriSingleResponse) {
-        final String uri = uriSingleResponse.uri;
-        if (contains(uri)) {
-            final HubBucketItem<HubResponse> bucketItem = get(uri);
-            if (bucketItem.hasValidResponse() && bucketItem.getHubResponse().isPresent() && bucketItem.getHubResponse().get().getClass().equals(uriSingleResponse.responseClass)) {
-                // the mapping of uri -> response type are assumed to be correct, so returning T is possible
-                return (T) bucketItem.getHubResponse().orElse(null);
-            }
+        final HubBucketItem<HubResponse> bucketItem = get(uriSingleResponse.uri);
+        if (bucketItem != null && bucketItem.hasValidResponse() && bucketItem.getHubResponse().isPresent() && bucketItem.getHubResponse().get().getClass().equals(uriSingleResponse.responseClass)) {
+            // the mapping of uri -> response type are assumed to be correct, so returning T is possible
+            return (T) bucketItem.getHubResponse().orElse(null);
         }
         return null;
     }
 
     public Optional<HubResponse> getResponse(final String uri) {
-        return bucket.get(uri).getHubResponse();
+        final HubBucketItem<HubResponse> bucketItem = get(uri);
+        return bucketItem != null ? bucketItem.getHubResponse() : Optional.empty();
     }
 
     public Optional<Exception> getError(final String uri) {
-        return bucket.get(uri).getE();
+        final HubBucketItem<HubResponse> bucketItem = get(uri);
+        return bucketItem != null ? bucketItem.getE() : Optional.empty();
     }
 
     public void addValid(final String uri, final HubResponse hubResponse) {
-        bucket.put(uri, new HubBucketItem<>(uri, hubResponse));
+        store(new HubBucketItem<>(uri, hubResponse));
     }
 
     public void addError(final String uri, final Exception e) {
-        bucket.put(uri, new HubBucketItem<>(uri, e));
+        store(new HubBucketItem<>(uri, e));
+    }
+
+    public void add(final HubBucketItem<HubResponse> bucketItem) {
+        store(bucketItem);
     }
 
     public HubBucketItem<HubResponse> remove(final String uri) {
-        return bucket.remove(uri);
+        final HubBucketItem<HubResponse> bucketItem = bucket.remove(uri);
+        if (bucketItem != null) {
+            itemRemoved(bucketItem);
+        }
+        return bucketItem;
+    }
+
+    public <T extends HubResponse> HubBucketItem<HubResponse> computeIfAbsent(final UriSingleResponse<T> uriSingleResponse, final HubBucketItemLoader loader) {
+        return computeIfAbsent(uriSingleResponse.uri, loader);
+    }
+
+    /**
+     * Returns the item for the uri, loading it if the bucket does not hold it yet. While one thread loads a uri, the other threads asking for it wait for that load rather than starting their own, and all of them receive the same item. The
+     * loader runs outside of any lock, so loads of different uris proceed in parallel.
+     */
+    public HubBucketItem<HubResponse> computeIfAbsent(final String uri, final HubBucketItemLoader loader) {
+        final HubBucketItem<HubResponse> bucketItem = get(uri);
+        if (bucketItem != null) {
+            return bucketItem;
+        }
+
+        final CompletableFuture<HubBucketItem<HubResponse>> newLoad = new CompletableFuture<>();
+        final CompletableFuture<HubBucketItem<HubResponse>> inFlightLoad = inFlightLoads.putIfAbsent(uri, newLoad);
+        if (inFlightLoad != null) {
+            sharedLoadCount.incrementAndGet();
+            return waitFor(inFlightLoad);
+        }
+
+        try {
+            // another thread may have finished loading the uri between the first lookup and claiming the load
+            HubBucketItem<HubResponse> loadedItem = bucket.get(uri);
+            if (loadedItem == null) {
+                loadCount.incrementAndGet();
+                loadedItem = loader.load(uri);
+                store(loadedItem);
+            }
+            newLoad.complete(loadedItem);
+            return loadedItem;
+        } catch (final RuntimeException | Error e) {
+            newLoad.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlightLoads.remove(uri, newLoad);
+        }
+    }
+
+    public int size() {
+        return bucket.size();
+    }
+
+    /**
+     * @return the number of uris loaded through computeIfAbsent.
+     */
+    public long getLoadCount() {
+        return loadCount.get();
+    }
+
+    /**
+     * @return the number of computeIfAbsent calls that waited for a load already in flight rather than loading the uri again.
+     */
+    public long getSharedLoadCount() {
+        return sharedLoadCount.get();
+    }
+
+    /**
+     * @return the item stored for the uri, without counting as an access.
+     */
+    protected HubBucketItem<HubResponse> peek(final String uri) {
+        return bucket.get(uri);
+    }
+
+    /**
+     * Removes the item only if it is still the one stored for its uri.
+     */
+    protected boolean remove(final HubBucketItem<HubResponse> bucketItem) {
+        if (bucket.remove(bucketItem.getUri(), bucketItem)) {
+            itemRemoved(bucketItem);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Called after an item is stored, replacing the previous item for its uri if there was one.
+     */
+    protected void itemStored(final HubBucketItem<HubResponse> bucketItem, final HubBucketItem<HubResponse> previousItem) {
+    }
+
+    protected void itemAccessed(final HubBucketItem<HubResponse> bucketItem) {
+    }
+
+    protected void itemRemoved(final HubBucketItem<HubResponse> bucketItem) {
+    }
+
+    private void store(final HubBucketItem<HubResponse> bucketItem) {
+        final HubBucketItem<HubResponse> previousItem = bucket.put(bucketItem.getUri(), bucketItem);
+        itemStored(bucketItem, previousItem);
+    }
+
+    private HubBucketItem<HubResponse> waitFor(final CompletableFuture<HubBucketItem<HubResponse>> inFlightLoad) {
+        try {
+            return inFlightLoad.join();
+        } catch (final CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Loads the item for a uri. Failures to retrieve the response should be returned as an item holding the exception.
+     */
+    @FunctionalInterface
+    public interface HubBucketItemLoader {
+        HubBucketItem<HubResponse> load(String uri);
     }
 
 }
@@ -31,17 +31,27 @@ public class HubBucketItem<T extends HubResponse> {
     private final String uri;
     private final Optional<T> hubResponse;
     private final Optional<Exception> e;
+    private final long fetchedAt;
 
     public HubBucketItem(final String uri, final T hubResponse) {
+        this(uri, hubResponse, System.currentTimeMillis());
+    }
+
+    /**
+     * @param fetchedAt When the response was retrieved from the Hub, in milliseconds since the epoch.
+     */
+    public HubBucketItem(final String uri, final T hubResponse, final long fetchedAt) {
         this.uri = uri;
-        this.hubResponse = Optional.of(hubResponse);
+        this.hubResponse = Optional.ofNullable(hubResponse);
         this.e = Optional.empty();
+        this.fetchedAt = fetchedAt;
     }
 
     public HubBucketItem(final String uri, final Exception e) {
         this.uri = uri;
         this.hubResponse = Optional.empty();
         this.e = Optional.of(e);
+        this.fetchedAt = System.currentTimeMillis();
     }
 
     public boolean hasException() {
@@ -64,4 +74,22 @@ public class HubBucketItem<T extends HubResponse> {
         return e;
     }
 
+    public long getFetchedAt() {
+        return fetchedAt;
+    }
+
+    /**
+     * @return the json of the response if it was retained, otherwise null.
+     */
+    public String getJson() {
+        return getHubResponse().map(response -> response.json).orElse(null);
+    }
+
+    /**
+     * @return the class of the response, or null if the item holds an error.
+     */
+    public Class<? extends HubResponse> getResponseClass() {
+        return getHubResponse().map(HubResponse::getClass).orElse(null);
+    }
+
 }
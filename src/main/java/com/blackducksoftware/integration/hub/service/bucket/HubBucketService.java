@@ -23,16 +23,33 @@
  */
 package com.blackducksoftware.integration.hub.service.bucket;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 
+import com.blackducksoftware.integration.exception.IntegrationException;
 import com.blackducksoftware.integration.hub.api.UriSingleResponse;
 import com.blackducksoftware.integration.hub.api.core.HubResponse;
+import com.blackducksoftware.integration.hub.exception.HubIntegrationException;
 import com.blackducksoftware.integration.hub.service.DataService;
 import com.blackducksoftware.integration.hub.service.HubService;
 
 public class HubBucketService extends DataService {
+    private final int parallelism;
+
     public HubBucketService(final HubService hubService) {
+        this(hubService, 0);
+    }
+
+    /**
+     * @param parallelism The maximum number of responses retrieved concurrently while filling a bucket. When 0 or less, the bulk request parallelism of the HubService is used.
+     */
+    public HubBucketService(final HubService hubService, final int parallelism) {
         super(hubService);
+        this.parallelism = parallelism > 0 ? parallelism : hubService.getBulkRequestParallelism();
     }
 
     public HubBucket startTheBucket(final List<UriSingleResponse<? extends HubResponse>> uriSingleResponses) {
@@ -41,17 +58,65 @@ public class HubBucketService extends DataService {
         return hubBucket;
     }
 
+    /**
+     * Retrieves the responses that are not in the bucket yet, up to the parallelism of this service at once on the HubTaskExecutor of the HubService, requesting a uri that appears more than once only once. The bucket may be filled by other threads at the same time; a uri one of them is already retrieving is not
+     * requested again.
+     */
     public void addToTheBucket(final HubBucket hubBucket, final List<UriSingleResponse<? extends HubResponse>> uriSingleResponses) {
+        final Map<String, UriSingleResponse<? extends HubResponse>> missingUriSingleResponses = new LinkedHashMap<>();
         for (final UriSingleResponse<? extends HubResponse> uriSingleResponse : uriSingleResponses) {
             if (!hubBucket.contains(uriSingleResponse.uri)) {
-                try {
-                    final HubResponse hubResponse = hubService.getResponse(uriSingleResponse);
-                    hubBucket.addValid(uriSingleResponse.uri, hubResponse);
-                } catch (final Exception e) {
-                    // it is up to the consumer of the bucket to log or handle any/all Exceptions
-                    hubBucket.addError(uriSingleResponse.uri, e);
-                }
+                missingUriSingleResponses.putIfAbsent(uriSingleResponse.uri, uriSingleResponse);
+            }
+        }
+        final List<Callable<HubBucketItem<HubResponse>>> tasks = new ArrayList<>(missingUriSingleResponses.size());
+        for (final UriSingleResponse<? extends HubResponse> uriSingleResponse : missingUriSingleResponses.values()) {
+            tasks.add(() -> hubBucket.computeIfAbsent(uriSingleResponse, uri -> retrieveItem(uriSingleResponse)));
+        }
+        try {
+            hubService.getHubTaskExecutor().invokeAll(tasks, parallelism);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            // the uris that were not retrieved are recorded as errors, so every uri asked for is in the bucket
+            for (final UriSingleResponse<? extends HubResponse> uriSingleResponse : missingUriSingleResponses.values()) {
+                hubBucket.computeIfAbsent(uriSingleResponse, uri -> new HubBucketItem<>(uri, e));
+            }
+        } catch (final ExecutionException e) {
+            // retrieveItem records every Exception, so only an Error can get here
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    /**
+     * Returns the response for the uri from the bucket, retrieving it into the bucket first if it is not there yet. Safe to call from several threads sharing the bucket.
+     * @throws IntegrationException the error recorded for the uri, if it could not be retrieved.
+     */
+    public <T extends HubResponse> T getFromTheBucket(final HubBucket hubBucket, final UriSingleResponse<T> uriSingleResponse) throws IntegrationException {
+        final HubBucketItem<HubResponse> bucketItem = hubBucket.computeIfAbsent(uriSingleResponse, uri -> retrieveItem(uriSingleResponse));
+        if (bucketItem.hasException()) {
+            final Exception e = bucketItem.getE().get();
+            if (e instanceof IntegrationException) {
+                throw (IntegrationException) e;
             }
+            throw new HubIntegrationException(e.getMessage(), e);
+        }
+        return uriSingleResponse.responseClass.cast(bucketItem.getHubResponse().orElse(null));
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    private HubBucketItem<HubResponse> retrieveItem(final UriSingleResponse<? extends HubResponse> uriSingleResponse) {
+        try {
+            final HubResponse hubResponse = hubService.getResponse(uriSingleResponse);
+            return new HubBucketItem<>(uriSingleResponse.uri, hubResponse);
+        } catch (final Exception e) {
+            // it is up to the consumer of the bucket to log or handle any/all Exceptions
+            return new HubBucketItem<>(uriSingleResponse.uri, e);
         }
     }
 
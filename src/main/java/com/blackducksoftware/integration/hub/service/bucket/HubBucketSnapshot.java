@@ -0,0 +1,201 @@
+/**
+ * hub-common
+ *
+ * Copyright (C) 2018 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.service.bucket;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.io.FileUtils;
+
+import com.blackducksoftware.integration.hub.api.core.HubResponse;
+import com.google.gson.Gson;
+
+/**
+ * Saves the responses of a {@link HubBucket} to a file and restores them, so a process that starts again does not have to retrieve them from the Hub again. Each entry keeps the json of the response, its class and when it was fetched.
+ * Restored entries are bound to their class only when first used, and entries older than the maximum age of their class are not restored.
+ */
+public class HubBucketSnapshot {
+    private static final int MAGIC = 0x48554253;
+    private static final int VERSION = 1;
+
+    private final Gson gson;
+    private final long defaultMaxAgeMilliseconds;
+    private final Map<Class<? extends HubResponse>, Long> maxAgeMilliseconds = new ConcurrentHashMap<>();
+
+    /**
+     * @param gson Used to render the json of responses that did not retain it, and to bind restored responses.
+     */
+    public HubBucketSnapshot(final Gson gson, final long defaultMaxAgeMilliseconds) {
+        this.gson = gson;
+        this.defaultMaxAgeMilliseconds = defaultMaxAgeMilliseconds;
+    }
+
+    /**
+     * @param maxAgeMilliseconds How long after they were fetched responses of the class are still restored. A value of 0 or less never restores them.
+     */
+    public void setMaxAge(final Class<? extends HubResponse> responseClass, final long maxAgeMilliseconds) {
+        this.maxAgeMilliseconds.put(responseClass, maxAgeMilliseconds);
+    }
+
+    public long getMaxAge(final Class<? extends HubResponse> responseClass) {
+        return maxAgeMilliseconds.getOrDefault(responseClass, defaultMaxAgeMilliseconds);
+    }
+
+    /**
+     * Writes the valid responses of the bucket to the file, replacing it. Errors are not saved, so their uris are retrieved again after a restore. The snapshot is written next to the file first, so a failed save leaves the previous
+     * snapshot intact.
+     * @return the number of responses saved.
+     */
+    public int save(final HubBucket hubBucket, final File file) throws IOException {
+        final List<HubBucketItem<HubResponse>> bucketItems = new ArrayList<>();
+        final Map<Class<? extends HubResponse>, Integer> classIndexes = new LinkedHashMap<>();
+        for (final String uri : hubBucket.getAvailableUris()) {
+            final HubBucketItem<HubResponse> bucketItem = hubBucket.peek(uri);
+            if (bucketItem != null && bucketItem.hasValidResponse() && bucketItem.getResponseClass() != null) {
+                bucketItems.add(bucketItem);
+                classIndexes.putIfAbsent(bucketItem.getResponseClass(), classIndexes.size());
+            }
+        }
+
+        final File parentDirectory = file.getAbsoluteFile().getParentFile();
+        parentDirectory.mkdirs();
+        final File tempFile = File.createTempFile(file.getName(), ".tmp", parentDirectory);
+        try {
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(new FileOutputStream(tempFile))))) {
+                output.writeInt(MAGIC);
+                output.writeInt(VERSION);
+                output.writeInt(classIndexes.size());
+                for (final Class<? extends HubResponse> responseClass : classIndexes.keySet()) {
+                    output.writeUTF(responseClass.getName());
+                }
+                output.writeInt(bucketItems.size());
+                for (final HubBucketItem<HubResponse> bucketItem : bucketItems) {
+                    output.writeUTF(bucketItem.getUri());
+                    output.writeInt(classIndexes.get(bucketItem.getResponseClass()));
+                    output.writeLong(bucketItem.getFetchedAt());
+                    // the json can be longer than writeUTF allows
+                    final byte[] json = getJson(bucketItem).getBytes(StandardCharsets.UTF_8);
+                    output.writeInt(json.length);
+                    output.write(json);
+                }
+            }
+            moveReplacing(tempFile, file);
+        } finally {
+            FileUtils.deleteQuietly(tempFile);
+        }
+        return bucketItems.size();
+    }
+
+    public HubBucket load(final File file) throws IOException {
+        final HubBucket hubBucket = new HubBucket();
+        loadInto(hubBucket, file);
+        return hubBucket;
+    }
+
+    /**
+     * Adds the entries of the snapshot that have not reached the maximum age of their class to the bucket. Uris the bucket already holds are left as they are, as are entries whose class can no longer be found.
+     * @return the number of entries added, 0 if the file does not exist.
+     */
+    public int loadInto(final HubBucket hubBucket, final File file) throws IOException {
+        if (!file.isFile()) {
+            return 0;
+        }
+        final long now = System.currentTimeMillis();
+        int loadedCount = 0;
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new GZIPInputStream(new FileInputStream(file))))) {
+            if (input.readInt() != MAGIC) {
+                throw new IOException("The file " + file.getAbsolutePath() + " is not a HubBucket snapshot.");
+            }
+            final int version = input.readInt();
+            if (version != VERSION) {
+                throw new IOException("The HubBucket snapshot " + file.getAbsolutePath() + " has the unsupported version " + version + ".");
+            }
+            final int classCount = input.readInt();
+            final List<Class<? extends HubResponse>> responseClasses = new ArrayList<>(classCount);
+            for (int i = 0; i < classCount; i++) {
+                responseClasses.add(findResponseClass(input.readUTF()));
+            }
+            final int entryCount = input.readInt();
+            for (int i = 0; i < entryCount; i++) {
+                final String uri = input.readUTF();
+                final Class<? extends HubResponse> responseClass = responseClasses.get(input.readInt());
+                final long fetchedAt = input.readLong();
+                final byte[] json = new byte[input.readInt()];
+                input.readFully(json);
+                if (responseClass != null && now - fetchedAt < getMaxAge(responseClass) && !hubBucket.contains(uri)) {
+                    hubBucket.add(new SnapshotHubBucketItem(gson, uri, new String(json, StandardCharsets.UTF_8), responseClass, fetchedAt));
+                    loadedCount++;
+                }
+            }
+        }
+        return loadedCount;
+    }
+
+    private String getJson(final HubBucketItem<HubResponse> bucketItem) {
+        final String json = bucketItem.getJson();
+        if (json != null) {
+            return json;
+        }
+        return gson.toJson(bucketItem.getHubResponse().get());
+    }
+
+    @SuppressWarnings("unchecked")
+    private Class<? extends HubResponse> findResponseClass(final String className) {
+        try {
+            final Class<?> responseClass = Class.forName(className, false, HubBucketSnapshot.class.getClassLoader());
+            if (HubResponse.class.isAssignableFrom(responseClass)) {
+                return (Class<? extends HubResponse>) responseClass;
+            }
+        } catch (final ClassNotFoundException e) {
+            // the entries of a class that was removed or renamed are skipped
+        }
+        return null;
+    }
+
+    private void moveReplacing(final File source, final File target) throws IOException {
+        try {
+            Files.move(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (final AtomicMoveNotSupportedException e) {
+            Files.move(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+}
@@ -0,0 +1,278 @@
+/**
+ * hub-common
+ *
+ * Copyright (C) 2018 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.service.bucket;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+
+import com.blackducksoftware.integration.exception.IntegrationException;
+import com.blackducksoftware.integration.hub.api.UriSingleResponse;
+import com.blackducksoftware.integration.hub.api.core.HubResponse;
+import com.blackducksoftware.integration.hub.api.core.HubView;
+import com.blackducksoftware.integration.hub.api.core.LinkMultipleResponses;
+import com.blackducksoftware.integration.hub.api.core.LinkSingleResponse;
+import com.blackducksoftware.integration.hub.api.view.MetaHandler;
+import com.blackducksoftware.integration.hub.service.DataService;
+import com.blackducksoftware.integration.hub.service.HubService;
+
+/**
+ * Fills a bucket with the views reachable from a set of seed views by following links, so that code walking from a project version to its components, their licenses, the policy status and so on finds every view in the bucket
+ * rather than waiting for each hop in turn. Only the links added for the class of a view are followed.
+ * <p>
+ * The crawl is breadth-first and bounded by a maximum depth, the seed views being at depth 0. Up to the parallelism of the HubBucketService links are retrieved at once on the HubTaskExecutor of the HubService, and the links of a view
+ * are queued as soon as it arrives rather than after the rest of its level, so the retrieval of one level overlaps with the next.
+ */
+public class HubLinkPrefetcher extends DataService {
+    private final HubBucketService hubBucketService;
+    private final MetaHandler metaHandler;
+    private final int maxDepth;
+    private final Map<Class<? extends HubView>, List<PrefetchLink>> prefetchLinks = new ConcurrentHashMap<>();
+
+    public HubLinkPrefetcher(final HubService hubService, final HubBucketService hubBucketService, final int maxDepth) {
+        super(hubService);
+        this.hubBucketService = hubBucketService;
+        this.metaHandler = hubService.getMetaHandler();
+        this.maxDepth = maxDepth;
+    }
+
+    /**
+     * Follows the link from views of the class, adding the linked view to the bucket.
+     */
+    public <T extends HubResponse> void addLink(final Class<? extends HubView> viewClass, final LinkSingleResponse<T> linkSingleResponse) {
+        addLink(viewClass, linkSingleResponse.link, linkSingleResponse.responseClass);
+    }
+
+    public void addLink(final Class<? extends HubView> viewClass, final String link, final Class<? extends HubResponse> responseClass) {
+        addPrefetchLink(viewClass, new PrefetchLink(link, responseClass, false));
+    }
+
+    /**
+     * Follows the link from views of the class, retrieving every page of the linked list and adding each item to the bucket under its own href. An error retrieving the list is added to the bucket under the uri of the list.
+     */
+    public <T extends HubResponse> void addLink(final Class<? extends HubView> viewClass, final LinkMultipleResponses<T> linkMultipleResponses) {
+        addPrefetchLink(viewClass, new PrefetchLink(linkMultipleResponses.link, linkMultipleResponses.responseClass, true));
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * Crawls the links of the seed views into the bucket. Views the bucket already holds are not retrieved again, but their links are still followed. Failures are recorded in the bucket rather than thrown.
+     * @return the number of links followed.
+     */
+    public int prefetch(final HubBucket hubBucket, final List<? extends HubView> seedViews) {
+        final Set<String> visitedUris = ConcurrentHashMap.newKeySet();
+        final List<LinkFetch> seedFetches = new ArrayList<>();
+        for (final HubView seedView : seedViews) {
+            final String href = getHref(seedView);
+            if (href != null) {
+                visitedUris.add(href);
+            }
+        }
+        for (final HubView seedView : seedViews) {
+            seedFetches.addAll(findLinkFetches(seedView, 0, visitedUris));
+        }
+        if (seedFetches.isEmpty()) {
+            return 0;
+        }
+
+        // every worker takes the next link from the shared queue, so the links of a view are followed as soon as it arrives
+        final LinkQueue linkQueue = new LinkQueue(seedFetches);
+        final int workerCount = Math.max(1, hubBucketService.getParallelism());
+        final List<Callable<Void>> workers = new ArrayList<>(workerCount);
+        for (int i = 0; i < workerCount; i++) {
+            workers.add(() -> {
+                followLinks(hubBucket, linkQueue, visitedUris);
+                return null;
+            });
+        }
+        try {
+            hubService.getHubTaskExecutor().invokeAll(workers, workerCount);
+        } catch (final InterruptedException e) {
+            // the crawl stops, the views retrieved so far stay in the bucket
+            Thread.currentThread().interrupt();
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+                return linkQueue.getFollowedCount();
+            }
+            // fetch records every other Exception, so only an Error can get here
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause().getMessage(), e.getCause());
+        }
+        return linkQueue.getFollowedCount();
+    }
+
+    private void followLinks(final HubBucket hubBucket, final LinkQueue linkQueue, final Set<String> visitedUris) throws InterruptedException {
+        LinkFetch linkFetch;
+        while ((linkFetch = linkQueue.take()) != null) {
+            List<LinkFetch> childFetches = Collections.emptyList();
+            try {
+                childFetches = fetch(hubBucket, linkFetch, visitedUris);
+            } finally {
+                linkQueue.followed(childFetches);
+            }
+        }
+    }
+
+    private void addPrefetchLink(final Class<? extends HubView> viewClass, final PrefetchLink prefetchLink) {
+        prefetchLinks.computeIfAbsent(viewClass, key -> new CopyOnWriteArrayList<>()).add(prefetchLink);
+    }
+
+    private List<LinkFetch> fetch(final HubBucket hubBucket, final LinkFetch linkFetch, final Set<String> visitedUris) {
+        if (linkFetch.prefetchLink.multipleResponses) {
+            return fetchMultiple(hubBucket, linkFetch, visitedUris);
+        }
+        final HubResponse hubResponse;
+        try {
+            hubResponse = hubBucketService.getFromTheBucket(hubBucket, new UriSingleResponse<>(linkFetch.uri, linkFetch.prefetchLink.responseClass));
+        } catch (final IntegrationException e) {
+            // the error is in the bucket for the consumer to handle
+            return Collections.emptyList();
+        }
+        return findLinkFetches(hubResponse, linkFetch.depth, visitedUris);
+    }
+
+    private List<LinkFetch> fetchMultiple(final HubBucket hubBucket, final LinkFetch linkFetch, final Set<String> visitedUris) {
+        final List<? extends HubResponse> hubResponses;
+        try {
+            hubResponses = hubService.getAllResponses(linkFetch.uri, linkFetch.prefetchLink.responseClass);
+        } catch (final Exception e) {
+            hubBucket.addError(linkFetch.uri, e);
+            return Collections.emptyList();
+        }
+        final List<LinkFetch> childFetches = new ArrayList<>();
+        for (final HubResponse hubResponse : hubResponses) {
+            final String href = getHref(hubResponse);
+            if (href == null) {
+                childFetches.addAll(findLinkFetches(hubResponse, linkFetch.depth, visitedUris));
+            } else if (visitedUris.add(href)) {
+                if (!hubBucket.contains(href)) {
+                    hubBucket.addValid(href, hubResponse);
+                }
+                childFetches.addAll(findLinkFetches(hubResponse, linkFetch.depth, visitedUris));
+            }
+        }
+        return childFetches;
+    }
+
+    private List<LinkFetch> findLinkFetches(final HubResponse hubResponse, final int depth, final Set<String> visitedUris) {
+        if (depth >= maxDepth || !(hubResponse instanceof HubView)) {
+            return Collections.emptyList();
+        }
+        final List<PrefetchLink> viewLinks = prefetchLinks.get(hubResponse.getClass());
+        if (viewLinks == null) {
+            return Collections.emptyList();
+        }
+        final List<LinkFetch> linkFetches = new ArrayList<>(viewLinks.size());
+        for (final PrefetchLink prefetchLink : viewLinks) {
+            final Optional<String> uri = metaHandler.findFirstLink((HubView) hubResponse, prefetchLink.link);
+            // a view reachable along several paths is retrieved, and crawled from, only once
+            if (uri.isPresent() && visitedUris.add(uri.get())) {
+                linkFetches.add(new LinkFetch(uri.get(), prefetchLink, depth + 1));
+            }
+        }
+        return linkFetches;
+    }
+
+    private String getHref(final HubResponse hubResponse) {
+        if (hubResponse instanceof HubView && ((HubView) hubResponse)._meta != null) {
+            return ((HubView) hubResponse)._meta.href;
+        }
+        return null;
+    }
+
+    /**
+     * The links waiting to be followed. A worker only stops once the queue is empty and no other worker is following a link that could add more.
+     */
+    private static class LinkQueue {
+        private final Deque<LinkFetch> linkFetches;
+        private int followingCount;
+        private int followedCount;
+
+        public LinkQueue(final List<LinkFetch> seedFetches) {
+            this.linkFetches = new ArrayDeque<>(seedFetches);
+        }
+
+        public synchronized LinkFetch take() throws InterruptedException {
+            while (linkFetches.isEmpty() && followingCount > 0) {
+                wait();
+            }
+            final LinkFetch linkFetch = linkFetches.poll();
+            if (linkFetch != null) {
+                followingCount++;
+            }
+            return linkFetch;
+        }
+
+        public synchronized void followed(final List<LinkFetch> childFetches) {
+            linkFetches.addAll(childFetches);
+            followingCount--;
+            followedCount++;
+            notifyAll();
+        }
+
+        public synchronized int getFollowedCount() {
+            return followedCount;
+        }
+    }
+
+    private static class PrefetchLink {
+        private final String link;
+        private final Class<? extends HubResponse> responseClass;
+        private final boolean multipleResponses;
+
+        public PrefetchLink(final String link, final Class<? extends HubResponse> responseClass, final boolean multipleResponses) {
+            this.link = link;
+            this.responseClass = responseClass;
+            this.multipleResponses = multipleResponses;
+        }
+    }
+
+    private static class LinkFetch {
+        private final String uri;
+        private final PrefetchLink prefetchLink;
+        private final int depth;
+
+        public LinkFetch(final String uri, final PrefetchLink prefetchLink, final int depth) {
+            this.uri = uri;
+            this.prefetchLink = prefetchLink;
+            this.depth = depth;
+        }
+    }
+
+}
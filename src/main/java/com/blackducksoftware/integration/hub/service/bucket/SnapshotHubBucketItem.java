@@ -0,0 +1,78 @@
+/**
+ * hub-common
+ *
+ * Copyright (C) 2018 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.service.bucket;
+
+import java.util.Optional;
+
+import com.blackducksoftware.integration.hub.api.core.HubResponse;
+import com.google.gson.Gson;
+
+/**
+ * An item restored from a {@link HubBucketSnapshot}. It holds the json until the response is first asked for, so restoring a bucket does not bind thousands of responses that may never be used.
+ */
+class SnapshotHubBucketItem extends HubBucketItem<HubResponse> {
+    private final Gson gson;
+    private final String json;
+    private final Class<? extends HubResponse> responseClass;
+    private volatile Optional<HubResponse> hubResponse;
+
+    public SnapshotHubBucketItem(final Gson gson, final String uri, final String json, final Class<? extends HubResponse> responseClass, final long fetchedAt) {
+        super(uri, null, fetchedAt);
+        this.gson = gson;
+        this.json = json;
+        this.responseClass = responseClass;
+    }
+
+    @Override
+    public Optional<HubResponse> getHubResponse() {
+        Optional<HubResponse> boundResponse = hubResponse;
+        if (boundResponse == null) {
+            synchronized (this) {
+                boundResponse = hubResponse;
+                if (boundResponse == null) {
+                    final HubResponse response = gson.fromJson(json, responseClass);
+                    response.json = json;
+                    boundResponse = Optional.of(response);
+                    hubResponse = boundResponse;
+                }
+            }
+        }
+        return boundResponse;
+    }
+
+    @Override
+    public String getJson() {
+        return json;
+    }
+
+    @Override
+    public Class<? extends HubResponse> getResponseClass() {
+        return responseClass;
+    }
+
+    public boolean isBound() {
+        return hubResponse != null;
+    }
+
+}
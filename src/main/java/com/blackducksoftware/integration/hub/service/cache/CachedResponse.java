@@ -0,0 +1,62 @@
+/**
+ * hub-common
+ *
+ * Copyright (C) 2018 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.service.cache;
+
+/**
+ * The body of a Hub response along with the validators needed to ask the Hub whether it has changed.
+ */
+public class CachedResponse {
+    private final String uri;
+    private final String eTag;
+    private final String lastModified;
+    private final String body;
+
+    public CachedResponse(final String uri, final String eTag, final String lastModified, final String body) {
+        this.uri = uri;
+        this.eTag = eTag;
+        this.lastModified = lastModified;
+        this.body = body;
+    }
+
+    public String getUri() {
+        return uri;
+    }
+
+    public String getETag() {
+        return eTag;
+    }
+
+    public String getLastModified() {
+        return lastModified;
+    }
+
+    public String getBody() {
+        return body;
+    }
+
+    public long getEstimatedSize() {
+        return body == null ? 0 : body.length();
+    }
+
+}
@@ -0,0 +1,213 @@
+/**
+ * hub-common
+ *
+ * Copyright (C) 2018 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.service.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.StringUtils;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+/**
+ * Keeps the cached responses as files in a directory so they survive across runs. Once the total size of the files is over the limit, the least recently used files are deleted. Any problem reading or writing a file is treated as a cache
+ * miss, since the Hub can always provide the response again.
+ * <p>
+ * The files and their sizes are listed once, when the cache is created, and tracked in memory from then on, so the directory should only be used by one cache at a time. Unless the cache is given the Hub user it caches responses for,
+ * responses are keyed by uri alone and the directory must not be shared between Hub users, as one user could then be served a response cached for another.
+ */
+public class DirectoryHubResponseCache implements HubResponseCache {
+    public static final long DEFAULT_MAX_SIZE = 256 * 1024 * 1024;
+
+    private static final String FILE_EXTENSION = ".json";
+
+    private final File directory;
+    private final long maxSize;
+    private final String hubUser;
+    private final Gson gson = new Gson();
+    // the size of each file by name, least recently used first
+    private final LinkedHashMap<String, Long> fileSizes = new LinkedHashMap<>(16, 0.75f, true);
+    private long currentSize = 0;
+
+    public DirectoryHubResponseCache(final File directory) {
+        this(directory, DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * @param maxSize The maximum total size, in bytes, of the files in the directory.
+     */
+    public DirectoryHubResponseCache(final File directory, final long maxSize) {
+        this(directory, maxSize, null);
+    }
+
+    /**
+     * @param hubUser Identifies the Hub user the responses are retrieved as, such as the username or api token of the connection. It is part of the key of each response, so users sharing the directory never see the responses cached
+     *            for one another.
+     */
+    public DirectoryHubResponseCache(final File directory, final long maxSize, final String hubUser) {
+        this.directory = directory;
+        this.maxSize = maxSize;
+        this.hubUser = hubUser;
+        directory.mkdirs();
+        loadFileSizes();
+    }
+
+    @Override
+    public synchronized CachedResponse get(final String uri) {
+        final String fileName = getFileName(uri);
+        if (!fileSizes.containsKey(fileName)) {
+            return null;
+        }
+        final File cacheFile = new File(directory, fileName);
+        try {
+            final CachedResponse cachedResponse = gson.fromJson(FileUtils.readFileToString(cacheFile, StandardCharsets.UTF_8), CachedResponse.class);
+            if (cachedResponse == null || !uri.equals(cachedResponse.getUri())) {
+                return null;
+            }
+            // the modified time of the file keeps the order of use for the next run
+            cacheFile.setLastModified(System.currentTimeMillis());
+            return cachedResponse;
+        } catch (final IOException | JsonParseException e) {
+            deleteFile(fileName);
+            return null;
+        }
+    }
+
+    @Override
+    public synchronized void put(final CachedResponse cachedResponse) {
+        final String fileName = getFileName(cachedResponse.getUri());
+        final File cacheFile = new File(directory, fileName);
+        final byte[] content = gson.toJson(cachedResponse).getBytes(StandardCharsets.UTF_8);
+        try {
+            FileUtils.writeByteArrayToFile(cacheFile, content);
+        } catch (final IOException e) {
+            deleteFile(fileName);
+            return;
+        }
+        final Long previousSize = fileSizes.put(fileName, (long) content.length);
+        if (previousSize != null) {
+            currentSize -= previousSize;
+        }
+        currentSize += content.length;
+        evict();
+    }
+
+    @Override
+    public synchronized void remove(final String uri) {
+        deleteFile(getFileName(uri));
+    }
+
+    @Override
+    public synchronized void clear() {
+        for (final File cacheFile : getCacheFiles()) {
+            FileUtils.deleteQuietly(cacheFile);
+        }
+        fileSizes.clear();
+        currentSize = 0;
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    public synchronized int getEntryCount() {
+        return fileSizes.size();
+    }
+
+    public synchronized long getCurrentSize() {
+        return currentSize;
+    }
+
+    private void loadFileSizes() {
+        final File[] cacheFiles = getCacheFiles();
+        // the modified time of each file is the last time it was used
+        Arrays.sort(cacheFiles, Comparator.comparingLong(File::lastModified));
+        for (final File cacheFile : cacheFiles) {
+            final long fileSize = cacheFile.length();
+            fileSizes.put(cacheFile.getName(), fileSize);
+            currentSize += fileSize;
+        }
+        evict();
+    }
+
+    private void evict() {
+        final Iterator<Map.Entry<String, Long>> leastRecentlyUsed = fileSizes.entrySet().iterator();
+        while (currentSize > maxSize && leastRecentlyUsed.hasNext()) {
+            final Map.Entry<String, Long> fileSize = leastRecentlyUsed.next();
+            FileUtils.deleteQuietly(new File(directory, fileSize.getKey()));
+            currentSize -= fileSize.getValue();
+            leastRecentlyUsed.remove();
+        }
+    }
+
+    private void deleteFile(final String fileName) {
+        FileUtils.deleteQuietly(new File(directory, fileName));
+        final Long fileSize = fileSizes.remove(fileName);
+        if (fileSize != null) {
+            currentSize -= fileSize;
+        }
+    }
+
+    private File[] getCacheFiles() {
+        final File[] cacheFiles = directory.listFiles((dir, name) -> name.endsWith(FILE_EXTENSION));
+        if (cacheFiles == null) {
+            return new File[0];
+        }
+        return cacheFiles;
+    }
+
+    private String getFileName(final String uri) {
+        final String key = StringUtils.isBlank(hubUser) ? uri : hubUser + '\n' + uri;
+        return hash(key) + FILE_EXTENSION;
+    }
+
+    private String hash(final String key) {
+        try {
+            final byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            final StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (final byte b : digest) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (final NoSuchAlgorithmException e) {
+            // every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
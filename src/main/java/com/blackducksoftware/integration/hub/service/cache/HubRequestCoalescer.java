@@ -0,0 +1,116 @@
+/**
+ * hub-common
+ *
+ * Copyright (C) 2018 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.service.cache;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.blackducksoftware.integration.exception.IntegrationException;
+import com.blackducksoftware.integration.hub.api.core.HubResponse;
+import com.blackducksoftware.integration.hub.exception.HubIntegrationException;
+
+/**
+ * Coalesces concurrent GETs for the same uri: while a request for a uri is in flight, other threads asking for that uri wait for its result instead of making their own request. The thread making the request gets the response it retrieved,
+ * and every waiting thread gets its own response bound from the json of that response.
+ */
+public class HubRequestCoalescer {
+    private final ConcurrentMap<String, CompletableFuture<String>> inFlightRequests = new ConcurrentHashMap<>();
+    private final AtomicLong executedCount = new AtomicLong();
+    private final AtomicLong coalescedCount = new AtomicLong();
+
+    /**
+     * @param hubResponseBinder Renders the json of the retrieved response, which is done before the response is returned so changes made to it by the thread that retrieved it are not seen by the others, and binds it for each waiting
+     *            thread.
+     */
+    public <T extends HubResponse> T getResponse(final String uri, final Class<T> responseClass, final HubResponseBinder hubResponseBinder, final HubResponseSupplier<T> hubResponseSupplier) throws IntegrationException {
+        final String key = responseClass.getName() + " " + uri;
+        final CompletableFuture<String> newRequest = new CompletableFuture<>();
+        final CompletableFuture<String> inFlightRequest = inFlightRequests.putIfAbsent(key, newRequest);
+        if (inFlightRequest != null) {
+            coalescedCount.incrementAndGet();
+            return hubResponseBinder.getResponseAs(waitFor(inFlightRequest), responseClass);
+        }
+
+        executedCount.incrementAndGet();
+        try {
+            final T hubResponse = hubResponseSupplier.get();
+            newRequest.complete(hubResponseBinder.getJson(hubResponse));
+            return hubResponse;
+        } catch (final IntegrationException | RuntimeException | Error e) {
+            newRequest.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlightRequests.remove(key, newRequest);
+        }
+    }
+
+    /**
+     * @return the number of requests that were actually made.
+     */
+    public long getExecutedCount() {
+        return executedCount.get();
+    }
+
+    /**
+     * @return the number of requests that were saved by waiting on a request already in flight.
+     */
+    public long getCoalescedCount() {
+        return coalescedCount.get();
+    }
+
+    public int getInFlightCount() {
+        return inFlightRequests.size();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("HubRequestCoalescer [executed=%d, coalesced=%d, inFlight=%d]", getExecutedCount(), getCoalescedCount(), getInFlightCount());
+    }
+
+    private String waitFor(final CompletableFuture<String> inFlightRequest) throws IntegrationException {
+        try {
+            return inFlightRequest.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new HubIntegrationException("Interrupted while waiting for a request in flight", e);
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof IntegrationException) {
+                throw (IntegrationException) e.getCause();
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new HubIntegrationException(e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    @FunctionalInterface
+    public interface HubResponseSupplier<T extends HubResponse> {
+        T get() throws IntegrationException;
+    }
+
+}
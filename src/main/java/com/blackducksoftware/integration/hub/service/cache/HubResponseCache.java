@@ -0,0 +1,41 @@
+/**
+ * hub-common
+ *
+ * Copyright (C) 2018 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.service.cache;
+
+/**
+ * A store of Hub response bodies keyed by uri, used to revalidate GET requests with If-None-Match/If-Modified-Since. Implementations must be safe to use from multiple threads.
+ */
+public interface HubResponseCache {
+    /**
+     * @return the cached response for the uri, or null if there is none.
+     */
+    CachedResponse get(String uri);
+
+    void put(CachedResponse cachedResponse);
+
+    void remove(String uri);
+
+    void clear();
+
+}
@@ -0,0 +1,189 @@
+/**
+ * hub-common
+ *
+ * Copyright (C) 2018 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.service.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.blackducksoftware.integration.hub.api.core.HubResponse;
+import com.blackducksoftware.integration.hub.api.generated.view.ComplexLicenseView;
+import com.blackducksoftware.integration.hub.api.generated.view.ComponentVersionView;
+import com.blackducksoftware.integration.hub.api.generated.view.ComponentView;
+import com.blackducksoftware.integration.hub.api.generated.view.LicenseView;
+import com.blackducksoftware.integration.hub.api.generated.view.PolicyRuleView;
+import com.blackducksoftware.integration.hub.api.generated.view.VersionBomPolicyStatusView;
+import com.blackducksoftware.integration.hub.api.view.ScanSummaryView;
+
+/**
+ * A thread-safe cache of the json of Hub views keyed by uri, meant to be shared by every HubService of a process. Each entry expires after the time to live of its response class, and the least recently used entries are evicted once the
+ * cache holds the maximum number of entries. Only the json is kept, so every caller binds its own view and can change it without affecting the others.
+ */
+public class HubViewCache {
+    public static final int DEFAULT_MAX_ENTRIES = 10000;
+    public static final long DEFAULT_TIME_TO_LIVE_MILLISECONDS = TimeUnit.MINUTES.toMillis(5);
+    public static final long IMMUTABLE_VIEW_TIME_TO_LIVE_MILLISECONDS = TimeUnit.HOURS.toMillis(1);
+    public static final long VOLATILE_VIEW_TIME_TO_LIVE_MILLISECONDS = TimeUnit.SECONDS.toMillis(30);
+
+    private final int maxEntries;
+    private final long defaultTimeToLiveMilliseconds;
+    private final Map<Class<? extends HubResponse>, Long> timeToLiveMilliseconds = new ConcurrentHashMap<>();
+    private final LinkedHashMap<String, CacheEntry> cache = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    /**
+     * Creates a cache that keeps component versions, components and licenses for an hour, policy status for 30 seconds, never caches scan summaries, which are polled, and keeps everything else for 5 minutes.
+     */
+    public HubViewCache() {
+        this(DEFAULT_MAX_ENTRIES, DEFAULT_TIME_TO_LIVE_MILLISECONDS);
+        setTimeToLive(ComponentVersionView.class, IMMUTABLE_VIEW_TIME_TO_LIVE_MILLISECONDS);
+        setTimeToLive(ComponentView.class, IMMUTABLE_VIEW_TIME_TO_LIVE_MILLISECONDS);
+        setTimeToLive(LicenseView.class, IMMUTABLE_VIEW_TIME_TO_LIVE_MILLISECONDS);
+        setTimeToLive(ComplexLicenseView.class, IMMUTABLE_VIEW_TIME_TO_LIVE_MILLISECONDS);
+        setTimeToLive(PolicyRuleView.class, DEFAULT_TIME_TO_LIVE_MILLISECONDS);
+        setTimeToLive(VersionBomPolicyStatusView.class, VOLATILE_VIEW_TIME_TO_LIVE_MILLISECONDS);
+        setTimeToLive(ScanSummaryView.class, 0);
+    }
+
+    public HubViewCache(final int maxEntries, final long defaultTimeToLiveMilliseconds) {
+        this.maxEntries = maxEntries;
+        this.defaultTimeToLiveMilliseconds = defaultTimeToLiveMilliseconds;
+    }
+
+    /**
+     * @param timeToLiveMilliseconds How long views of the response class stay cached. A value of 0 or less keeps them out of the cache.
+     */
+    public void setTimeToLive(final Class<? extends HubResponse> responseClass, final long timeToLiveMilliseconds) {
+        this.timeToLiveMilliseconds.put(responseClass, timeToLiveMilliseconds);
+    }
+
+    public long getTimeToLive(final Class<? extends HubResponse> responseClass) {
+        return timeToLiveMilliseconds.getOrDefault(responseClass, defaultTimeToLiveMilliseconds);
+    }
+
+    /**
+     * @return the cached json of the uri if there is one for the response class that has not expired, otherwise null.
+     */
+    public String getJson(final String uri, final Class<? extends HubResponse> responseClass) {
+        synchronized (cache) {
+            final CacheEntry cacheEntry = cache.get(uri);
+            if (cacheEntry != null) {
+                if (cacheEntry.isExpired(System.currentTimeMillis())) {
+                    cache.remove(uri);
+                } else if (responseClass.isAssignableFrom(cacheEntry.responseClass)) {
+                    hitCount.incrementAndGet();
+                    return cacheEntry.json;
+                }
+            }
+        }
+        missCount.incrementAndGet();
+        return null;
+    }
+
+    public void put(final String uri, final Class<? extends HubResponse> responseClass, final String json) {
+        if (uri == null || responseClass == null || json == null) {
+            return;
+        }
+        final long timeToLive = getTimeToLive(responseClass);
+        if (timeToLive <= 0) {
+            return;
+        }
+        synchronized (cache) {
+            cache.put(uri, new CacheEntry(responseClass, json, System.currentTimeMillis() + timeToLive));
+            final Iterator<CacheEntry> leastRecentlyUsed = cache.values().iterator();
+            while (cache.size() > maxEntries && leastRecentlyUsed.hasNext()) {
+                leastRecentlyUsed.next();
+                leastRecentlyUsed.remove();
+                evictionCount.incrementAndGet();
+            }
+        }
+    }
+
+    public void invalidate(final String uri) {
+        synchronized (cache) {
+            cache.remove(uri);
+        }
+    }
+
+    public void clear() {
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    public double getHitRate() {
+        final long requestCount = getHitCount() + getMissCount();
+        return requestCount == 0 ? 0.0 : (double) getHitCount() / requestCount;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("HubViewCache [size=%d, maxEntries=%d, hits=%d, misses=%d, evictions=%d]", size(), maxEntries, getHitCount(), getMissCount(), getEvictionCount());
+    }
+
+    private static class CacheEntry {
+        private final Class<? extends HubResponse> responseClass;
+        private final String json;
+        private final long expiresAt;
+
+        private CacheEntry(final Class<? extends HubResponse> responseClass, final String json, final long expiresAt) {
+            this.responseClass = responseClass;
+            this.json = json;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired(final long now) {
+            return now >= expiresAt;
+        }
+    }
+
+}
@@ -0,0 +1,101 @@
+/**
+ * hub-common
+ *
+ * Copyright (C) 2018 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.service.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps the cached responses in memory, evicting the least recently used ones once the total size of the bodies is over the limit.
+ */
+public class InMemoryHubResponseCache implements HubResponseCache {
+    public static final long DEFAULT_MAX_SIZE = 64 * 1024 * 1024;
+
+    private final long maxSize;
+    private final LinkedHashMap<String, CachedResponse> cache = new LinkedHashMap<>(16, 0.75f, true);
+    private long currentSize = 0;
+
+    public InMemoryHubResponseCache() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * @param maxSize The maximum total size, in characters, of the cached bodies.
+     */
+    public InMemoryHubResponseCache(final long maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    @Override
+    public synchronized CachedResponse get(final String uri) {
+        return cache.get(uri);
+    }
+
+    @Override
+    public synchronized void put(final CachedResponse cachedResponse) {
+        if (cachedResponse.getEstimatedSize() > maxSize) {
+            remove(cachedResponse.getUri());
+            return;
+        }
+        final CachedResponse previous = cache.put(cachedResponse.getUri(), cachedResponse);
+        if (previous != null) {
+            currentSize -= previous.getEstimatedSize();
+        }
+        currentSize += cachedResponse.getEstimatedSize();
+
+        final Iterator<Map.Entry<String, CachedResponse>> leastRecentlyUsed = cache.entrySet().iterator();
+        while (currentSize > maxSize && leastRecentlyUsed.hasNext()) {
+            currentSize -= leastRecentlyUsed.next().getValue().getEstimatedSize();
+            leastRecentlyUsed.remove();
+        }
+    }
+
+    @Override
+    public synchronized void remove(final String uri) {
+        final CachedResponse removed = cache.remove(uri);
+        if (removed != null) {
+            currentSize -= removed.getEstimatedSize();
+        }
+    }
+
+    @Override
+    public synchronized void clear() {
+        cache.clear();
+        currentSize = 0;
+    }
+
+    public synchronized int getEntryCount() {
+        return cache.size();
+    }
+
+    public synchronized long getCurrentSize() {
+        return currentSize;
+    }
+
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+}
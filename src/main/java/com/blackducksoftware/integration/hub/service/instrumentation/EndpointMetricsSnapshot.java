@@ -0,0 +1,174 @@
+/**
+ * hub-common
+ *
+ * Copyright (C) 2018 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.service.instrumentation;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The measurements of a single endpoint at the time the snapshot was taken.
+ */
+public class EndpointMetricsSnapshot {
+    /**
+     * The inclusive upper bound of each latency bucket. The last bucket holds everything slower than the one before it.
+     */
+    public static final long[] LATENCY_BUCKET_UPPER_BOUNDS_MILLISECONDS = { 1, 2, 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000, 30000, Long.MAX_VALUE };
+
+    private final String endpoint;
+    private final long requestCount;
+    private final long totalLatencyMilliseconds;
+    private final long maxLatencyMilliseconds;
+    private final long[] latencyBucketCounts;
+    private final long responseBytes;
+    private final long transferredBytes;
+    private final long boundItemCount;
+    private final long bindNanoseconds;
+    private final long pagedCallCount;
+    private final long pageCount;
+    private final long pagedItemCount;
+    private final Map<String, Long> errorCounts;
+
+    public EndpointMetricsSnapshot(final String endpoint, final long requestCount, final long totalLatencyMilliseconds, final long maxLatencyMilliseconds, final long[] latencyBucketCounts, final long responseBytes,
+            final long transferredBytes, final long boundItemCount, final long bindNanoseconds, final long pagedCallCount, final long pageCount, final long pagedItemCount, final Map<String, Long> errorCounts) {
+        this.endpoint = endpoint;
+        this.requestCount = requestCount;
+        this.totalLatencyMilliseconds = totalLatencyMilliseconds;
+        this.maxLatencyMilliseconds = maxLatencyMilliseconds;
+        this.latencyBucketCounts = Arrays.copyOf(latencyBucketCounts, latencyBucketCounts.length);
+        this.responseBytes = responseBytes;
+        this.transferredBytes = transferredBytes;
+        this.boundItemCount = boundItemCount;
+        this.bindNanoseconds = bindNanoseconds;
+        this.pagedCallCount = pagedCallCount;
+        this.pageCount = pageCount;
+        this.pagedItemCount = pagedItemCount;
+        this.errorCounts = Collections.unmodifiableMap(new TreeMap<>(errorCounts));
+    }
+
+    public static int getLatencyBucket(final long elapsedMilliseconds) {
+        for (int i = 0; i < LATENCY_BUCKET_UPPER_BOUNDS_MILLISECONDS.length; i++) {
+            if (elapsedMilliseconds <= LATENCY_BUCKET_UPPER_BOUNDS_MILLISECONDS[i]) {
+                return i;
+            }
+        }
+        return LATENCY_BUCKET_UPPER_BOUNDS_MILLISECONDS.length - 1;
+    }
+
+    /**
+     * @return the upper bound of the bucket holding the given percentile (between 0 and 1) of the request latencies, capped by the slowest request, or 0 if there were no requests.
+     */
+    public long getLatencyPercentileMilliseconds(final double percentile) {
+        final long rank = (long) Math.ceil(percentile * requestCount);
+        long seen = 0;
+        for (int i = 0; i < latencyBucketCounts.length; i++) {
+            seen += latencyBucketCounts[i];
+            if (seen >= rank && seen > 0) {
+                return Math.min(LATENCY_BUCKET_UPPER_BOUNDS_MILLISECONDS[i], maxLatencyMilliseconds);
+            }
+        }
+        return 0;
+    }
+
+    public double getAverageLatencyMilliseconds() {
+        return requestCount == 0 ? 0 : totalLatencyMilliseconds / (double) requestCount;
+    }
+
+    public double getAveragePagesPerCall() {
+        return pagedCallCount == 0 ? 0 : pageCount / (double) pagedCallCount;
+    }
+
+    /**
+     * @return the number of response bytes compression saved transferring. Content the connection decompressed itself, as it does when response compression is off or the connection was not created by a HubServerConfig, is counted as transferred uncompressed.
+     */
+    public long getCompressionSavedBytes() {
+        return Math.max(0, responseBytes - transferredBytes);
+    }
+
+    public long getErrorCount() {
+        return errorCounts.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public long getRequestCount() {
+        return requestCount;
+    }
+
+    public long getTotalLatencyMilliseconds() {
+        return totalLatencyMilliseconds;
+    }
+
+    public long getMaxLatencyMilliseconds() {
+        return maxLatencyMilliseconds;
+    }
+
+    public long[] getLatencyBucketCounts() {
+        return Arrays.copyOf(latencyBucketCounts, latencyBucketCounts.length);
+    }
+
+    public long getResponseBytes() {
+        return responseBytes;
+    }
+
+    public long getTransferredBytes() {
+        return transferredBytes;
+    }
+
+    public long getBoundItemCount() {
+        return boundItemCount;
+    }
+
+    public long getBindNanoseconds() {
+        return bindNanoseconds;
+    }
+
+    public long getPagedCallCount() {
+        return pagedCallCount;
+    }
+
+    public long getPageCount() {
+        return pageCount;
+    }
+
+    public long getPagedItemCount() {
+        return pagedItemCount;
+    }
+
+    public Map<String, Long> getErrorCounts() {
+        return errorCounts;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: requests=%d, total=%dms, avg=%.1fms, p50<=%dms, p95<=%dms, max=%dms, bytes=%d, transferred=%d, pagedCalls=%d, pagesPerCall=%.1f, bound=%d in %dms, errors=%s", endpoint, requestCount, totalLatencyMilliseconds,
+                getAverageLatencyMilliseconds(), getLatencyPercentileMilliseconds(0.5), getLatencyPercentileMilliseconds(0.95), maxLatencyMilliseconds, responseBytes, transferredBytes, pagedCallCount, getAveragePagesPerCall(), boundItemCount,
+                TimeUnit.NANOSECONDS.toMillis(bindNanoseconds), errorCounts);
+    }
+
+}
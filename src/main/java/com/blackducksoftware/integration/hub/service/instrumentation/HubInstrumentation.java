@@ -0,0 +1,67 @@
+/**
+ * hub-common
+ *
+ * Copyright (C) 2018 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.service.instrumentation;
+
+/**
+ * Receives measurements of the requests HubService makes. Every endpoint is identified by the path of its uri, with ids replaced by {id}, so it corresponds to a HubPath or link. Implementations must be thread-safe and cheap, since they
+ * are called on the request path; every method does nothing by default.
+ */
+public interface HubInstrumentation {
+    HubInstrumentation NONE = new HubInstrumentation() {
+    };
+
+    /**
+     * @param elapsedMilliseconds The time taken to send the request and, where the response is transformed, read its content.
+     */
+    default void recordRequest(final String endpoint, final long elapsedMilliseconds) {
+    }
+
+    default void recordError(final String endpoint, final Exception e) {
+    }
+
+    /**
+     * @param bytes The size of the response content, after decompression.
+     */
+    default void recordResponseBytes(final String endpoint, final long bytes) {
+    }
+
+    /**
+     * @param bytes The number of response content bytes transferred, which is less than the size of the content when the Hub compressed it.
+     */
+    default void recordTransferredBytes(final String endpoint, final long bytes) {
+    }
+
+    /**
+     * @param elapsedNanoseconds The time spent binding json to views, excluding the time spent reading it.
+     */
+    default void recordBind(final String endpoint, final int itemCount, final long elapsedNanoseconds) {
+    }
+
+    /**
+     * Called once for each call retrieving the items of a paged endpoint. A streamed call is reported once it is exhausted or closed, with the pages and items read so far.
+     */
+    default void recordPagedCall(final String endpoint, final int pageCount, final int itemCount) {
+    }
+
+}
@@ -0,0 +1,79 @@
+/**
+ * hub-common
+ *
+ * Copyright (C) 2018 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.service.instrumentation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * The measurements of every endpoint at one point in time, ordered from the endpoint with the most total request time to the one with the least.
+ */
+public class HubInstrumentationSnapshot {
+    private final long capturedAt;
+    private final List<EndpointMetricsSnapshot> endpointSnapshots;
+
+    public HubInstrumentationSnapshot(final long capturedAt, final List<EndpointMetricsSnapshot> endpointSnapshots) {
+        this.capturedAt = capturedAt;
+        final List<EndpointMetricsSnapshot> sortedSnapshots = new ArrayList<>(endpointSnapshots);
+        sortedSnapshots.sort(Comparator.comparingLong(EndpointMetricsSnapshot::getTotalLatencyMilliseconds).reversed());
+        this.endpointSnapshots = Collections.unmodifiableList(sortedSnapshots);
+    }
+
+    public long getCapturedAt() {
+        return capturedAt;
+    }
+
+    public List<EndpointMetricsSnapshot> getEndpointSnapshots() {
+        return endpointSnapshots;
+    }
+
+    public Optional<EndpointMetricsSnapshot> getEndpointSnapshot(final String endpoint) {
+        return endpointSnapshots.stream().filter(snapshot -> snapshot.getEndpoint().equals(endpoint)).findFirst();
+    }
+
+    public long getTotalRequestCount() {
+        return endpointSnapshots.stream().mapToLong(EndpointMetricsSnapshot::getRequestCount).sum();
+    }
+
+    public long getTotalLatencyMilliseconds() {
+        return endpointSnapshots.stream().mapToLong(EndpointMetricsSnapshot::getTotalLatencyMilliseconds).sum();
+    }
+
+    /**
+     * @return one line per endpoint, suitable for logging.
+     */
+    @Override
+    public String toString() {
+        final StringBuilder stringBuilder = new StringBuilder();
+        stringBuilder.append(String.format("Hub requests: %d, total time: %dms", getTotalRequestCount(), getTotalLatencyMilliseconds()));
+        for (final EndpointMetricsSnapshot endpointSnapshot : endpointSnapshots) {
+            stringBuilder.append(System.lineSeparator()).append(endpointSnapshot);
+        }
+        return stringBuilder.toString();
+    }
+
+}
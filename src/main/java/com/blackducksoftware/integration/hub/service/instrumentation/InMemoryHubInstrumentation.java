@@ -0,0 +1,123 @@
+/**
+ * hub-common
+ *
+ * Copyright (C) 2018 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.service.instrumentation;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.blackducksoftware.integration.hub.rest.exception.IntegrationRestException;
+
+/**
+ * Keeps running totals and latency histograms per endpoint in memory. Take a snapshot to log them or expose them to a metrics system.
+ */
+public class InMemoryHubInstrumentation implements HubInstrumentation {
+    private final Map<String, EndpointMetrics> endpointMetrics = new ConcurrentHashMap<>();
+
+    @Override
+    public void recordRequest(final String endpoint, final long elapsedMilliseconds) {
+        final EndpointMetrics metrics = getEndpointMetrics(endpoint);
+        metrics.requestCount.increment();
+        metrics.totalLatencyMilliseconds.add(elapsedMilliseconds);
+        metrics.maxLatencyMilliseconds.accumulate(elapsedMilliseconds);
+        metrics.latencyBucketCounts.incrementAndGet(EndpointMetricsSnapshot.getLatencyBucket(elapsedMilliseconds));
+    }
+
+    @Override
+    public void recordError(final String endpoint, final Exception e) {
+        final String errorKey = e instanceof IntegrationRestException ? "HTTP " + ((IntegrationRestException) e).getHttpStatusCode() : e.getClass().getSimpleName();
+        getEndpointMetrics(endpoint).errorCounts.computeIfAbsent(errorKey, key -> new LongAdder()).increment();
+    }
+
+    @Override
+    public void recordResponseBytes(final String endpoint, final long bytes) {
+        getEndpointMetrics(endpoint).responseBytes.add(bytes);
+    }
+
+    @Override
+    public void recordTransferredBytes(final String endpoint, final long bytes) {
+        getEndpointMetrics(endpoint).transferredBytes.add(bytes);
+    }
+
+    @Override
+    public void recordBind(final String endpoint, final int itemCount, final long elapsedNanoseconds) {
+        final EndpointMetrics metrics = getEndpointMetrics(endpoint);
+        metrics.boundItemCount.add(itemCount);
+        metrics.bindNanoseconds.add(elapsedNanoseconds);
+    }
+
+    @Override
+    public void recordPagedCall(final String endpoint, final int pageCount, final int itemCount) {
+        final EndpointMetrics metrics = getEndpointMetrics(endpoint);
+        metrics.pagedCallCount.increment();
+        metrics.pageCount.add(pageCount);
+        metrics.pagedItemCount.add(itemCount);
+    }
+
+    public HubInstrumentationSnapshot getSnapshot() {
+        final List<EndpointMetricsSnapshot> endpointSnapshots = new ArrayList<>();
+        endpointMetrics.forEach((endpoint, metrics) -> endpointSnapshots.add(metrics.createSnapshot(endpoint)));
+        return new HubInstrumentationSnapshot(System.currentTimeMillis(), endpointSnapshots);
+    }
+
+    public void reset() {
+        endpointMetrics.clear();
+    }
+
+    private EndpointMetrics getEndpointMetrics(final String endpoint) {
+        return endpointMetrics.computeIfAbsent(endpoint, key -> new EndpointMetrics());
+    }
+
+    private static class EndpointMetrics {
+        private final LongAdder requestCount = new LongAdder();
+        private final LongAdder totalLatencyMilliseconds = new LongAdder();
+        private final LongAccumulator maxLatencyMilliseconds = new LongAccumulator(Math::max, 0);
+        private final AtomicLongArray latencyBucketCounts = new AtomicLongArray(EndpointMetricsSnapshot.LATENCY_BUCKET_UPPER_BOUNDS_MILLISECONDS.length);
+        private final LongAdder responseBytes = new LongAdder();
+        private final LongAdder transferredBytes = new LongAdder();
+        private final LongAdder boundItemCount = new LongAdder();
+        private final LongAdder bindNanoseconds = new LongAdder();
+        private final LongAdder pagedCallCount = new LongAdder();
+        private final LongAdder pageCount = new LongAdder();
+        private final LongAdder pagedItemCount = new LongAdder();
+        private final Map<String, LongAdder> errorCounts = new ConcurrentHashMap<>();
+
+        private EndpointMetricsSnapshot createSnapshot(final String endpoint) {
+            final long[] bucketCounts = new long[latencyBucketCounts.length()];
+            for (int i = 0; i < bucketCounts.length; i++) {
+                bucketCounts[i] = latencyBucketCounts.get(i);
+            }
+            final Map<String, Long> errors = new HashMap<>();
+            errorCounts.forEach((errorKey, count) -> errors.put(errorKey, count.sum()));
+            return new EndpointMetricsSnapshot(endpoint, requestCount.sum(), totalLatencyMilliseconds.sum(), maxLatencyMilliseconds.get(), bucketCounts, responseBytes.sum(), transferredBytes.sum(), boundItemCount.sum(), bindNanoseconds.sum(),
+                    pagedCallCount.sum(), pageCount.sum(), pagedItemCount.sum(), errors);
+        }
+    }
+
+}
@@ -0,0 +1,238 @@
+/**
+ * hub-common
+ *
+ * Copyright (C) 2018 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.service.model;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.blackducksoftware.integration.exception.IntegrationException;
+import com.blackducksoftware.integration.hub.exception.HubIntegrationException;
+import com.blackducksoftware.integration.hub.rest.exception.IntegrationRestException;
+
+/**
+ * Limits the number of concurrent Hub requests with an additive increase, multiplicative decrease policy. Each healthy response raises the limit by about one request per round of responses, while a 429 or 503 response, or a response much
+ * slower than the recent average of its endpoint, cuts the limit in half. The limit is cut at most once per round trip: the responses to requests sent before the last cut do not cut it again. A single instance is meant to be shared by
+ * every HubService talking to the same Hub. A hedged request cancelled by the {@link RetryPolicy} gives back its place as soon as it loses, and its outcome no longer adjusts the limit.
+ */
+public class AdaptiveConcurrencyLimiter {
+    public static final int DEFAULT_INITIAL_LIMIT = 4;
+    public static final int DEFAULT_MIN_LIMIT = 1;
+    public static final int DEFAULT_MAX_LIMIT = 64;
+    public static final long DEFAULT_MAX_HEALTHY_LATENCY_MILLISECONDS = 10000;
+    public static final double DEFAULT_LATENCY_TOLERANCE = 3.0;
+    public static final double BACKOFF_RATIO = 0.5;
+
+    private static final int TOO_MANY_REQUESTS = 429;
+    private static final int SERVICE_UNAVAILABLE = 503;
+    private static final int LATENCY_WARMUP_SAMPLES = 20;
+    private static final double LATENCY_SMOOTHING = 0.1;
+    private static final int MAX_TRACKED_ENDPOINTS = 256;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long maxHealthyLatencyMilliseconds;
+    private final double latencyTolerance;
+
+    private final Map<String, LatencyAverage> latencyAverages = new LinkedHashMap<String, LatencyAverage>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<String, LatencyAverage> eldest) {
+            return size() > MAX_TRACKED_ENDPOINTS;
+        }
+    };
+
+    private double limit;
+    private int inFlight;
+    private long sentCount;
+    private long firstSentAfterBackOff;
+    private long throttledCount;
+    private long latencySpikeCount;
+
+    public AdaptiveConcurrencyLimiter() {
+        this(DEFAULT_INITIAL_LIMIT, DEFAULT_MIN_LIMIT, DEFAULT_MAX_LIMIT, DEFAULT_MAX_HEALTHY_LATENCY_MILLISECONDS, DEFAULT_LATENCY_TOLERANCE);
+    }
+
+    /**
+     * @param maxHealthyLatencyMilliseconds A response slower than this always counts as a latency spike.
+     * @param latencyTolerance A response slower than this multiple of the average latency of its endpoint counts as a latency spike.
+     */
+    public AdaptiveConcurrencyLimiter(final int initialLimit, final int minLimit, final int maxLimit, final long maxHealthyLatencyMilliseconds, final double latencyTolerance) {
+        if (minLimit < 1 || maxLimit < minLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException(String.format("The limits must satisfy 1 <= min <= initial <= max, but were min=%d, initial=%d and max=%d", minLimit, initialLimit, maxLimit));
+        }
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.maxHealthyLatencyMilliseconds = maxHealthyLatencyMilliseconds;
+        this.latencyTolerance = latencyTolerance;
+    }
+
+    /**
+     * Runs the call once fewer requests than the current limit are in flight, and adjusts the limit from its outcome. Its latency is compared to that of the other calls made without an endpoint.
+     */
+    public <T> T execute(final LimitedCall<T> call) throws IntegrationException {
+        return execute("", call);
+    }
+
+    /**
+     * Runs the call once fewer requests than the current limit are in flight, and adjusts the limit from its outcome.
+     * @param endpoint The endpoint requested by the call, as returned by {@link HubEndpoint#getEndpointKey(String)}, so its latency is only compared to that of other requests to the same endpoint.
+     */
+    public <T> T execute(final String endpoint, final LimitedCall<T> call) throws IntegrationException {
+        final Permit permit = acquire();
+        RetryPolicy.onCancel(() -> cancel(permit));
+        final long start = System.nanoTime();
+        boolean throttled = false;
+        try {
+            return call.call();
+        } catch (final IntegrationRestException e) {
+            throttled = TOO_MANY_REQUESTS == e.getHttpStatusCode() || SERVICE_UNAVAILABLE == e.getHttpStatusCode();
+            throw e;
+        } finally {
+            release(endpoint, permit, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), throttled);
+        }
+    }
+
+    private synchronized Permit acquire() throws IntegrationException {
+        try {
+            while (inFlight >= getLimit()) {
+                wait();
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new HubIntegrationException("Interrupted while waiting to send a request to the Hub", e);
+        }
+        inFlight++;
+        return new Permit(sentCount++);
+    }
+
+    private synchronized void cancel(final Permit permit) {
+        if (!permit.released) {
+            permit.released = true;
+            inFlight--;
+            notifyAll();
+        }
+    }
+
+    private synchronized void release(final String endpoint, final Permit permit, final long elapsedMilliseconds, final boolean throttled) {
+        if (permit.released) {
+            return;
+        }
+        permit.released = true;
+        final LatencyAverage latencyAverage = latencyAverages.computeIfAbsent(endpoint, key -> new LatencyAverage());
+        inFlight--;
+        if (throttled) {
+            throttledCount++;
+            backOff(permit.sequenceNumber);
+        } else if (isLatencySpike(latencyAverage, elapsedMilliseconds)) {
+            latencySpikeCount++;
+            backOff(permit.sequenceNumber);
+        } else if (inFlight + 1 >= getLimit() / 2) {
+            // only grow while the limit is actually being used, otherwise it would climb without ever being tested
+            limit = Math.min(maxLimit, limit + 1.0 / limit);
+        }
+        if (!throttled) {
+            latencyAverage.add(elapsedMilliseconds);
+        }
+        notifyAll();
+    }
+
+    private boolean isLatencySpike(final LatencyAverage latencyAverage, final long elapsedMilliseconds) {
+        if (elapsedMilliseconds > maxHealthyLatencyMilliseconds) {
+            return true;
+        }
+        return latencyAverage.sampleCount >= LATENCY_WARMUP_SAMPLES && elapsedMilliseconds > latencyAverage.averageMilliseconds * latencyTolerance;
+    }
+
+    private void backOff(final long sequenceNumber) {
+        // a request sent before the last back off was sent under the old limit, so its outcome is already accounted for
+        if (sequenceNumber >= firstSentAfterBackOff) {
+            limit = Math.max(minLimit, Math.floor(limit * BACKOFF_RATIO));
+            firstSentAfterBackOff = sentCount;
+        }
+    }
+
+    /**
+     * @return the number of requests currently allowed in flight.
+     */
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    public synchronized long getThrottledCount() {
+        return throttledCount;
+    }
+
+    public synchronized long getLatencySpikeCount() {
+        return latencySpikeCount;
+    }
+
+    /**
+     * @return the recent average latency of the endpoint, or 0 if none of its requests have been measured.
+     */
+    public synchronized double getAverageLatencyMilliseconds(final String endpoint) {
+        final LatencyAverage latencyAverage = latencyAverages.get(endpoint);
+        return latencyAverage != null ? latencyAverage.averageMilliseconds : 0;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("limit=%d, inFlight=%d, throttled=%d, latencySpikes=%d, endpoints=%d", getLimit(), inFlight, throttledCount, latencySpikeCount, latencyAverages.size());
+    }
+
+    @FunctionalInterface
+    public interface LimitedCall<T> {
+        T call() throws IntegrationException;
+    }
+
+    private static class Permit {
+        private final long sequenceNumber;
+        private boolean released;
+
+        public Permit(final long sequenceNumber) {
+            this.sequenceNumber = sequenceNumber;
+        }
+    }
+
+    private static class LatencyAverage {
+        private double averageMilliseconds;
+        private long sampleCount;
+
+        public void add(final long elapsedMilliseconds) {
+            if (sampleCount == 0) {
+                averageMilliseconds = elapsedMilliseconds;
+            } else {
+                averageMilliseconds += LATENCY_SMOOTHING * (elapsedMilliseconds - averageMilliseconds);
+            }
+            sampleCount++;
+        }
+    }
+
+}
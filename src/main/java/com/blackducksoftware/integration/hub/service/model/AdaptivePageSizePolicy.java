@@ -0,0 +1,114 @@
+/**
+ * hub-common
+ *
+ * Copyright (C) 2018 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.service.model;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tunes the limit used when paging through all the items of an endpoint. After each page, the measured round trip time and response size are used to estimate the page size that would stay within the target latency and response size,
+ * and the limit for the next page moves toward that estimate. The tuned limit is remembered per endpoint (the path of the uri, with any ids replaced) for as long as this policy is in use.
+ */
+public class AdaptivePageSizePolicy {
+    public static final int DEFAULT_MIN_PAGE_SIZE = 25;
+    public static final int DEFAULT_MAX_PAGE_SIZE = 1000;
+    public static final long DEFAULT_TARGET_LATENCY_MILLISECONDS = 2000;
+    public static final long DEFAULT_TARGET_RESPONSE_BYTES = 4 * 1024 * 1024;
+
+    private final int minPageSize;
+    private final int maxPageSize;
+    private final long targetLatencyMilliseconds;
+    private final long targetResponseBytes;
+    private final Map<String, Integer> pageSizes = new ConcurrentHashMap<>();
+
+    public AdaptivePageSizePolicy() {
+        this(DEFAULT_MIN_PAGE_SIZE, DEFAULT_MAX_PAGE_SIZE, DEFAULT_TARGET_LATENCY_MILLISECONDS, DEFAULT_TARGET_RESPONSE_BYTES);
+    }
+
+    public AdaptivePageSizePolicy(final int minPageSize, final int maxPageSize, final long targetLatencyMilliseconds, final long targetResponseBytes) {
+        if (minPageSize < 1 || maxPageSize < minPageSize) {
+            throw new IllegalArgumentException(String.format("The page size bounds must satisfy 1 <= min <= max, but were min=%d and max=%d", minPageSize, maxPageSize));
+        }
+        this.minPageSize = minPageSize;
+        this.maxPageSize = maxPageSize;
+        this.targetLatencyMilliseconds = targetLatencyMilliseconds;
+        this.targetResponseBytes = targetResponseBytes;
+    }
+
+    /**
+     * @return the tuned page size for the endpoint of the uri, or the requested page size (within the bounds) if nothing has been measured for that endpoint yet.
+     */
+    public int getPageSize(final String uri, final int requestedPageSize) {
+        final Integer tunedPageSize = pageSizes.get(getEndpointKey(uri));
+        if (tunedPageSize != null) {
+            return tunedPageSize;
+        }
+        return bound(requestedPageSize);
+    }
+
+    public void recordPage(final String uri, final int pageSize, final int itemCount, final long elapsedMilliseconds, final long responseBytes) {
+        if (itemCount <= 0 || pageSize <= 0) {
+            // nothing can be learned about the cost of an item from an empty page
+            return;
+        }
+        final double millisecondsPerItem = Math.max(1L, elapsedMilliseconds) / (double) itemCount;
+        final double bytesPerItem = Math.max(1L, responseBytes) / (double) itemCount;
+        final long pageSizeForLatency = (long) (targetLatencyMilliseconds / millisecondsPerItem);
+        final long pageSizeForBytes = (long) (targetResponseBytes / bytesPerItem);
+        final long estimatedPageSize = Math.min(pageSizeForLatency, pageSizeForBytes);
+
+        // move halfway toward the estimate, never more than doubling at once, so a single fast page can not swing the size too far
+        final long nextPageSize = Math.min(pageSize * 2L, (pageSize + estimatedPageSize) / 2);
+        pageSizes.put(getEndpointKey(uri), bound(nextPageSize));
+    }
+
+    public Map<String, Integer> getPageSizes() {
+        return pageSizes;
+    }
+
+    public int getMinPageSize() {
+        return minPageSize;
+    }
+
+    public int getMaxPageSize() {
+        return maxPageSize;
+    }
+
+    public long getTargetLatencyMilliseconds() {
+        return targetLatencyMilliseconds;
+    }
+
+    public long getTargetResponseBytes() {
+        return targetResponseBytes;
+    }
+
+    public String getEndpointKey(final String uri) {
+        return HubEndpoint.getEndpointKey(uri);
+    }
+
+    private int bound(final long pageSize) {
+        return (int) Math.max(minPageSize, Math.min(maxPageSize, pageSize));
+    }
+
+}
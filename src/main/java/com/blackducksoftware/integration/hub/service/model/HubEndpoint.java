@@ -0,0 +1,51 @@
+/**
+ * hub-common
+ *
+ * Copyright (C) 2018 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.service.model;
+
+import java.net.URI;
+import java.util.regex.Pattern;
+
+public final class HubEndpoint {
+    private static final Pattern ID_SEGMENT = Pattern.compile("/[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}(?=/|$)");
+
+    private HubEndpoint() {
+    }
+
+    /**
+     * @return the path of the uri with every id segment replaced by {id}, so requests for different items of the same endpoint share a key.
+     */
+    public static String getEndpointKey(final String uri) {
+        String path = uri;
+        try {
+            final String uriPath = new URI(uri).getPath();
+            if (uriPath != null) {
+                path = uriPath;
+            }
+        } catch (final Exception e) {
+            // not a valid uri, so the uri as a whole is the best key we have
+        }
+        return ID_SEGMENT.matcher(path).replaceAll("/{id}");
+    }
+
+}
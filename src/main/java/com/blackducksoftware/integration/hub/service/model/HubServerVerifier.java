@@ -34,6 +34,7 @@ import com.blackducksoftware.integration.hub.exception.HubIntegrationException;
 import com.blackducksoftware.integration.hub.proxy.ProxyInfo;
 import com.blackducksoftware.integration.hub.request.Request;
 import com.blackducksoftware.integration.hub.request.Response;
+import com.blackducksoftware.integration.hub.rest.RestConnection;
 import com.blackducksoftware.integration.hub.rest.UnauthenticatedRestConnection;
 import com.blackducksoftware.integration.hub.rest.UnauthenticatedRestConnectionBuilder;
 import com.blackducksoftware.integration.hub.rest.UriCombiner;
@@ -59,7 +60,13 @@ public class HubServerVerifier {
             connectionBuilder.applyProxyInfo(hubProxyInfo);
         }
         final UnauthenticatedRestConnection restConnection = connectionBuilder.build();
+        verifyIsHubServer(hubURL, restConnection);
+    }
 
+    /**
+     * Verifies the url through a connection that is already open, such as a shared one, rather than opening another just for the check.
+     */
+    public void verifyIsHubServer(final URL hubURL, final RestConnection restConnection) throws IntegrationException {
         try {
             Request request = new Request.Builder(hubURL.toURI().toString()).build();
             try (Response response = restConnection.executeRequest(request)) {
@@ -32,6 +32,9 @@ import com.blackducksoftware.integration.hub.request.Request;
 import com.blackducksoftware.integration.hub.rest.HttpMethod;
 
 public class RequestFactory {
+    public static final String ACCEPT_ENCODING_HEADER = "Accept-Encoding";
+    public static final String COMPRESSED_ENCODINGS = "gzip, deflate";
+
     public static Request.Builder createCommonGetRequestBuilder(final String uri) {
         final Map<String, String> queryParameters = new HashMap<>();
         queryParameters.put("offset", String.valueOf(0));
@@ -50,6 +53,27 @@ public class RequestFactory {
         return createCommonGetRequestBuilder(uri).build();
     }
 
+    /**
+     * Asks the Hub to compress the response of the request, unless the request already specifies the encodings it accepts, and marks the request so that a connection created by a HubServerConfig leaves the decoding of the content
+     * to {@link ResponseContent}. Only use this for requests whose response is read through {@link ResponseContent}.
+     */
+    public static Request acceptCompressedResponse(final Request request) {
+        final Request requestWithHeaders = withAdditionalHeaders(request);
+        requestWithHeaders.getAdditionalHeaders().putIfAbsent(ACCEPT_ENCODING_HEADER, COMPRESSED_ENCODINGS);
+        requestWithHeaders.getAdditionalHeaders().put(ResponseContentInterceptor.DECODED_BY_CALLER_HEADER, Boolean.TRUE.toString());
+        return requestWithHeaders;
+    }
+
+    /**
+     * @return the GET request itself if it has a map of additional headers, or a copy of it with an empty one, so headers can be added to it.
+     */
+    public static Request withAdditionalHeaders(final Request request) {
+        if (request.getAdditionalHeaders() != null) {
+            return request;
+        }
+        return new Request.Builder(request.getUri()).queryParameters(request.getQueryParameters()).mimeType(request.getMimeType()).method(request.getMethod()).additionalHeaders(new HashMap<>()).build();
+    }
+
     public static Request.Builder createCommonPostRequestBuilder(final File bodyContentFile) {
         return new Request.Builder().method(HttpMethod.POST).bodyContent(new BodyContent(bodyContentFile));
     }
@@ -0,0 +1,102 @@
+/**
+ * hub-common
+ *
+ * Copyright (C) 2018 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.service.model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.CountingInputStream;
+import org.apache.commons.lang3.StringUtils;
+
+import com.blackducksoftware.integration.exception.IntegrationException;
+import com.blackducksoftware.integration.hub.request.Response;
+
+/**
+ * The content of a response, decompressed if the Hub sent it gzip or deflate encoded. Counts both the bytes transferred and the bytes read after decompression. If the connection already decompressed the content, it no longer has a
+ * Content-Encoding and is read as is. A connection created by a HubServerConfig leaves the content of the requests marked by {@link RequestFactory#acceptCompressedResponse(com.blackducksoftware.integration.hub.request.Request)} encoded.
+ */
+public class ResponseContent implements Closeable {
+    public static final String CONTENT_ENCODING_HEADER = "Content-Encoding";
+
+    private final CountingInputStream transferredStream;
+    private final CountingInputStream decodedStream;
+    private final boolean compressed;
+
+    public ResponseContent(final Response response) throws IntegrationException, IOException {
+        this(response.getContent(), response.getHeaderValue(CONTENT_ENCODING_HEADER));
+    }
+
+    public ResponseContent(final InputStream content, final String contentEncoding) throws IOException {
+        transferredStream = new CountingInputStream(content);
+        final String encoding = StringUtils.trimToEmpty(contentEncoding).toLowerCase(Locale.ENGLISH);
+        if ("gzip".equals(encoding) || "x-gzip".equals(encoding)) {
+            decodedStream = new CountingInputStream(new GZIPInputStream(transferredStream));
+            compressed = true;
+        } else if ("deflate".equals(encoding)) {
+            decodedStream = new CountingInputStream(new InflaterInputStream(transferredStream));
+            compressed = true;
+        } else {
+            decodedStream = transferredStream;
+            compressed = false;
+        }
+    }
+
+    public InputStream getInputStream() {
+        return decodedStream;
+    }
+
+    public String getContentString() throws IOException {
+        return IOUtils.toString(decodedStream, StandardCharsets.UTF_8);
+    }
+
+    public boolean isCompressed() {
+        return compressed;
+    }
+
+    /**
+     * @return the number of bytes read from the connection so far, before decompression.
+     */
+    public long getTransferredByteCount() {
+        return transferredStream.getByteCount();
+    }
+
+    /**
+     * @return the number of bytes of content read so far, after decompression.
+     */
+    public long getByteCount() {
+        return decodedStream.getByteCount();
+    }
+
+    @Override
+    public void close() throws IOException {
+        decodedStream.close();
+    }
+
+}
@@ -0,0 +1,53 @@
+/**
+ * hub-common
+ *
+ * Copyright (C) 2018 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.service.model;
+
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpRequestInterceptor;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.protocol.HttpContext;
+
+/**
+ * Turns off the content compression of the client for the requests marked by {@link RequestFactory#acceptCompressedResponse(com.blackducksoftware.integration.hub.request.Request)}, whose content is decoded by {@link ResponseContent}
+ * instead, so the bytes transferred can be counted before decompression. Every other request keeps the content compression of the client.
+ */
+public class ResponseContentInterceptor implements HttpRequestInterceptor {
+    public static final String DECODED_BY_CALLER_HEADER = "X-Hub-Decoded-By-Caller";
+
+    public static void applyTo(final HttpClientBuilder clientBuilder) {
+        clientBuilder.addInterceptorFirst(new ResponseContentInterceptor());
+    }
+
+    @Override
+    public void process(final HttpRequest request, final HttpContext context) {
+        if (request.containsHeader(DECODED_BY_CALLER_HEADER)) {
+            request.removeHeaders(DECODED_BY_CALLER_HEADER);
+            final HttpClientContext clientContext = HttpClientContext.adapt(context);
+            clientContext.setRequestConfig(RequestConfig.copy(clientContext.getRequestConfig()).setContentCompressionEnabled(false).build());
+        }
+    }
+
+}
@@ -0,0 +1,396 @@
+/**
+ * hub-common
+ *
+ * Copyright (C) 2018 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.service.model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.blackducksoftware.integration.exception.IntegrationException;
+import com.blackducksoftware.integration.hub.exception.HubIntegrationException;
+import com.blackducksoftware.integration.hub.rest.exception.IntegrationRestException;
+
+/**
+ * Retries idempotent GETs that fail with a transient error: a 429, 502, 503 or 504 response, or an I/O failure. Each retry waits for an exponentially growing backoff with full jitter, and retries are drawn from a budget that successful
+ * requests slowly refill, so a Hub that is down is not hit with a multiple of the normal load. When hedging is enabled, a request still running after the 95th percentile latency of its endpoint is duplicated, and the first response
+ * wins. A hedge is never sent sooner than {@value #MIN_HEDGE_DELAY_MILLISECONDS}ms after the first request, and at most maxHedgingThreads hedged requests run at once; beyond that requests run on the calling thread without a hedge.
+ * The losing request is cancelled, which runs the actions it registered with {@link #onCancel(Runnable)}, such as giving back its place under a concurrency limit, even while it is still blocked reading a response nobody waits for.
+ * A single instance is meant to be shared by every HubService talking to the same Hub; close it to stop its hedging threads early, as they otherwise exit once idle.
+ */
+public class RetryPolicy implements Closeable {
+    public static final int DEFAULT_MAX_ATTEMPTS = 3;
+    public static final long DEFAULT_INITIAL_BACKOFF_MILLISECONDS = 500;
+    public static final long DEFAULT_MAX_BACKOFF_MILLISECONDS = 10000;
+    public static final double DEFAULT_RETRY_BUDGET_RATIO = 0.1;
+    public static final int DEFAULT_MAX_RETRY_TOKENS = 10;
+    public static final int DEFAULT_MAX_HEDGING_THREADS = 16;
+    public static final long MIN_HEDGE_DELAY_MILLISECONDS = 50;
+    public static final long HEDGING_THREAD_KEEP_ALIVE_SECONDS = 30;
+
+    private static final List<Integer> RETRYABLE_STATUS_CODES = Arrays.asList(429, 502, 503, 504);
+    private static final int LATENCY_WINDOW_SIZE = 100;
+    private static final int MIN_LATENCY_SAMPLES_FOR_HEDGING = 20;
+    private static final ThreadLocal<HedgedAttempt> CURRENT_HEDGED_ATTEMPT = new ThreadLocal<>();
+
+    private final int maxAttempts;
+    private final long initialBackoffMilliseconds;
+    private final long maxBackoffMilliseconds;
+    private final double retryBudgetRatio;
+    private final int maxRetryTokens;
+    private final boolean hedgingEnabled;
+    private final int maxHedgingThreads;
+
+    private final Map<String, LatencyWindow> latencyWindows = new ConcurrentHashMap<>();
+    private final AtomicLong retryCount = new AtomicLong();
+    private final AtomicLong budgetExhaustedCount = new AtomicLong();
+    private final AtomicLong hedgeCount = new AtomicLong();
+    private double retryTokens;
+    private ExecutorService hedgingExecutorService;
+
+    public RetryPolicy() {
+        this(DEFAULT_MAX_ATTEMPTS, DEFAULT_INITIAL_BACKOFF_MILLISECONDS, DEFAULT_MAX_BACKOFF_MILLISECONDS, DEFAULT_RETRY_BUDGET_RATIO, DEFAULT_MAX_RETRY_TOKENS, false);
+    }
+
+    /**
+     * @param maxAttempts The maximum number of times a request is sent, including the first.
+     * @param retryBudgetRatio The fraction of a retry earned by each successful request. A retry spends a whole one, and at most maxRetryTokens can be saved up.
+     * @param hedgingEnabled When true, a request slower than the 95th percentile latency of its endpoint is sent a second time.
+     */
+    public RetryPolicy(final int maxAttempts, final long initialBackoffMilliseconds, final long maxBackoffMilliseconds, final double retryBudgetRatio, final int maxRetryTokens, final boolean hedgingEnabled) {
+        this(maxAttempts, initialBackoffMilliseconds, maxBackoffMilliseconds, retryBudgetRatio, maxRetryTokens, hedgingEnabled, DEFAULT_MAX_HEDGING_THREADS);
+    }
+
+    /**
+     * @param maxHedgingThreads The maximum number of threads running hedged requests, both the first request and its hedge, at once.
+     */
+    public RetryPolicy(final int maxAttempts, final long initialBackoffMilliseconds, final long maxBackoffMilliseconds, final double retryBudgetRatio, final int maxRetryTokens, final boolean hedgingEnabled, final int maxHedgingThreads) {
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.initialBackoffMilliseconds = initialBackoffMilliseconds;
+        this.maxBackoffMilliseconds = maxBackoffMilliseconds;
+        this.retryBudgetRatio = retryBudgetRatio;
+        this.maxRetryTokens = maxRetryTokens;
+        this.hedgingEnabled = hedgingEnabled;
+        this.maxHedgingThreads = Math.max(1, maxHedgingThreads);
+        this.retryTokens = maxRetryTokens;
+    }
+
+    /**
+     * Runs the call, retrying it while it fails with a transient error and attempts and budget remain. The call must be safe to repeat, and when hedging is enabled, to run twice concurrently.
+     * @param uri The uri requested by the call, used to track the latency of its endpoint.
+     */
+    public <T> T execute(final String uri, final IdempotentCall<T> call) throws IntegrationException {
+        int attempt = 1;
+        while (true) {
+            try {
+                final T result = hedgingEnabled ? executeHedged(uri, call) : executeTimed(uri, call);
+                depositRetryToken();
+                return result;
+            } catch (final IntegrationException e) {
+                if (attempt >= maxAttempts || !isRetryable(e)) {
+                    throw e;
+                }
+                if (!withdrawRetryToken()) {
+                    budgetExhaustedCount.incrementAndGet();
+                    throw e;
+                }
+                sleep(getBackoffMilliseconds(attempt), e);
+                retryCount.incrementAndGet();
+                attempt++;
+            }
+        }
+    }
+
+    /**
+     * Registers an action to run if the hedged request running on the current thread loses to the other request and is cancelled. Does nothing when the current thread is not running a hedged request.
+     */
+    public static void onCancel(final Runnable action) {
+        final HedgedAttempt hedgedAttempt = CURRENT_HEDGED_ATTEMPT.get();
+        if (hedgedAttempt != null) {
+            hedgedAttempt.onCancel(action);
+        }
+    }
+
+    public boolean isRetryable(final IntegrationException e) {
+        if (e instanceof IntegrationRestException) {
+            return RETRYABLE_STATUS_CODES.contains(((IntegrationRestException) e).getHttpStatusCode());
+        }
+        return e.getCause() instanceof IOException;
+    }
+
+    /**
+     * @return a random backoff between 0 and the exponential backoff for the attempt that just failed, so concurrent callers do not retry in lockstep.
+     */
+    public long getBackoffMilliseconds(final int failedAttempt) {
+        final double exponentialBackoff = initialBackoffMilliseconds * Math.pow(2, failedAttempt - 1);
+        final long cappedBackoff = (long) Math.min(maxBackoffMilliseconds, exponentialBackoff);
+        return ThreadLocalRandom.current().nextLong(cappedBackoff + 1);
+    }
+
+    /**
+     * @return the 95th percentile latency of the endpoint of the uri, but no less than {@value #MIN_HEDGE_DELAY_MILLISECONDS}ms, or -1 if too few of its requests have been measured.
+     */
+    public long getHedgeDelayMilliseconds(final String uri) {
+        final LatencyWindow latencyWindow = latencyWindows.get(HubEndpoint.getEndpointKey(uri));
+        if (latencyWindow == null) {
+            return -1;
+        }
+        final long percentileLatency = latencyWindow.getPercentile(0.95, MIN_LATENCY_SAMPLES_FOR_HEDGING);
+        if (percentileLatency < 0) {
+            return -1;
+        }
+        // an endpoint answering in a few milliseconds would otherwise be hedged on every hiccup, doubling its load
+        return Math.max(MIN_HEDGE_DELAY_MILLISECONDS, percentileLatency);
+    }
+
+    private <T> T executeTimed(final String uri, final IdempotentCall<T> call) throws IntegrationException {
+        final long start = System.nanoTime();
+        final T result = call.call();
+        if (hedgingEnabled) {
+            latencyWindows.computeIfAbsent(HubEndpoint.getEndpointKey(uri), key -> new LatencyWindow()).add(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
+        return result;
+    }
+
+    private <T> T executeHedged(final String uri, final IdempotentCall<T> call) throws IntegrationException {
+        final long hedgeDelay = getHedgeDelayMilliseconds(uri);
+        if (hedgeDelay < 0) {
+            return executeTimed(uri, call);
+        }
+
+        final CompletionService<T> completionService = new ExecutorCompletionService<>(getHedgingExecutorService());
+        final List<Future<T>> futures = new ArrayList<>(2);
+        final List<HedgedAttempt> hedgedAttempts = new ArrayList<>(2);
+        try {
+            futures.add(submitHedgedAttempt(completionService, hedgedAttempts, uri, call));
+        } catch (final RejectedExecutionException e) {
+            // every hedging thread is busy
+            return executeTimed(uri, call);
+        }
+        try {
+            Future<T> firstDone = completionService.poll(hedgeDelay, TimeUnit.MILLISECONDS);
+            if (firstDone == null) {
+                try {
+                    futures.add(submitHedgedAttempt(completionService, hedgedAttempts, uri, call));
+                    hedgeCount.incrementAndGet();
+                } catch (final RejectedExecutionException e) {
+                    // every hedging thread is busy, so the first request is left to finish on its own
+                }
+                firstDone = completionService.take();
+            }
+            try {
+                return firstDone.get();
+            } catch (final ExecutionException e) {
+                if (futures.size() == 1) {
+                    throw unwrap(e);
+                }
+                // the other request may still succeed
+                try {
+                    return completionService.take().get();
+                } catch (final ExecutionException secondException) {
+                    throw unwrap(secondException);
+                }
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new HubIntegrationException("Interrupted while waiting for a response from " + uri, e);
+        } finally {
+            for (int i = 0; i < futures.size(); i++) {
+                // an interrupt does not stop a blocking socket read, so the request gives back what it holds right away
+                if (futures.get(i).cancel(true)) {
+                    hedgedAttempts.get(i).cancel();
+                }
+            }
+        }
+    }
+
+    private <T> Future<T> submitHedgedAttempt(final CompletionService<T> completionService, final List<HedgedAttempt> hedgedAttempts, final String uri, final IdempotentCall<T> call) {
+        final HedgedAttempt hedgedAttempt = new HedgedAttempt();
+        final Future<T> future = completionService.submit(() -> {
+            CURRENT_HEDGED_ATTEMPT.set(hedgedAttempt);
+            try {
+                return executeTimed(uri, call);
+            } finally {
+                CURRENT_HEDGED_ATTEMPT.remove();
+            }
+        });
+        hedgedAttempts.add(hedgedAttempt);
+        return future;
+    }
+
+    /**
+     * Returns the IntegrationException that failed a hedged request, and rethrows any other exception as is, just as when the request runs on the calling thread.
+     */
+    private IntegrationException unwrap(final ExecutionException e) {
+        if (e.getCause() instanceof IntegrationException) {
+            return (IntegrationException) e.getCause();
+        }
+        if (e.getCause() instanceof RuntimeException) {
+            throw (RuntimeException) e.getCause();
+        }
+        if (e.getCause() instanceof Error) {
+            throw (Error) e.getCause();
+        }
+        return new HubIntegrationException(e.getCause().getMessage(), e.getCause());
+    }
+
+    private synchronized ExecutorService getHedgingExecutorService() {
+        if (hedgingExecutorService == null) {
+            // no queue: a request either gets a thread right away or is not hedged
+            hedgingExecutorService = new ThreadPoolExecutor(0, maxHedgingThreads, HEDGING_THREAD_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new SynchronousQueue<>(), runnable -> {
+                final Thread thread = Executors.defaultThreadFactory().newThread(runnable);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return hedgingExecutorService;
+    }
+
+    /**
+     * Stops the hedging threads once they have finished their current requests. They are started again if a request is hedged afterwards.
+     */
+    @Override
+    public synchronized void close() {
+        if (hedgingExecutorService != null) {
+            hedgingExecutorService.shutdown();
+            hedgingExecutorService = null;
+        }
+    }
+
+    private void sleep(final long milliseconds, final IntegrationException failure) throws IntegrationException {
+        try {
+            Thread.sleep(milliseconds);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw failure;
+        }
+    }
+
+    private synchronized void depositRetryToken() {
+        retryTokens = Math.min(maxRetryTokens, retryTokens + retryBudgetRatio);
+    }
+
+    private synchronized boolean withdrawRetryToken() {
+        if (retryTokens < 1) {
+            return false;
+        }
+        retryTokens--;
+        return true;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public boolean isHedgingEnabled() {
+        return hedgingEnabled;
+    }
+
+    public int getMaxHedgingThreads() {
+        return maxHedgingThreads;
+    }
+
+    public long getRetryCount() {
+        return retryCount.get();
+    }
+
+    public long getBudgetExhaustedCount() {
+        return budgetExhaustedCount.get();
+    }
+
+    public long getHedgeCount() {
+        return hedgeCount.get();
+    }
+
+    public synchronized double getRetryTokens() {
+        return retryTokens;
+    }
+
+    @FunctionalInterface
+    public interface IdempotentCall<T> {
+        T call() throws IntegrationException;
+    }
+
+    private static class HedgedAttempt {
+        private final List<Runnable> cancelActions = new ArrayList<>(1);
+        private boolean cancelled;
+
+        public void onCancel(final Runnable action) {
+            synchronized (this) {
+                if (!cancelled) {
+                    cancelActions.add(action);
+                    return;
+                }
+            }
+            action.run();
+        }
+
+        public void cancel() {
+            final List<Runnable> actions;
+            synchronized (this) {
+                cancelled = true;
+                actions = new ArrayList<>(cancelActions);
+                cancelActions.clear();
+            }
+            actions.forEach(Runnable::run);
+        }
+    }
+
+    private static class LatencyWindow {
+        private final long[] latencies = new long[LATENCY_WINDOW_SIZE];
+        private int count;
+        private int next;
+
+        public synchronized void add(final long latencyMilliseconds) {
+            latencies[next] = latencyMilliseconds;
+            next = (next + 1) % latencies.length;
+            count = Math.min(count + 1, latencies.length);
+        }
+
+        public synchronized long getPercentile(final double percentile, final int minSamples) {
+            if (count < minSamples) {
+                return -1;
+            }
+            final long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            return sorted[(int) Math.min(count - 1, Math.ceil(percentile * count) - 1)];
+        }
+    }
+
+}
@@ -0,0 +1,245 @@
+/**
+ * hub-common
+ *
+ * Copyright (C) 2018 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.service.model;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+import com.blackducksoftware.integration.hub.api.core.HubResponse;
+import com.google.gson.Gson;
+
+/**
+ * A read-only list of responses that keeps at most a fixed number of them in memory. The rest are spilled to a temporary file as their json, and read back through a memory mapping of it whenever they are requested. Items read back are
+ * bound again, so a spilled item is equal to, but not the same object as, the one that was added.
+ *
+ * The temporary file is deleted when the list is closed.
+ */
+public class SpillingResponseList<T extends HubResponse> extends AbstractList<T> implements RandomAccess, Closeable {
+    public static final int DEFAULT_MAX_ITEMS_IN_MEMORY = 10000;
+
+    private static final int RECORD_HEADER_BYTES = Integer.BYTES + Short.BYTES + 1;
+    private static final int WRITE_BUFFER_BYTES = 64 * 1024;
+    private static final long MAPPED_REGION_BYTES = 64 * 1024 * 1024;
+
+    private final Gson gson;
+    private final File directory;
+    private final int maxItemsInMemory;
+    private final List<T> itemsInMemory = new ArrayList<>();
+    private final List<Class<? extends T>> spilledClasses = new ArrayList<>();
+
+    private long[] spilledOffsets = new long[1024];
+    private int spilledCount;
+    private File spillFile;
+    private FileChannel spillChannel;
+    private ByteBuffer writeBuffer;
+    private long writtenBytes;
+    private MappedByteBuffer mappedRegion;
+    private long mappedRegionStart;
+    private boolean closed;
+
+    public SpillingResponseList(final Gson gson) {
+        this(gson, DEFAULT_MAX_ITEMS_IN_MEMORY, null);
+    }
+
+    /**
+     * @param directory Where to create the temporary file, or null for the default temporary directory.
+     */
+    public SpillingResponseList(final Gson gson, final int maxItemsInMemory, final File directory) {
+        this.gson = gson;
+        this.maxItemsInMemory = Math.max(0, maxItemsInMemory);
+        this.directory = directory;
+    }
+
+    /**
+     * Appends the response, spilling it to disk once the list holds the maximum number of items in memory.
+     */
+    public synchronized void append(final T item) {
+        assertOpen();
+        if (itemsInMemory.size() < maxItemsInMemory) {
+            itemsInMemory.add(item);
+            return;
+        }
+        try {
+            spill(item);
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Could not spill a response to " + spillFile, e);
+        }
+    }
+
+    @Override
+    public T get(final int index) {
+        final Class<? extends T> itemClass;
+        final byte[] json;
+        final boolean retainJson;
+        synchronized (this) {
+            assertOpen();
+            if (index < 0 || index >= size()) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+            }
+            if (index < itemsInMemory.size()) {
+                return itemsInMemory.get(index);
+            }
+            final int spilledIndex = index - itemsInMemory.size();
+            try {
+                final ByteBuffer record = readRecord(spilledOffsets[spilledIndex]);
+                json = new byte[record.getInt()];
+                itemClass = spilledClasses.get(record.getShort());
+                retainJson = record.get() != 0;
+                record.get(json);
+            } catch (final IOException e) {
+                throw new UncheckedIOException("Could not read a spilled response from " + spillFile, e);
+            }
+        }
+
+        // binding is the expensive part, so it is done outside the lock
+        final String jsonString = new String(json, StandardCharsets.UTF_8);
+        final T item = gson.fromJson(jsonString, itemClass);
+        if (retainJson) {
+            item.json = jsonString;
+        }
+        return item;
+    }
+
+    @Override
+    public synchronized int size() {
+        return itemsInMemory.size() + spilledCount;
+    }
+
+    public synchronized int getSpilledCount() {
+        return spilledCount;
+    }
+
+    public synchronized long getSpilledBytes() {
+        return writeBuffer != null ? writtenBytes + writeBuffer.position() : writtenBytes;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        itemsInMemory.clear();
+        mappedRegion = null;
+        writeBuffer = null;
+        if (spillChannel != null) {
+            try {
+                spillChannel.close();
+            } finally {
+                Files.deleteIfExists(spillFile.toPath());
+            }
+        }
+    }
+
+    private void spill(final T item) throws IOException {
+        if (spillChannel == null) {
+            spillFile = File.createTempFile("hub-responses", ".spill", directory);
+            spillFile.deleteOnExit();
+            spillChannel = FileChannel.open(spillFile.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+            writeBuffer = ByteBuffer.allocate(WRITE_BUFFER_BYTES);
+        }
+
+        final boolean retainJson = item.json != null;
+        final byte[] json = (retainJson ? item.json : gson.toJson(item)).getBytes(StandardCharsets.UTF_8);
+        final int recordLength = RECORD_HEADER_BYTES + json.length;
+        if (writeBuffer.remaining() < recordLength) {
+            flushWriteBuffer();
+            if (writeBuffer.capacity() < recordLength) {
+                writeBuffer = ByteBuffer.allocate(recordLength);
+            }
+        }
+
+        if (spilledCount == spilledOffsets.length) {
+            spilledOffsets = Arrays.copyOf(spilledOffsets, spilledOffsets.length * 2);
+        }
+        spilledOffsets[spilledCount++] = writtenBytes + writeBuffer.position();
+        writeBuffer.putInt(json.length);
+        writeBuffer.putShort(getClassIndex(item));
+        writeBuffer.put((byte) (retainJson ? 1 : 0));
+        writeBuffer.put(json);
+    }
+
+    @SuppressWarnings("unchecked")
+    private short getClassIndex(final T item) {
+        final Class<? extends T> itemClass = (Class<? extends T>) item.getClass();
+        int classIndex = spilledClasses.indexOf(itemClass);
+        if (classIndex < 0) {
+            classIndex = spilledClasses.size();
+            spilledClasses.add(itemClass);
+        }
+        return (short) classIndex;
+    }
+
+    private void flushWriteBuffer() throws IOException {
+        writeBuffer.flip();
+        while (writeBuffer.hasRemaining()) {
+            writtenBytes += spillChannel.write(writeBuffer, writtenBytes);
+        }
+        writeBuffer.clear();
+    }
+
+    /**
+     * @return a buffer positioned at the start of the record, mapping a new region of the file if the record is not within the current one.
+     */
+    private ByteBuffer readRecord(final long offset) throws IOException {
+        if (writeBuffer.position() > 0) {
+            flushWriteBuffer();
+        }
+        final ByteBuffer header = getMappedRecord(offset, RECORD_HEADER_BYTES);
+        final int recordLength = RECORD_HEADER_BYTES + header.getInt(header.position());
+        return getMappedRecord(offset, recordLength);
+    }
+
+    private ByteBuffer getMappedRecord(final long offset, final int recordLength) throws IOException {
+        final boolean mapped = mappedRegion != null && offset >= mappedRegionStart && offset + recordLength <= mappedRegionStart + mappedRegion.limit();
+        if (!mapped) {
+            final long regionLength = Math.min(Math.max(MAPPED_REGION_BYTES, recordLength), writtenBytes - offset);
+            mappedRegion = spillChannel.map(FileChannel.MapMode.READ_ONLY, offset, regionLength);
+            mappedRegionStart = offset;
+        }
+        final ByteBuffer record = mappedRegion.duplicate();
+        record.position((int) (offset - mappedRegionStart));
+        return record;
+    }
+
+    private void assertOpen() {
+        if (closed) {
+            throw new IllegalStateException("The list has been closed");
+        }
+    }
+
+}
@@ -29,12 +29,15 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import org.junit.Assert;
 import org.junit.Test;
 
 import com.blackducksoftware.integration.hub.api.core.HubView;
+import com.blackducksoftware.integration.hub.api.core.ResourceLink;
+import com.blackducksoftware.integration.hub.api.core.ResourceMetadata;
 import com.blackducksoftware.integration.hub.api.generated.view.ProjectView;
 import com.blackducksoftware.integration.hub.exception.HubIntegrationException;
 import com.blackducksoftware.integration.log.IntBufferedLogger;
@@ -74,6 +77,18 @@ public class MetaHandlerTest {
         assertNull(metaHandler.getFirstLinkSafely(hubItem, "non-existent-link"));
     }
 
+    @Test
+    public void testFindFirstLink() throws Exception {
+        final MetaHandler metaHandler = getMetaHandler();
+        final HubView hubItem = getTestHubItem();
+
+        assertFalse(metaHandler.findFirstLink(hubItem, "non-existent-link").isPresent());
+        assertEquals("http://hub-server.com/api/projects/acae7891-cabb-4186-87ff-d650abb10a38/versions/96497043-89f9-4ae7-8b5a-e9945e0a57cf", metaHandler.findFirstLink(hubItem, "canonicalVersion").get());
+
+        hubItem._meta = null;
+        assertFalse(metaHandler.findFirstLink(hubItem, "canonicalVersion").isPresent());
+    }
+
     @Test
     public void testGetFirstLink() throws Exception {
         final MetaHandler metaHandler = getMetaHandler();
@@ -112,4 +127,56 @@ public class MetaHandlerTest {
         assertEquals(0, nonHttpLinkCount);
     }
 
+    @Test
+    public void testLinksAreReindexedWhenTheMetaChanges() throws Exception {
+        final MetaHandler metaHandler = getMetaHandler();
+        final HubView hubItem = getTestHubItem();
+        assertTrue(metaHandler.hasLink(hubItem, "canonicalVersion"));
+
+        hubItem._meta = gson.fromJson("{\"href\":\"http://hub-server.com/api/projects/1\",\"links\":[{\"rel\":\"users\",\"href\":\"http://hub-server.com/api/projects/1/users\"}]}", ResourceMetadata.class);
+
+        assertFalse(metaHandler.hasLink(hubItem, "canonicalVersion"));
+        assertEquals("http://hub-server.com/api/projects/1/users", metaHandler.getFirstLink(hubItem, "users"));
+    }
+
+    @Test
+    public void testLinksOfAlternatingViews() throws Exception {
+        final MetaHandler metaHandler = getMetaHandler();
+        final HubView[] views = new HubView[10];
+        for (int i = 0; i < views.length; i++) {
+            views[i] = gson.fromJson("{\"_meta\":{\"href\":\"http://hub-server.com/api/projects/" + i + "\",\"links\":[{\"rel\":\"versions\",\"href\":\"http://hub-server.com/api/projects/" + i + "/versions\"}]}}", ProjectView.class);
+        }
+
+        // more views than are indexed per thread, looked up in turn several times
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < views.length; i++) {
+                assertEquals("http://hub-server.com/api/projects/" + i + "/versions", metaHandler.getFirstLink(views[i], "versions"));
+                assertEquals("http://hub-server.com/api/projects/0/versions", metaHandler.getFirstLink(views[0], "versions"));
+            }
+        }
+    }
+
+    @Test
+    public void testLinksAreReindexedWhenTheLinksChange() throws Exception {
+        final MetaHandler metaHandler = getMetaHandler();
+        final HubView hubItem = getTestHubItem();
+        assertEquals(2, metaHandler.getLinks(hubItem, "canonicalVersion").size());
+        assertFalse(metaHandler.hasLink(hubItem, "users"));
+
+        final ResourceLink usersLink = new ResourceLink();
+        usersLink.rel = "users";
+        usersLink.href = "http://hub-server.com/api/projects/1/users";
+        hubItem._meta.links.add(usersLink);
+        assertEquals("http://hub-server.com/api/projects/1/users", metaHandler.getFirstLink(hubItem, "users"));
+
+        final ResourceLink versionsLink = new ResourceLink();
+        versionsLink.rel = "versions";
+        versionsLink.href = "http://hub-server.com/api/projects/1/versions";
+        final List<ResourceLink> replacedLinks = new ArrayList<>(hubItem._meta.links);
+        replacedLinks.set(0, versionsLink);
+        hubItem._meta.links = replacedLinks;
+        assertEquals(1, metaHandler.getLinks(hubItem, "canonicalVersion").size());
+        assertEquals("http://hub-server.com/api/projects/1/versions", metaHandler.getFirstLink(hubItem, "versions"));
+    }
+
 }
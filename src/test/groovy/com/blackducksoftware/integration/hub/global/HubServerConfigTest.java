@@ -0,0 +1,104 @@
+/**
+ * hub-common
+ *
+ * Copyright (C) 2018 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.global;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Field;
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.junit.Test;
+
+import com.blackducksoftware.integration.hub.Credentials;
+import com.blackducksoftware.integration.hub.configuration.HubConnectionPoolConfig;
+import com.blackducksoftware.integration.hub.configuration.HubServerConfig;
+import com.blackducksoftware.integration.hub.rest.RestConnection;
+import com.blackducksoftware.integration.hub.rest.UriCombiner;
+import com.blackducksoftware.integration.hub.service.HubServicesFactory;
+import com.blackducksoftware.integration.log.IntBufferedLogger;
+
+public class HubServerConfigTest {
+    private static final String HUB_URL = "https://hub.example.com";
+
+    @Test
+    public void testFactoryFollowsTheResponseCompressionOfTheConfig() throws Exception {
+        final HubServerConfig uncompressedHubServerConfig = createHubServerConfig(false);
+        final RestConnection restConnection = uncompressedHubServerConfig.createRestConnection(new IntBufferedLogger());
+        assertFalse(uncompressedHubServerConfig.createHubServicesFactory(restConnection).isResponseCompression());
+
+        assertTrue(createHubServerConfig(true).createHubServicesFactory(restConnection).isResponseCompression());
+        assertTrue(new HubServicesFactory(restConnection).isResponseCompression());
+    }
+
+    @Test
+    public void testClientKeepsItsContentCompression() throws Exception {
+        final RestConnection compressedRestConnection = createHubServerConfig(true).createRestConnection(new IntBufferedLogger());
+        assertFalse((Boolean) getClientBuilderField(compressedRestConnection.getClientBuilder(), "contentCompressionDisabled"));
+
+        final RestConnection uncompressedRestConnection = createHubServerConfig(false).createRestConnection(new IntBufferedLogger());
+        assertFalse((Boolean) getClientBuilderField(uncompressedRestConnection.getClientBuilder(), "contentCompressionDisabled"));
+    }
+
+    @Test
+    public void testConnectionPoolSettingsReachTheClient() throws Exception {
+        final RestConnection restConnection = createHubServerConfig(true, new HubConnectionPoolConfig(4, 8, 10, 5)).createRestConnection(new IntBufferedLogger());
+        final HttpClientBuilder clientBuilder = restConnection.getClientBuilder();
+
+        assertEquals(4, getClientBuilderField(clientBuilder, "maxConnPerRoute"));
+        assertEquals(8, getClientBuilderField(clientBuilder, "maxConnTotal"));
+        assertTrue((Boolean) getClientBuilderField(clientBuilder, "evictExpiredConnections"));
+        assertTrue((Boolean) getClientBuilderField(clientBuilder, "evictIdleConnections"));
+        assertEquals(5L, getClientBuilderField(clientBuilder, "maxIdleTime"));
+        assertEquals(TimeUnit.SECONDS, getClientBuilderField(clientBuilder, "maxIdleTimeUnit"));
+    }
+
+    @Test
+    public void testIdleConnectionsAreNotEvictedByDefault() throws Exception {
+        final RestConnection restConnection = createHubServerConfig(true).createRestConnection(new IntBufferedLogger());
+        final HttpClientBuilder clientBuilder = restConnection.getClientBuilder();
+
+        assertFalse((Boolean) getClientBuilderField(clientBuilder, "evictExpiredConnections"));
+        assertFalse((Boolean) getClientBuilderField(clientBuilder, "evictIdleConnections"));
+        assertEquals(HubConnectionPoolConfig.DEFAULT_MAX_CONNECTIONS_PER_ROUTE, getClientBuilderField(clientBuilder, "maxConnPerRoute"));
+    }
+
+    private HubServerConfig createHubServerConfig(final boolean responseCompression) throws Exception {
+        return createHubServerConfig(responseCompression, new HubConnectionPoolConfig());
+    }
+
+    private HubServerConfig createHubServerConfig(final boolean responseCompression, final HubConnectionPoolConfig connectionPoolConfig) throws Exception {
+        return new HubServerConfig(new URL(HUB_URL), 120, new Credentials("user", "password"), null, false, new UriCombiner(), responseCompression, connectionPoolConfig);
+    }
+
+    private Object getClientBuilderField(final HttpClientBuilder clientBuilder, final String fieldName) throws Exception {
+        final Field field = HttpClientBuilder.class.getDeclaredField(fieldName);
+        field.setAccessible(true);
+        return field.get(clientBuilder);
+    }
+
+}
@@ -0,0 +1,70 @@
+/**
+ * hub-common
+ *
+ * Copyright (C) 2018 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.global;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.net.URL;
+
+import org.junit.Test;
+
+import com.blackducksoftware.integration.hub.Credentials;
+import com.blackducksoftware.integration.hub.configuration.HubConnectionPoolConfig;
+import com.blackducksoftware.integration.hub.configuration.HubServerConfig;
+import com.blackducksoftware.integration.hub.configuration.SharedRestConnections;
+import com.blackducksoftware.integration.hub.rest.RestConnection;
+import com.blackducksoftware.integration.hub.rest.UriCombiner;
+import com.blackducksoftware.integration.log.IntBufferedLogger;
+
+public class SharedRestConnectionsTest {
+    private static final String HUB_URL = "https://hub.example.com";
+
+    @Test
+    public void testConnectionIsSharedPerHubAndCredentials() throws Exception {
+        final IntBufferedLogger logger = new IntBufferedLogger();
+        try (SharedRestConnections sharedRestConnections = new SharedRestConnections()) {
+            final RestConnection first = sharedRestConnections.getRestConnection(createHubServerConfig("user", "password", new HubConnectionPoolConfig()), logger);
+            final RestConnection second = sharedRestConnections.getRestConnection(createHubServerConfig("user", "password", new HubConnectionPoolConfig()), logger);
+            assertSame(first, second);
+
+            final RestConnection otherPassword = sharedRestConnections.getRestConnection(createHubServerConfig("user", "other", new HubConnectionPoolConfig()), logger);
+            assertNotSame(first, otherPassword);
+
+            final RestConnection otherPool = sharedRestConnections.getRestConnection(createHubServerConfig("user", "password", new HubConnectionPoolConfig(4, 4, 10, 5)), logger);
+            assertNotSame(first, otherPool);
+
+            final RestConnection uncompressed = sharedRestConnections.getRestConnection(new HubServerConfig(new URL(HUB_URL), 120, new Credentials("user", "password"), null, false, new UriCombiner(), false, new HubConnectionPoolConfig()), logger);
+            assertSame(first, uncompressed);
+
+            assertEquals(3, sharedRestConnections.size());
+        }
+    }
+
+    private HubServerConfig createHubServerConfig(final String username, final String password, final HubConnectionPoolConfig connectionPoolConfig) throws Exception {
+        return new HubServerConfig(new URL(HUB_URL), 120, new Credentials(username, password), null, false, new UriCombiner(), true, connectionPoolConfig);
+    }
+
+}
@@ -0,0 +1,78 @@
+/**
+ * hub-common
+ *
+ * Copyright (C) 2018 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.service;
+
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import com.blackducksoftware.integration.hub.api.generated.view.ProjectView;
+import com.blackducksoftware.integration.hub.exception.HubIntegrationException;
+
+public class AsyncHubServiceTest {
+    private static final String PROJECT_URI = "http://hub/api/projects/1";
+
+    @Test
+    public void testResponseIsRetrievedOnTheExecutor() throws Exception {
+        final ProjectView projectView = new ProjectView();
+        final HubService hubService = Mockito.mock(HubService.class);
+        Mockito.when(hubService.getResponse(PROJECT_URI, ProjectView.class)).thenReturn(projectView);
+
+        final ExecutorService executorService = Executors.newSingleThreadExecutor();
+        try {
+            final AsyncHubService asyncHubService = new AsyncHubService(hubService, executorService);
+            final CompletableFuture<ProjectView> future = asyncHubService.getResponse(PROJECT_URI, ProjectView.class);
+            assertSame(projectView, future.get(10, TimeUnit.SECONDS));
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testFailureCompletesTheFutureExceptionally() throws Exception {
+        final HubIntegrationException failure = new HubIntegrationException("not found");
+        final HubService hubService = Mockito.mock(HubService.class);
+        Mockito.when(hubService.getResponse(PROJECT_URI, ProjectView.class)).thenThrow(failure);
+
+        final AsyncHubService asyncHubService = new AsyncHubService(hubService, Runnable::run);
+        final CompletableFuture<ProjectView> future = asyncHubService.getResponse(PROJECT_URI, ProjectView.class);
+        assertTrue(future.isCompletedExceptionally());
+        try {
+            future.get();
+            fail("The future should have failed");
+        } catch (final ExecutionException e) {
+            assertSame(failure, e.getCause());
+        }
+    }
+
+}
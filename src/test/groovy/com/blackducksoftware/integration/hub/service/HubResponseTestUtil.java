@@ -0,0 +1,83 @@
+/**
+ * hub-common
+ *
+ * Copyright (C) 2018 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.service;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import org.mockito.Mockito;
+
+import com.blackducksoftware.integration.hub.notification.processor.MockRestConnection;
+import com.blackducksoftware.integration.hub.request.Request;
+import com.blackducksoftware.integration.hub.request.Response;
+import com.blackducksoftware.integration.hub.rest.RestConnection;
+
+public class HubResponseTestUtil {
+    /**
+     * @return a RestConnection that never connects, to be given responses with Mockito.doAnswer(...).when(restConnection).executeRequest(Mockito.any(Request.class)).
+     */
+    public static RestConnection createRestConnection() {
+        return Mockito.spy(new MockRestConnection());
+    }
+
+    public static Response createResponse(final String json) throws Exception {
+        return createResponse(200, json, null);
+    }
+
+    public static Response createResponse(final int statusCode, final String json, final Map<String, String> headers) throws Exception {
+        final Response response = Mockito.mock(Response.class);
+        Mockito.when(response.getStatusCode()).thenReturn(statusCode);
+        Mockito.when(response.getContent()).thenReturn(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+        if (headers != null) {
+            for (final Map.Entry<String, String> header : headers.entrySet()) {
+                Mockito.when(response.getHeaderValue(header.getKey())).thenReturn(header.getValue());
+            }
+        }
+        return response;
+    }
+
+    /**
+     * @return the json of a page of projects named after their offsets, for example project-4 for the item at offset 4.
+     */
+    public static String createProjectPage(final int totalCount, final int offset, final int limit) {
+        final StringBuilder items = new StringBuilder();
+        for (int i = offset; i < Math.min(totalCount, offset + limit); i++) {
+            if (items.length() > 0) {
+                items.append(",");
+            }
+            items.append("{\"name\":\"project-" + i + "\"}");
+        }
+        return "{\"totalCount\":" + totalCount + ",\"items\":[" + items + "]}";
+    }
+
+    public static int getOffset(final Request request) {
+        return Integer.parseInt(request.getQueryParameters().get("offset"));
+    }
+
+    public static int getLimit(final Request request) {
+        return Integer.parseInt(request.getQueryParameters().get("limit"));
+    }
+
+}
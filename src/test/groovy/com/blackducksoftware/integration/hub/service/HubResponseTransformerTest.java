@@ -0,0 +1,127 @@
+/**
+ * hub-common
+ *
+ * Copyright (C) 2018 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import com.blackducksoftware.integration.hub.api.generated.view.ProjectView;
+import com.blackducksoftware.integration.hub.request.Request;
+import com.blackducksoftware.integration.hub.request.Response;
+import com.blackducksoftware.integration.hub.rest.RestConnection;
+import com.blackducksoftware.integration.hub.service.cache.CachedResponse;
+import com.blackducksoftware.integration.hub.service.cache.InMemoryHubResponseCache;
+import com.blackducksoftware.integration.hub.service.model.RequestFactory;
+
+public class HubResponseTransformerTest {
+    private static final String PROJECT_URI = "http://hub/api/projects/1";
+    private static final String LAST_MODIFIED = "Wed, 21 Oct 2015 07:28:00 GMT";
+
+    @Test
+    public void testCachedResponseIsRevalidatedAndServedOnNotModified() throws Exception {
+        final Map<String, String> validators = new HashMap<>();
+        validators.put("ETag", "\"v1\"");
+        validators.put("Last-Modified", LAST_MODIFIED);
+        final List<Map<String, String>> sentHeaders = new ArrayList<>();
+        final RestConnection restConnection = createRestConnection(sentHeaders, HubResponseTestUtil.createResponse(200, "{\"name\":\"project\"}", validators), HubResponseTestUtil.createResponse(304, "", null));
+        final InMemoryHubResponseCache hubResponseCache = new InMemoryHubResponseCache();
+        final HubResponseTransformer hubResponseTransformer = new HubResponseTransformer(restConnection, true, hubResponseCache);
+
+        assertEquals("project", hubResponseTransformer.getResponse(RequestFactory.createCommonGetRequest(PROJECT_URI), ProjectView.class).name);
+        assertFalse(sentHeaders.get(0).containsKey("If-None-Match"));
+        assertNotNull(hubResponseCache.get(PROJECT_URI));
+
+        final ProjectView revalidatedProject = hubResponseTransformer.getResponse(RequestFactory.createCommonGetRequest(PROJECT_URI), ProjectView.class);
+        assertEquals("\"v1\"", sentHeaders.get(1).get("If-None-Match"));
+        assertEquals(LAST_MODIFIED, sentHeaders.get(1).get("If-Modified-Since"));
+        assertEquals("project", revalidatedProject.name);
+        assertEquals("{\"name\":\"project\"}", revalidatedProject.json);
+    }
+
+    @Test
+    public void testNoStoreResponseIsNotCached() throws Exception {
+        final Map<String, String> headers = new HashMap<>();
+        headers.put("ETag", "\"v1\"");
+        headers.put("Cache-Control", "private, no-store");
+        final List<Map<String, String>> sentHeaders = new ArrayList<>();
+        final RestConnection restConnection = createRestConnection(sentHeaders, HubResponseTestUtil.createResponse(200, "{\"name\":\"project\"}", headers), HubResponseTestUtil.createResponse(200, "{\"name\":\"renamed\"}", headers));
+        final InMemoryHubResponseCache hubResponseCache = new InMemoryHubResponseCache();
+        final HubResponseTransformer hubResponseTransformer = new HubResponseTransformer(restConnection, true, hubResponseCache);
+
+        assertEquals("project", hubResponseTransformer.getResponse(RequestFactory.createCommonGetRequest(PROJECT_URI), ProjectView.class).name);
+        assertNull(hubResponseCache.get(PROJECT_URI));
+
+        assertEquals("renamed", hubResponseTransformer.getResponse(RequestFactory.createCommonGetRequest(PROJECT_URI), ProjectView.class).name);
+        assertFalse(sentHeaders.get(1).containsKey("If-None-Match"));
+        assertNull(hubResponseCache.get(PROJECT_URI));
+    }
+
+    @Test
+    public void testResponseWithoutValidatorsReplacesTheCachedResponse() throws Exception {
+        final List<Map<String, String>> sentHeaders = new ArrayList<>();
+        final RestConnection restConnection = createRestConnection(sentHeaders, HubResponseTestUtil.createResponse(200, "{\"name\":\"renamed\"}", null));
+        final InMemoryHubResponseCache hubResponseCache = new InMemoryHubResponseCache();
+        hubResponseCache.put(new CachedResponse(PROJECT_URI, "\"v1\"", null, "{\"name\":\"project\"}"));
+        final HubResponseTransformer hubResponseTransformer = new HubResponseTransformer(restConnection, true, hubResponseCache);
+
+        assertEquals("renamed", hubResponseTransformer.getResponse(RequestFactory.createCommonGetRequest(PROJECT_URI), ProjectView.class).name);
+        assertEquals("\"v1\"", sentHeaders.get(0).get("If-None-Match"));
+        assertFalse(sentHeaders.get(0).containsKey("If-Modified-Since"));
+        assertNull(hubResponseCache.get(PROJECT_URI));
+    }
+
+    @Test
+    public void testRequestWithoutHeadersIsRevalidated() throws Exception {
+        final List<Map<String, String>> sentHeaders = new ArrayList<>();
+        final RestConnection restConnection = createRestConnection(sentHeaders, HubResponseTestUtil.createResponse(304, "", null));
+        final InMemoryHubResponseCache hubResponseCache = new InMemoryHubResponseCache();
+        hubResponseCache.put(new CachedResponse(PROJECT_URI, "\"v1\"", null, "{\"name\":\"project\"}"));
+        final HubResponseTransformer hubResponseTransformer = new HubResponseTransformer(restConnection, true, hubResponseCache);
+
+        final Request request = new Request.Builder(PROJECT_URI).additionalHeaders(null).build();
+        assertEquals("project", hubResponseTransformer.getResponse(request, ProjectView.class).name);
+        assertEquals("\"v1\"", sentHeaders.get(0).get("If-None-Match"));
+    }
+
+    private RestConnection createRestConnection(final List<Map<String, String>> sentHeaders, final Response... responses) throws Exception {
+        final RestConnection restConnection = HubResponseTestUtil.createRestConnection();
+        Mockito.doAnswer(invocation -> {
+            final Request request = invocation.getArgument(0);
+            sentHeaders.add(new HashMap<>(request.getAdditionalHeaders()));
+            return responses[sentHeaders.size() - 1];
+        }).when(restConnection).executeRequest(Mockito.any(Request.class));
+        return restConnection;
+    }
+
+}
@@ -0,0 +1,174 @@
+/**
+ * hub-common
+ *
+ * Copyright (C) 2018 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import com.blackducksoftware.integration.hub.api.generated.view.ProjectView;
+import com.blackducksoftware.integration.hub.exception.HubIntegrationException;
+import com.blackducksoftware.integration.hub.exception.UncheckedHubIntegrationException;
+import com.blackducksoftware.integration.hub.request.Request;
+import com.blackducksoftware.integration.hub.rest.RestConnection;
+import com.blackducksoftware.integration.hub.rest.UriCombiner;
+import com.blackducksoftware.integration.hub.service.instrumentation.EndpointMetricsSnapshot;
+import com.blackducksoftware.integration.hub.service.instrumentation.InMemoryHubInstrumentation;
+import com.blackducksoftware.integration.hub.service.model.RequestFactory;
+
+public class HubResponsesIteratorTest {
+    private static final String PROJECTS_URI = "http://hub/api/projects";
+
+    @Test
+    public void testPagesAreRequestedOnlyWhenConsumed() throws Exception {
+        final RestConnection restConnection = createRestConnection(5);
+        final HubService hubService = new HubService(restConnection);
+        final HubResponsesIterator<ProjectView> iterator = hubService.getResponsesIterator(ProjectView.class, createRequestBuilder(2), null);
+        Mockito.verify(restConnection, Mockito.never()).executeRequest(Mockito.any(Request.class));
+        assertEquals(-1, iterator.getTotalCount());
+
+        assertEquals("project-0", iterator.next().name);
+        assertEquals(5, iterator.getTotalCount());
+        assertEquals("project-1", iterator.next().name);
+        Mockito.verify(restConnection, Mockito.times(1)).executeRequest(Mockito.any(Request.class));
+
+        assertEquals("project-2", iterator.next().name);
+        Mockito.verify(restConnection, Mockito.times(2)).executeRequest(Mockito.any(Request.class));
+    }
+
+    @Test
+    public void testStreamStopsAtTheFirstMatchWithoutRequestingMorePages() throws Exception {
+        final RestConnection restConnection = createRestConnection(10);
+        final HubService hubService = new HubService(restConnection);
+        try (Stream<ProjectView> projects = hubService.streamResponses(ProjectView.class, createRequestBuilder(2), null)) {
+            assertEquals("project-3", projects.filter(project -> project.name.endsWith("3")).findFirst().get().name);
+        }
+        Mockito.verify(restConnection, Mockito.times(2)).executeRequest(Mockito.any(Request.class));
+    }
+
+    @Test
+    public void testEmptyPageEndsTheIterationWhateverTheTotalCount() throws Exception {
+        final RestConnection restConnection = HubResponseTestUtil.createRestConnection();
+        Mockito.doAnswer(invocation -> {
+            final Request request = invocation.getArgument(0);
+            // the Hub reports more items than it returns, as it can when notifications are removed while paging
+            final String page = HubResponseTestUtil.getOffset(request) == 0 ? HubResponseTestUtil.createProjectPage(3, 0, 3) : "{\"totalCount\":10,\"items\":[]}";
+            return HubResponseTestUtil.createResponse(page.replace("\"totalCount\":3", "\"totalCount\":10"));
+        }).when(restConnection).executeRequest(Mockito.any(Request.class));
+
+        final HubService hubService = new HubService(restConnection);
+        final List<ProjectView> projects = hubService.streamResponses(ProjectView.class, createRequestBuilder(3), null).collect(Collectors.toList());
+        assertEquals(3, projects.size());
+        Mockito.verify(restConnection, Mockito.times(2)).executeRequest(Mockito.any(Request.class));
+    }
+
+    @Test
+    public void testFailureIsThrownUncheckedAndCanBeResumed() throws Exception {
+        final RestConnection restConnection = HubResponseTestUtil.createRestConnection();
+        final HubIntegrationException failure = new HubIntegrationException("The page could not be retrieved");
+        final int[] requestCount = new int[1];
+        Mockito.doAnswer(invocation -> {
+            final Request request = invocation.getArgument(0);
+            requestCount[0]++;
+            if (requestCount[0] == 2) {
+                throw failure;
+            }
+            return HubResponseTestUtil.createResponse(HubResponseTestUtil.createProjectPage(4, HubResponseTestUtil.getOffset(request), HubResponseTestUtil.getLimit(request)));
+        }).when(restConnection).executeRequest(Mockito.any(Request.class));
+
+        final HubService hubService = new HubService(restConnection);
+        final Iterator<ProjectView> iterator = hubService.getResponsesIterator(ProjectView.class, createRequestBuilder(2), null);
+        iterator.next();
+        iterator.next();
+        try {
+            iterator.hasNext();
+            fail("The failure of the second page should have been thrown");
+        } catch (final UncheckedHubIntegrationException e) {
+            assertSame(failure, e.getCause());
+        }
+
+        // the page that failed is requested again
+        assertTrue(iterator.hasNext());
+        assertEquals("project-2", iterator.next().name);
+        assertEquals("project-3", iterator.next().name);
+        assertFalse(iterator.hasNext());
+    }
+
+    @Test
+    public void testExhaustedStreamIsRecordedAsOnePagedCall() throws Exception {
+        final InMemoryHubInstrumentation instrumentation = new InMemoryHubInstrumentation();
+        final HubService hubService = createInstrumentedHubService(createRestConnection(5), instrumentation);
+
+        final List<ProjectView> projects = hubService.streamResponses(ProjectView.class, createRequestBuilder(2), null).collect(Collectors.toList());
+
+        assertEquals(5, projects.size());
+        final EndpointMetricsSnapshot snapshot = instrumentation.getSnapshot().getEndpointSnapshot("/api/projects").get();
+        assertEquals(1, snapshot.getPagedCallCount());
+        assertEquals(3, snapshot.getPageCount());
+        assertEquals(5, snapshot.getPagedItemCount());
+    }
+
+    @Test
+    public void testFindFirstRecordsOnlyThePagesItRead() throws Exception {
+        final InMemoryHubInstrumentation instrumentation = new InMemoryHubInstrumentation();
+        final HubService hubService = createInstrumentedHubService(createRestConnection(350), instrumentation);
+
+        assertEquals("project-150", hubService.findFirst(PROJECTS_URI, ProjectView.class, project -> "project-150".equals(project.name)).get().name);
+
+        final EndpointMetricsSnapshot snapshot = instrumentation.getSnapshot().getEndpointSnapshot("/api/projects").get();
+        assertEquals(1, snapshot.getPagedCallCount());
+        assertEquals(2, snapshot.getPageCount());
+        assertEquals(151, snapshot.getPagedItemCount());
+    }
+
+    private HubService createInstrumentedHubService(final RestConnection restConnection, final InMemoryHubInstrumentation instrumentation) {
+        return new HubService(restConnection, new UriCombiner(), new HubResponseTransformer(restConnection, false, null, null, null, instrumentation), 1);
+    }
+
+    private RestConnection createRestConnection(final int totalCount) throws Exception {
+        final RestConnection restConnection = HubResponseTestUtil.createRestConnection();
+        Mockito.doAnswer(invocation -> {
+            final Request request = invocation.getArgument(0);
+            return HubResponseTestUtil.createResponse(HubResponseTestUtil.createProjectPage(totalCount, HubResponseTestUtil.getOffset(request), HubResponseTestUtil.getLimit(request)));
+        }).when(restConnection).executeRequest(Mockito.any(Request.class));
+        return restConnection;
+    }
+
+    private Request.Builder createRequestBuilder(final int limit) {
+        final Request.Builder requestBuilder = RequestFactory.createCommonGetRequestBuilder(PROJECTS_URI);
+        requestBuilder.getQueryParameters().put("limit", String.valueOf(limit));
+        return requestBuilder;
+    }
+
+}
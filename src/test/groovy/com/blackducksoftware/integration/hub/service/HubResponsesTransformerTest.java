@@ -0,0 +1,147 @@
+/**
+ * hub-common
+ *
+ * Copyright (C) 2018 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import com.blackducksoftware.integration.hub.api.generated.enumeration.NotificationType;
+import com.blackducksoftware.integration.hub.api.generated.view.NotificationView;
+import com.blackducksoftware.integration.hub.api.generated.view.ProjectView;
+import com.blackducksoftware.integration.hub.api.view.RuleViolationNotificationView;
+import com.blackducksoftware.integration.hub.api.view.VulnerabilityNotificationView;
+import com.blackducksoftware.integration.hub.exception.HubIntegrationException;
+import com.blackducksoftware.integration.hub.request.Request;
+import com.blackducksoftware.integration.hub.rest.RestConnection;
+import com.blackducksoftware.integration.hub.service.model.PagedRequest;
+import com.blackducksoftware.integration.hub.service.model.PagedResponse;
+import com.blackducksoftware.integration.hub.service.model.RequestFactory;
+
+public class HubResponsesTransformerTest {
+    private static final String PROJECTS_URI = "http://hub/api/projects";
+    private static final String NOTIFICATIONS_URI = "http://hub/api/notifications";
+
+    @Test
+    public void testPagesFetchedInParallelAreAssembledInOrder() throws Exception {
+        final RestConnection restConnection = HubResponseTestUtil.createRestConnection();
+        final CountDownLatch lastPageServed = new CountDownLatch(1);
+        Mockito.doAnswer(invocation -> {
+            final Request request = invocation.getArgument(0);
+            final int offset = HubResponseTestUtil.getOffset(request);
+            if (offset == 2) {
+                // the second page only arrives after the last one, so the order of completion differs from the order of the pages
+                lastPageServed.await(10, TimeUnit.SECONDS);
+            } else if (offset == 4) {
+                lastPageServed.countDown();
+            }
+            return HubResponseTestUtil.createResponse(HubResponseTestUtil.createProjectPage(5, offset, HubResponseTestUtil.getLimit(request)));
+        }).when(restConnection).executeRequest(Mockito.any(Request.class));
+
+        final HubResponsesTransformer hubResponsesTransformer = new HubResponsesTransformer(restConnection, new HubResponseTransformer(restConnection), 3);
+        final List<ProjectView> projects = hubResponsesTransformer.getResponses(new PagedRequest(RequestFactory.createCommonGetRequestBuilder(PROJECTS_URI), 0, 2), ProjectView.class);
+
+        assertEquals(5, projects.size());
+        for (int i = 0; i < projects.size(); i++) {
+            assertEquals("project-" + i, projects.get(i).name);
+        }
+        Mockito.verify(restConnection, Mockito.times(3)).executeRequest(Mockito.any(Request.class));
+    }
+
+    @Test
+    public void testFailureOfARemainingPageIsThrown() throws Exception {
+        final RestConnection restConnection = HubResponseTestUtil.createRestConnection();
+        final HubIntegrationException failure = new HubIntegrationException("The page could not be retrieved");
+        Mockito.doAnswer(invocation -> {
+            final Request request = invocation.getArgument(0);
+            final int offset = HubResponseTestUtil.getOffset(request);
+            if (offset == 4) {
+                throw failure;
+            }
+            return HubResponseTestUtil.createResponse(HubResponseTestUtil.createProjectPage(6, offset, HubResponseTestUtil.getLimit(request)));
+        }).when(restConnection).executeRequest(Mockito.any(Request.class));
+
+        final HubResponsesTransformer hubResponsesTransformer = new HubResponsesTransformer(restConnection, new HubResponseTransformer(restConnection), 3);
+        try {
+            hubResponsesTransformer.getResponses(new PagedRequest(RequestFactory.createCommonGetRequestBuilder(PROJECTS_URI), 0, 2), ProjectView.class);
+            fail("The failure of the page should have been thrown");
+        } catch (final HubIntegrationException e) {
+            assertSame(failure, e);
+        }
+    }
+
+    @Test
+    public void testPageItemsAreBoundToTheClassOfTheirType() throws Exception {
+        // the fields of the page are not in the usual order, and the fields the transformer does not know about are skipped
+        final String page = "{\"items\":["
+                + "{\"type\":\"VULNERABILITY\",\"contentType\":\"application/json\",\"content\":{\"newVulnerabilityCount\":3,\"componentName\":\"component\"}},"
+                + "{\"type\":\"RULE_VIOLATION\",\"content\":{}},"
+                + "{\"type\":\"LICENSE_LIMIT\"}"
+                + "],\"appliedFilters\":[{\"name\":\"type\",\"values\":[]}],\"totalCount\":3}";
+        final RestConnection restConnection = HubResponseTestUtil.createRestConnection();
+        Mockito.doReturn(HubResponseTestUtil.createResponse(page)).when(restConnection).executeRequest(Mockito.any(Request.class));
+
+        final Map<String, Class<? extends NotificationView>> typeMap = new HashMap<>();
+        typeMap.put(NotificationType.VULNERABILITY.name(), VulnerabilityNotificationView.class);
+        typeMap.put(NotificationType.RULE_VIOLATION.name(), RuleViolationNotificationView.class);
+
+        final HubResponsesTransformer hubResponsesTransformer = new HubResponsesTransformer(restConnection, new HubResponseTransformer(restConnection));
+        final PagedResponse<NotificationView> pagedResponse = hubResponsesTransformer.getPagedResponse(new PagedRequest(RequestFactory.createCommonGetRequestBuilder(NOTIFICATIONS_URI)), NotificationView.class, typeMap);
+
+        assertEquals(3, pagedResponse.getTotalCount());
+        final List<NotificationView> notifications = pagedResponse.getItems();
+        assertEquals(3, notifications.size());
+        assertEquals(VulnerabilityNotificationView.class, notifications.get(0).getClass());
+        assertEquals(3, ((VulnerabilityNotificationView) notifications.get(0)).content.newVulnerabilityCount);
+        assertEquals("component", ((VulnerabilityNotificationView) notifications.get(0)).content.componentName);
+        assertEquals(RuleViolationNotificationView.class, notifications.get(1).getClass());
+        assertEquals(NotificationView.class, notifications.get(2).getClass());
+        assertEquals(NotificationType.LICENSE_LIMIT, notifications.get(2).type);
+    }
+
+    @Test
+    public void testPageWithoutItemsOrTotalCountIsEmpty() throws Exception {
+        final RestConnection restConnection = HubResponseTestUtil.createRestConnection();
+        Mockito.doAnswer(invocation -> HubResponseTestUtil.createResponse("{\"appliedFilters\":[],\"items\":null}")).when(restConnection).executeRequest(Mockito.any(Request.class));
+
+        final HubResponsesTransformer hubResponsesTransformer = new HubResponsesTransformer(restConnection, new HubResponseTransformer(restConnection), 3);
+        final PagedResponse<ProjectView> pagedResponse = hubResponsesTransformer.getPagedResponse(new PagedRequest(RequestFactory.createCommonGetRequestBuilder(PROJECTS_URI)), ProjectView.class, null);
+        assertEquals(0, pagedResponse.getTotalCount());
+        assertTrue(pagedResponse.getItems().isEmpty());
+
+        assertTrue(hubResponsesTransformer.getResponses(new PagedRequest(RequestFactory.createCommonGetRequestBuilder(PROJECTS_URI)), ProjectView.class).isEmpty());
+        Mockito.verify(restConnection, Mockito.times(2)).executeRequest(Mockito.any(Request.class));
+    }
+
+}
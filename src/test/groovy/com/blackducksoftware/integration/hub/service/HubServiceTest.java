@@ -0,0 +1,233 @@
+/**
+ * hub-common
+ *
+ * Copyright (C) 2018 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import com.blackducksoftware.integration.hub.api.UriSingleResponse;
+import com.blackducksoftware.integration.hub.api.core.HubResponse;
+import com.blackducksoftware.integration.hub.api.generated.view.ProjectView;
+import com.blackducksoftware.integration.hub.exception.HubIntegrationException;
+import com.blackducksoftware.integration.hub.request.Request;
+import com.blackducksoftware.integration.hub.request.Response;
+import com.blackducksoftware.integration.hub.rest.HttpMethod;
+import com.blackducksoftware.integration.hub.rest.RestConnection;
+import com.blackducksoftware.integration.hub.rest.UriCombiner;
+import com.blackducksoftware.integration.hub.service.bucket.HubBucketItem;
+import com.blackducksoftware.integration.hub.service.cache.HubViewCache;
+import com.blackducksoftware.integration.hub.service.model.HubExecutionMode;
+
+public class HubServiceTest {
+    private static final String PROJECTS_URI = "http://hub/api/projects";
+    private static final String PROJECT_URI = "http://hub/api/projects/1";
+
+    @Test
+    public void testFindFirstStopsPagingAtTheFirstMatch() throws Exception {
+        final RestConnection restConnection = createRestConnection(350);
+        final HubService hubService = new HubService(restConnection);
+
+        final Optional<ProjectView> project = hubService.findFirst(PROJECTS_URI, ProjectView.class, projectView -> "project-150".equals(projectView.name));
+        assertEquals("project-150", project.get().name);
+        Mockito.verify(restConnection, Mockito.times(2)).executeRequest(Mockito.any(Request.class));
+    }
+
+    @Test
+    public void testFindFirstWithoutMatchReadsEveryPage() throws Exception {
+        final RestConnection restConnection = createRestConnection(350);
+        final HubService hubService = new HubService(restConnection);
+
+        final Optional<ProjectView> project = hubService.findFirst(PROJECTS_URI, ProjectView.class, projectView -> "missing".equals(projectView.name));
+        assertFalse(project.isPresent());
+        Mockito.verify(restConnection, Mockito.times(4)).executeRequest(Mockito.any(Request.class));
+    }
+
+    @Test
+    public void testFindFirstThrowsTheFailureOfAPage() throws Exception {
+        final RestConnection restConnection = HubResponseTestUtil.createRestConnection();
+        final HubIntegrationException failure = new HubIntegrationException("The page could not be retrieved");
+        Mockito.doAnswer(invocation -> {
+            final Request request = invocation.getArgument(0);
+            final int offset = HubResponseTestUtil.getOffset(request);
+            if (offset > 0) {
+                throw failure;
+            }
+            return HubResponseTestUtil.createResponse(HubResponseTestUtil.createProjectPage(350, offset, HubResponseTestUtil.getLimit(request)));
+        }).when(restConnection).executeRequest(Mockito.any(Request.class));
+        final HubService hubService = new HubService(restConnection);
+
+        try {
+            hubService.findFirst(PROJECTS_URI, ProjectView.class, projectView -> "project-150".equals(projectView.name));
+            fail("The failure of the second page should have been thrown");
+        } catch (final HubIntegrationException e) {
+            assertSame(failure, e);
+        }
+    }
+
+    @Test
+    public void testCachedViewsAreNotSharedBetweenCallers() throws Exception {
+        final RestConnection restConnection = HubResponseTestUtil.createRestConnection();
+        Mockito.doAnswer(invocation -> HubResponseTestUtil.createResponse("{\"name\":\"project\"}")).when(restConnection).executeRequest(Mockito.any(Request.class));
+        final HubService hubService = createHubService(restConnection, new HubViewCache());
+
+        final ProjectView project = hubService.getResponse(PROJECT_URI, ProjectView.class);
+        project.name = "changed by the first caller";
+        final ProjectView cachedProject = hubService.getResponse(PROJECT_URI, ProjectView.class);
+
+        assertNotSame(project, cachedProject);
+        assertEquals("project", cachedProject.name);
+        Mockito.verify(restConnection, Mockito.times(1)).executeRequest(Mockito.any(Request.class));
+    }
+
+    @Test
+    public void testRequestOtherThanGetEvictsTheCachedView() throws Exception {
+        final RestConnection restConnection = HubResponseTestUtil.createRestConnection();
+        Mockito.doAnswer(invocation -> HubResponseTestUtil.createResponse("{\"name\":\"project\"}")).when(restConnection).executeRequest(Mockito.any(Request.class));
+        final HubViewCache hubViewCache = new HubViewCache();
+        final HubService hubService = createHubService(restConnection, hubViewCache);
+
+        hubService.getResponse(PROJECT_URI, ProjectView.class);
+        assertEquals(1, hubViewCache.size());
+        try (Response response = hubService.executeRequest(new Request.Builder(PROJECT_URI).method(HttpMethod.DELETE).build())) {
+            assertEquals(0, hubViewCache.size());
+        }
+        hubService.getResponse(PROJECT_URI, ProjectView.class);
+        Mockito.verify(restConnection, Mockito.times(3)).executeRequest(Mockito.any(Request.class));
+    }
+
+    @Test
+    public void testResponseItemsAreInOrderAndDuplicatesAreRetrievedOnce() throws Exception {
+        final RestConnection restConnection = HubResponseTestUtil.createRestConnection();
+        final Map<String, AtomicInteger> requestCounts = new ConcurrentHashMap<>();
+        final CountDownLatch lastProjectServed = new CountDownLatch(1);
+        Mockito.doAnswer(invocation -> {
+            final Request request = invocation.getArgument(0);
+            requestCounts.computeIfAbsent(request.getUri(), uri -> new AtomicInteger()).incrementAndGet();
+            if (request.getUri().endsWith("/1")) {
+                // the first project only arrives after the last one, so the order of completion differs from the order of the uris
+                lastProjectServed.await(10, TimeUnit.SECONDS);
+            } else if (request.getUri().endsWith("/3")) {
+                lastProjectServed.countDown();
+            }
+            return HubResponseTestUtil.createResponse("{\"name\":\"" + request.getUri() + "\"}");
+        }).when(restConnection).executeRequest(Mockito.any(Request.class));
+        final HubService hubService = createHubService(restConnection, 3);
+
+        final List<HubBucketItem<HubResponse>> items = hubService.getResponseItems(Arrays.asList(createProjectResponse(1), createProjectResponse(2), createProjectResponse(1), createProjectResponse(3)));
+
+        assertEquals(4, items.size());
+        assertEquals(PROJECTS_URI + "/1", ((ProjectView) items.get(0).getHubResponse().get()).name);
+        assertEquals(PROJECTS_URI + "/2", ((ProjectView) items.get(1).getHubResponse().get()).name);
+        assertSame(items.get(0), items.get(2));
+        assertEquals(PROJECTS_URI + "/3", ((ProjectView) items.get(3).getHubResponse().get()).name);
+        assertEquals(3, requestCounts.size());
+        for (final AtomicInteger requestCount : requestCounts.values()) {
+            assertEquals(1, requestCount.get());
+        }
+    }
+
+    @Test
+    public void testFailureOfAResponseItemIsCaptured() throws Exception {
+        final RestConnection restConnection = HubResponseTestUtil.createRestConnection();
+        final HubIntegrationException failure = new HubIntegrationException("Forbidden");
+        Mockito.doAnswer(invocation -> {
+            final Request request = invocation.getArgument(0);
+            if (request.getUri().endsWith("/2")) {
+                throw failure;
+            }
+            return HubResponseTestUtil.createResponse("{\"name\":\"project\"}");
+        }).when(restConnection).executeRequest(Mockito.any(Request.class));
+        final HubService hubService = createHubService(restConnection, 3);
+
+        final List<HubBucketItem<HubResponse>> items = hubService.getResponseItems(Arrays.asList(createProjectResponse(1), createProjectResponse(2), createProjectResponse(3)));
+
+        assertTrue(items.get(0).hasValidResponse());
+        assertTrue(items.get(1).hasException());
+        assertSame(failure, items.get(1).getE().get());
+        assertTrue(items.get(2).hasValidResponse());
+        try {
+            hubService.getResponses(Arrays.asList(PROJECTS_URI + "/1", PROJECTS_URI + "/2"), ProjectView.class);
+            fail("The failure of the second project should have been thrown");
+        } catch (final HubIntegrationException e) {
+            assertSame(failure, e);
+        }
+    }
+
+    @Test
+    public void testResponseItemsAreRetrievedOnTheCallingThreadByDefault() throws Exception {
+        final RestConnection restConnection = HubResponseTestUtil.createRestConnection();
+        final Thread callingThread = Thread.currentThread();
+        Mockito.doAnswer(invocation -> {
+            assertSame(callingThread, Thread.currentThread());
+            return HubResponseTestUtil.createResponse("{\"name\":\"project\"}");
+        }).when(restConnection).executeRequest(Mockito.any(Request.class));
+        final HubService hubService = new HubService(restConnection);
+
+        assertEquals(1, hubService.getBulkRequestParallelism());
+        for (final HubBucketItem<HubResponse> item : hubService.getResponseItems(Arrays.asList(createProjectResponse(1), createProjectResponse(2), createProjectResponse(3)))) {
+            assertTrue(item.hasValidResponse());
+        }
+    }
+
+    private HubService createHubService(final RestConnection restConnection, final HubViewCache hubViewCache) {
+        final HubResponseTransformer hubResponseTransformer = new HubResponseTransformer(restConnection);
+        return new HubService(restConnection, new UriCombiner(), hubResponseTransformer, new HubResponsesTransformer(restConnection, hubResponseTransformer), hubViewCache);
+    }
+
+    private HubService createHubService(final RestConnection restConnection, final int bulkRequestParallelism) {
+        final HubResponseTransformer hubResponseTransformer = new HubResponseTransformer(restConnection);
+        return new HubService(restConnection, new UriCombiner(), hubResponseTransformer, new HubResponsesTransformer(restConnection, hubResponseTransformer), null, null, bulkRequestParallelism,
+                new HubTaskExecutor(HubExecutionMode.PLATFORM_THREADS));
+    }
+
+    private UriSingleResponse<ProjectView> createProjectResponse(final int id) {
+        return new UriSingleResponse<>(PROJECTS_URI + "/" + id, ProjectView.class);
+    }
+
+    private RestConnection createRestConnection(final int totalCount) throws Exception {
+        final RestConnection restConnection = HubResponseTestUtil.createRestConnection();
+        Mockito.doAnswer(invocation -> {
+            final Request request = invocation.getArgument(0);
+            return HubResponseTestUtil.createResponse(HubResponseTestUtil.createProjectPage(totalCount, HubResponseTestUtil.getOffset(request), HubResponseTestUtil.getLimit(request)));
+        }).when(restConnection).executeRequest(Mockito.any(Request.class));
+        return restConnection;
+    }
+
+}
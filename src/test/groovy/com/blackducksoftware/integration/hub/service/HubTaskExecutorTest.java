@@ -0,0 +1,255 @@
+/**
+ * hub-common
+ *
+ * Copyright (C) 2018 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.blackducksoftware.integration.hub.api.generated.view.ProjectView;
+import com.blackducksoftware.integration.hub.exception.HubIntegrationException;
+import com.blackducksoftware.integration.hub.service.model.HubExecutionMode;
+import com.blackducksoftware.integration.hub.service.model.SpillingResponseList;
+import com.blackducksoftware.integration.parallel.processor.ItemTransformer;
+import com.blackducksoftware.integration.parallel.processor.ParallelResourceProcessorResults;
+import com.google.gson.Gson;
+
+public class HubTaskExecutorTest {
+    @Test
+    public void testItemsAreTransformedAndFailuresCollected() {
+        final HubTaskExecutor hubTaskExecutor = new HubTaskExecutor(HubExecutionMode.VIRTUAL_THREADS);
+        final Map<Class<?>, ItemTransformer<String, Object>> transformers = new HashMap<>();
+        transformers.put(Integer.class, item -> {
+            if ((Integer) item < 0) {
+                throw new HubIntegrationException("negative");
+            }
+            return Collections.singletonList("number " + item);
+        });
+
+        final ParallelResourceProcessorResults<String> results = hubTaskExecutor.process(Arrays.asList(1, -1, "skipped", 2), transformers);
+
+        assertEquals(Arrays.asList("number 1", "number 2"), results.getResults());
+        assertEquals(1, results.getExceptions().size());
+        assertTrue(results.getExceptions().get(0) instanceof HubIntegrationException);
+    }
+
+    @Test
+    public void testConcurrentTasksAreLimited() {
+        final int maxConcurrentTasks = 2;
+        final HubTaskExecutor hubTaskExecutor = new HubTaskExecutor(HubExecutionMode.VIRTUAL_THREADS, maxConcurrentTasks);
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        final Map<Class<?>, ItemTransformer<Integer, Integer>> transformers = new HashMap<>();
+        transformers.put(Integer.class, item -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(10);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            running.decrementAndGet();
+            return Collections.singletonList(item);
+        });
+
+        final List<Integer> items = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            items.add(i);
+        }
+        final ParallelResourceProcessorResults<Integer> results = hubTaskExecutor.process(items, transformers);
+
+        assertEquals(items, results.getResults());
+        assertTrue(maxRunning.get() <= maxConcurrentTasks);
+    }
+
+    @Test
+    public void testInvokeAllReturnsResultsInTaskOrder() throws Exception {
+        try (final HubTaskExecutor hubTaskExecutor = new HubTaskExecutor(HubExecutionMode.PLATFORM_THREADS)) {
+            final List<Callable<Integer>> tasks = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                final int item = i;
+                tasks.add(() -> {
+                    // the earlier tasks take longer so they finish last
+                    Thread.sleep(10 - item);
+                    return item;
+                });
+            }
+
+            final List<Integer> results = hubTaskExecutor.invokeAll(tasks, 4);
+
+            assertEquals(Arrays.asList(0, 1, 2, 3, 4, 5, 6, 7, 8, 9), results);
+        }
+    }
+
+    @Test
+    public void testInvokeAllThrowsTheFirstFailure() throws Exception {
+        try (final HubTaskExecutor hubTaskExecutor = new HubTaskExecutor(HubExecutionMode.PLATFORM_THREADS)) {
+            final HubIntegrationException failure = new HubIntegrationException("failed");
+            final List<Callable<Integer>> tasks = new ArrayList<>();
+            tasks.add(() -> 1);
+            tasks.add(() -> {
+                throw failure;
+            });
+            tasks.add(() -> 3);
+
+            hubTaskExecutor.invokeAll(tasks, 2);
+            fail("The failure of the second task should have been thrown");
+        } catch (final ExecutionException e) {
+            assertTrue(e.getCause() instanceof HubIntegrationException);
+            assertEquals("failed", e.getCause().getMessage());
+        }
+    }
+
+    @Test
+    public void testNestedInvokeAllWithinTheLimitCompletes() throws Exception {
+        final int maxConcurrentTasks = 2;
+        try (final HubTaskExecutor hubTaskExecutor = new HubTaskExecutor(HubExecutionMode.PLATFORM_THREADS, maxConcurrentTasks)) {
+            final AtomicInteger running = new AtomicInteger();
+            final AtomicInteger maxRunning = new AtomicInteger();
+            final List<Callable<Integer>> outerTasks = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                outerTasks.add(() -> {
+                    final List<Callable<Integer>> innerTasks = new ArrayList<>();
+                    for (int j = 0; j < 4; j++) {
+                        innerTasks.add(() -> {
+                            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                            Thread.sleep(5);
+                            running.decrementAndGet();
+                            return 1;
+                        });
+                    }
+                    int sum = 0;
+                    for (final Integer result : hubTaskExecutor.invokeAll(innerTasks, 4)) {
+                        sum += result;
+                    }
+                    return sum;
+                });
+            }
+
+            final List<Integer> results = hubTaskExecutor.invokeAll(outerTasks, 4);
+
+            assertEquals(Arrays.asList(4, 4, 4, 4), results);
+            assertTrue(maxRunning.get() <= maxConcurrentTasks);
+        }
+    }
+
+    @Test
+    public void testInvokeAllWithoutTasks() throws Exception {
+        try (final HubTaskExecutor hubTaskExecutor = new HubTaskExecutor(HubExecutionMode.PLATFORM_THREADS)) {
+            assertTrue(hubTaskExecutor.invokeAll(Collections.<Callable<Integer>> emptyList(), 4).isEmpty());
+        }
+    }
+
+    @Test
+    public void testSpilledItemsAreReadOneBatchAtATime() throws Exception {
+        final HubTaskExecutor hubTaskExecutor = new HubTaskExecutor(HubExecutionMode.VIRTUAL_THREADS);
+        final int itemCount = HubTaskExecutor.PROCESS_BATCH_SIZE * 3 + 1;
+        final AtomicInteger untransformedCount = new AtomicInteger();
+        final AtomicInteger maxUntransformedCount = new AtomicInteger();
+        try (SpillingResponseList<ProjectView> items = new SpillingResponseList<ProjectView>(new Gson(), 10, null) {
+            @Override
+            public ProjectView get(final int index) {
+                maxUntransformedCount.accumulateAndGet(untransformedCount.incrementAndGet(), Math::max);
+                return super.get(index);
+            }
+        }) {
+            for (int i = 0; i < itemCount; i++) {
+                final ProjectView projectView = new ProjectView();
+                projectView.name = String.valueOf(i);
+                items.append(projectView);
+            }
+            final Map<Class<?>, ItemTransformer<String, ProjectView>> transformers = new HashMap<>();
+            transformers.put(ProjectView.class, item -> {
+                untransformedCount.decrementAndGet();
+                return Collections.singletonList(item.name);
+            });
+
+            final ParallelResourceProcessorResults<String> results = hubTaskExecutor.process(items, transformers);
+
+            assertEquals(itemCount, results.getResults().size());
+            assertEquals(String.valueOf(itemCount - 1), results.getResults().get(itemCount - 1));
+            assertTrue(maxUntransformedCount.get() <= HubTaskExecutor.PROCESS_BATCH_SIZE);
+        }
+    }
+
+    @Test
+    public void testItemsInMemoryAreTransformedInOneGo() {
+        final HubTaskExecutor hubTaskExecutor = new HubTaskExecutor(HubExecutionMode.PLATFORM_THREADS);
+        final int itemCount = HubTaskExecutor.PROCESS_BATCH_SIZE * 2;
+        final CountDownLatch firstItemTransformed = new CountDownLatch(1);
+        final Map<Class<?>, ItemTransformer<Integer, Integer>> transformers = new HashMap<>();
+        transformers.put(Integer.class, item -> {
+            if (item == 0) {
+                // a slow transform does not hold up the items after its batch
+                try {
+                    firstItemTransformed.await(10, TimeUnit.SECONDS);
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            } else if (item == itemCount - 1) {
+                firstItemTransformed.countDown();
+            }
+            return Collections.singletonList(item);
+        });
+        final List<Integer> items = new ArrayList<>();
+        for (int i = 0; i < itemCount; i++) {
+            items.add(i);
+        }
+
+        final ParallelResourceProcessorResults<Integer> results = hubTaskExecutor.process(items, transformers);
+
+        assertEquals(items, results.getResults());
+        assertEquals(0, firstItemTransformed.getCount());
+    }
+
+    @Test
+    public void testErrorsAreRethrown() {
+        final HubTaskExecutor hubTaskExecutor = new HubTaskExecutor(HubExecutionMode.PLATFORM_THREADS);
+        final Map<Class<?>, ItemTransformer<Integer, Integer>> transformers = new HashMap<>();
+        transformers.put(Integer.class, item -> {
+            throw new LinkageError("transform failed");
+        });
+
+        try {
+            hubTaskExecutor.process(Arrays.asList(1, 2), transformers);
+            fail("The error should have been rethrown");
+        } catch (final LinkageError e) {
+            assertEquals("transform failed", e.getMessage());
+        }
+    }
+
+}
@@ -0,0 +1,124 @@
+/**
+ * hub-common
+ *
+ * Copyright (C) 2018 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import com.blackducksoftware.integration.hub.api.generated.enumeration.NotificationType;
+import com.blackducksoftware.integration.hub.api.generated.view.NotificationUserView;
+import com.blackducksoftware.integration.hub.api.generated.view.NotificationView;
+import com.blackducksoftware.integration.hub.api.generated.view.UserView;
+import com.blackducksoftware.integration.hub.api.view.CommonNotificationState;
+import com.blackducksoftware.integration.hub.exception.HubIntegrationException;
+import com.blackducksoftware.integration.hub.notification.content.VulnerabilityNotificationContent;
+import com.blackducksoftware.integration.hub.request.Request;
+import com.blackducksoftware.integration.hub.rest.RestConnection;
+import com.blackducksoftware.integration.hub.rest.UriCombiner;
+
+public class NotificationServiceTest {
+    private static final String NOTIFICATIONS_URI = "http://hub/api/notifications";
+    private static final String NOTIFICATION_PAGE = "{\"totalCount\":1,\"items\":[{\"type\":\"VULNERABILITY\",\"contentType\":\"application/json\",\"content\":{\"newVulnerabilityCount\":2,\"componentName\":\"component\"}}]}";
+
+    @Test
+    public void testNotificationContentIsKeptWithoutRetainedJson() throws Exception {
+        final RestConnection restConnection = createRestConnection();
+        final HubService hubService = new HubService(restConnection, new UriCombiner(), new HubResponseTransformer(restConnection, false), 1);
+        final NotificationService notificationService = new NotificationService(hubService);
+
+        final List<NotificationView> notificationViews = hubService.getResponses(NOTIFICATIONS_URI, NotificationView.class, true);
+        final List<CommonNotificationState> commonNotifications = notificationService.getCommonNotifications(notificationViews);
+
+        assertEquals(1, commonNotifications.size());
+        assertVulnerabilityContent(commonNotifications.get(0));
+    }
+
+    @Test
+    public void testUserNotificationContentIsKeptWithoutRetainedJson() throws Exception {
+        final RestConnection restConnection = createRestConnection();
+        final HubService hubService = new HubService(restConnection, new UriCombiner(), new HubResponseTransformer(restConnection, false), 1);
+        final NotificationService notificationService = new NotificationService(hubService);
+        final UserView user = hubService.getGson().fromJson("{\"userName\":\"user\",\"_meta\":{\"href\":\"http://hub/api/users/1\",\"links\":[{\"rel\":\"notifications\",\"href\":\"" + NOTIFICATIONS_URI + "\"}]}}", UserView.class);
+
+        final List<NotificationUserView> notificationUserViews = notificationService.getAllUserNotifications(user, new Date(0), new Date());
+        final List<CommonNotificationState> commonNotifications = notificationService.getCommonUserNotifications(notificationUserViews);
+
+        assertEquals(1, commonNotifications.size());
+        assertVulnerabilityContent(commonNotifications.get(0));
+    }
+
+    @Test
+    public void testNotificationWithoutContentIsAnError() throws Exception {
+        final RestConnection restConnection = createRestConnection();
+        final HubService hubService = new HubService(restConnection, new UriCombiner(), new HubResponseTransformer(restConnection, false), 1);
+        final NotificationService notificationService = new NotificationService(hubService);
+        final NotificationView notificationView = new NotificationView();
+        notificationView.type = NotificationType.VULNERABILITY;
+
+        try {
+            notificationService.getCommonNotifications(Collections.singletonList(notificationView));
+            fail("A notification without content should not be silently dropped");
+        } catch (final HubIntegrationException e) {
+            assertTrue(e.getMessage().contains("VULNERABILITY"));
+        }
+    }
+
+    @Test
+    public void testUserNotificationWithoutContentIsAnError() throws Exception {
+        final RestConnection restConnection = createRestConnection();
+        final HubService hubService = new HubService(restConnection, new UriCombiner(), new HubResponseTransformer(restConnection, false), 1);
+        final NotificationService notificationService = new NotificationService(hubService);
+        final NotificationUserView notificationUserView = new NotificationUserView();
+        notificationUserView.type = NotificationType.RULE_VIOLATION;
+
+        try {
+            notificationService.getCommonUserNotifications(Collections.singletonList(notificationUserView));
+            fail("A notification without content should not be silently dropped");
+        } catch (final HubIntegrationException e) {
+            assertTrue(e.getMessage().contains("RULE_VIOLATION"));
+        }
+    }
+
+    private RestConnection createRestConnection() throws Exception {
+        final RestConnection restConnection = HubResponseTestUtil.createRestConnection();
+        Mockito.doAnswer(invocation -> HubResponseTestUtil.createResponse(NOTIFICATION_PAGE)).when(restConnection).executeRequest(Mockito.any(Request.class));
+        return restConnection;
+    }
+
+    private void assertVulnerabilityContent(final CommonNotificationState commonNotification) {
+        assertEquals(NotificationType.VULNERABILITY, commonNotification.getType());
+        final VulnerabilityNotificationContent content = (VulnerabilityNotificationContent) commonNotification.getContent();
+        assertEquals(2, content.newVulnerabilityCount);
+        assertEquals("component", content.componentName);
+    }
+
+}
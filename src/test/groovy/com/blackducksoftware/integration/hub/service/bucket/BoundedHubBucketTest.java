@@ -0,0 +1,84 @@
+/**
+ * hub-common
+ *
+ * Copyright (C) 2018 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.service.bucket;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.blackducksoftware.integration.hub.api.generated.view.ProjectVersionView;
+
+public class BoundedHubBucketTest {
+    private static final String URI_PREFIX = "http://hub/api/projects/1/versions/";
+
+    @Test
+    public void testLeastRecentlyUsedItemIsEvicted() {
+        final BoundedHubBucket hubBucket = new BoundedHubBucket(2, 0);
+        final List<String> evictedUris = new ArrayList<>();
+        hubBucket.addEvictionListener(evictedItem -> evictedUris.add(evictedItem.getUri()));
+
+        hubBucket.addValid(URI_PREFIX + 1, new ProjectVersionView());
+        hubBucket.addValid(URI_PREFIX + 2, new ProjectVersionView());
+        hubBucket.get(URI_PREFIX + 1);
+        hubBucket.addValid(URI_PREFIX + 3, new ProjectVersionView());
+
+        assertTrue(hubBucket.contains(URI_PREFIX + 1));
+        assertFalse(hubBucket.contains(URI_PREFIX + 2));
+        assertTrue(hubBucket.contains(URI_PREFIX + 3));
+        assertEquals(1, hubBucket.getEvictionCount());
+        assertEquals(1, evictedUris.size());
+        assertEquals(URI_PREFIX + 2, evictedUris.get(0));
+        assertEquals(2 * BoundedHubBucket.ITEM_OVERHEAD_BYTES, hubBucket.getEstimatedBytes());
+    }
+
+    @Test
+    public void testItemsAreEvictedByEstimatedSize() {
+        final BoundedHubBucket hubBucket = new BoundedHubBucket(0, 3 * BoundedHubBucket.ITEM_OVERHEAD_BYTES);
+        for (int i = 0; i < 3; i++) {
+            hubBucket.addValid(URI_PREFIX + i, createProjectVersionView(10));
+        }
+        assertEquals(2, hubBucket.size());
+        assertEquals(1, hubBucket.getEvictionCount());
+        assertEquals(2 * (BoundedHubBucket.ITEM_OVERHEAD_BYTES + 20), hubBucket.getEstimatedBytes());
+
+        hubBucket.remove(URI_PREFIX + 2);
+        assertEquals(BoundedHubBucket.ITEM_OVERHEAD_BYTES + 20, hubBucket.getEstimatedBytes());
+
+        hubBucket.addValid(URI_PREFIX + 1, createProjectVersionView(100));
+        assertEquals(BoundedHubBucket.ITEM_OVERHEAD_BYTES + 200, hubBucket.getEstimatedBytes());
+        assertEquals(1, hubBucket.size());
+    }
+
+    private ProjectVersionView createProjectVersionView(final int jsonLength) {
+        final ProjectVersionView projectVersionView = new ProjectVersionView();
+        projectVersionView.json = new String(new char[jsonLength]).replace('\0', 'x');
+        return projectVersionView;
+    }
+
+}
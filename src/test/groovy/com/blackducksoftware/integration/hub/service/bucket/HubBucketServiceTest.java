@@ -0,0 +1,91 @@
+/**
+ * hub-common
+ *
+ * Copyright (C) 2018 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.service.bucket;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import com.blackducksoftware.integration.hub.api.UriSingleResponse;
+import com.blackducksoftware.integration.hub.api.generated.view.ProjectView;
+import com.blackducksoftware.integration.hub.exception.HubIntegrationException;
+import com.blackducksoftware.integration.hub.request.Request;
+import com.blackducksoftware.integration.hub.rest.RestConnection;
+import com.blackducksoftware.integration.hub.service.HubResponseTestUtil;
+import com.blackducksoftware.integration.hub.service.HubService;
+
+public class HubBucketServiceTest {
+    private static final String PROJECTS_URI = "http://hub/api/projects";
+
+    @Test
+    public void testDuplicatesAreRetrievedOnceAndFailuresAreRecorded() throws Exception {
+        final RestConnection restConnection = HubResponseTestUtil.createRestConnection();
+        final Map<String, AtomicInteger> requestCounts = new ConcurrentHashMap<>();
+        final HubIntegrationException failure = new HubIntegrationException("Not found");
+        Mockito.doAnswer(invocation -> {
+            final Request request = invocation.getArgument(0);
+            requestCounts.computeIfAbsent(request.getUri(), uri -> new AtomicInteger()).incrementAndGet();
+            if (request.getUri().endsWith("/2")) {
+                throw failure;
+            }
+            return HubResponseTestUtil.createResponse("{\"name\":\"" + request.getUri() + "\"}");
+        }).when(restConnection).executeRequest(Mockito.any(Request.class));
+        final HubBucketService hubBucketService = new HubBucketService(new HubService(restConnection), 2);
+
+        final HubBucket hubBucket = hubBucketService.startTheBucket(Arrays.asList(createProjectResponse(0)));
+        hubBucketService.addToTheBucket(hubBucket, Arrays.asList(createProjectResponse(1), createProjectResponse(2), createProjectResponse(1), createProjectResponse(3), createProjectResponse(0)));
+
+        assertEquals(4, hubBucket.size());
+        assertEquals(4, requestCounts.size());
+        for (final AtomicInteger requestCount : requestCounts.values()) {
+            assertEquals(1, requestCount.get());
+        }
+        assertTrue(hubBucket.get(PROJECTS_URI + "/0").hasValidResponse());
+        assertEquals(PROJECTS_URI + "/1", hubBucket.get(createProjectResponse(1)).name);
+        assertEquals(PROJECTS_URI + "/3", hubBucket.get(createProjectResponse(3)).name);
+        assertTrue(hubBucket.get(PROJECTS_URI + "/2").hasException());
+        assertSame(failure, hubBucket.getError(PROJECTS_URI + "/2").get());
+        try {
+            hubBucketService.getFromTheBucket(hubBucket, createProjectResponse(2));
+            fail("The recorded failure should have been thrown");
+        } catch (final HubIntegrationException e) {
+            assertSame(failure, e);
+        }
+        assertEquals(1, requestCounts.get(PROJECTS_URI + "/2").get());
+    }
+
+    private UriSingleResponse<ProjectView> createProjectResponse(final int id) {
+        return new UriSingleResponse<>(PROJECTS_URI + "/" + id, ProjectView.class);
+    }
+
+}
@@ -0,0 +1,112 @@
+/**
+ * hub-common
+ *
+ * Copyright (C) 2018 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.service.bucket;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Test;
+
+import com.blackducksoftware.integration.hub.api.UriSingleResponse;
+import com.blackducksoftware.integration.hub.api.core.HubResponse;
+import com.blackducksoftware.integration.hub.api.generated.view.ProjectVersionView;
+import com.blackducksoftware.integration.hub.api.generated.view.ProjectView;
+import com.google.gson.Gson;
+
+public class HubBucketSnapshotTest {
+    private static final String URI_PREFIX = "http://hub/api/projects/1/versions/";
+
+    @Test
+    public void testSnapshotRoundTrip() throws Exception {
+        final File directory = Files.createTempDirectory("hub-bucket-snapshot").toFile();
+        try {
+            final File file = new File(directory, "bucket.snapshot");
+            final HubBucket hubBucket = new HubBucket();
+            hubBucket.addValid(URI_PREFIX + 1, createProjectVersionView("one"));
+            hubBucket.addValid(URI_PREFIX + 2, createProjectVersionView("two"));
+            hubBucket.addError(URI_PREFIX + 3, new Exception("not found"));
+
+            final HubBucketSnapshot hubBucketSnapshot = new HubBucketSnapshot(new Gson(), TimeUnit.HOURS.toMillis(1));
+            assertEquals(2, hubBucketSnapshot.save(hubBucket, file));
+
+            final HubBucket restoredBucket = hubBucketSnapshot.load(file);
+            assertEquals(2, restoredBucket.size());
+            assertFalse(restoredBucket.contains(URI_PREFIX + 3));
+
+            final SnapshotHubBucketItem restoredItem = (SnapshotHubBucketItem) restoredBucket.get(URI_PREFIX + 1);
+            assertFalse(restoredItem.isBound());
+            assertEquals(ProjectVersionView.class, restoredItem.getResponseClass());
+            assertEquals(hubBucket.get(URI_PREFIX + 1).getFetchedAt(), restoredItem.getFetchedAt());
+
+            final ProjectVersionView projectVersionView = restoredBucket.get(new UriSingleResponse<>(URI_PREFIX + 1, ProjectVersionView.class));
+            assertEquals("one", projectVersionView.versionName);
+            assertTrue(restoredItem.isBound());
+            assertNull(restoredBucket.get(new UriSingleResponse<>(URI_PREFIX + 2, ProjectView.class)));
+        } finally {
+            FileUtils.deleteQuietly(directory);
+        }
+    }
+
+    @Test
+    public void testStaleEntriesAreNotRestored() throws Exception {
+        final File directory = Files.createTempDirectory("hub-bucket-snapshot").toFile();
+        try {
+            final File file = new File(directory, "bucket.snapshot");
+            final long now = System.currentTimeMillis();
+            final HubBucket hubBucket = new HubBucket();
+            hubBucket.add(new HubBucketItem<>(URI_PREFIX + 1, createProjectVersionView("fresh"), now));
+            hubBucket.add(new HubBucketItem<>(URI_PREFIX + 2, createProjectVersionView("stale"), now - TimeUnit.HOURS.toMillis(2)));
+            hubBucket.add(new HubBucketItem<>("http://hub/api/projects/1", new ProjectView(), now));
+
+            final HubBucketSnapshot hubBucketSnapshot = new HubBucketSnapshot(new Gson(), TimeUnit.HOURS.toMillis(1));
+            hubBucketSnapshot.setMaxAge(ProjectView.class, 0);
+            hubBucketSnapshot.save(hubBucket, file);
+
+            final HubBucket restoredBucket = new HubBucket();
+            restoredBucket.addValid(URI_PREFIX + 1, createProjectVersionView("current"));
+            assertEquals(0, hubBucketSnapshot.loadInto(restoredBucket, file));
+            assertEquals("current", restoredBucket.get(new UriSingleResponse<>(URI_PREFIX + 1, ProjectVersionView.class)).versionName);
+            assertFalse(restoredBucket.contains(URI_PREFIX + 2));
+            assertFalse(restoredBucket.contains("http://hub/api/projects/1"));
+
+            assertEquals(0, hubBucketSnapshot.loadInto(restoredBucket, new File(directory, "missing.snapshot")));
+        } finally {
+            FileUtils.deleteQuietly(directory);
+        }
+    }
+
+    private HubResponse createProjectVersionView(final String versionName) {
+        final ProjectVersionView projectVersionView = new ProjectVersionView();
+        projectVersionView.versionName = versionName;
+        return projectVersionView;
+    }
+
+}
@@ -0,0 +1,99 @@
+/**
+ * hub-common
+ *
+ * Copyright (C) 2018 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.service.bucket;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.blackducksoftware.integration.hub.api.core.HubResponse;
+import com.blackducksoftware.integration.hub.api.generated.view.ProjectVersionView;
+import com.blackducksoftware.integration.hub.exception.HubIntegrationException;
+
+public class HubBucketTest {
+    private static final String PROJECT_VERSION_URI = "http://hub/api/projects/1/versions/2";
+
+    @Test
+    public void testConcurrentComputeIfAbsentLoadsOnce() throws Exception {
+        final HubBucket hubBucket = new HubBucket();
+        final ProjectVersionView projectVersionView = new ProjectVersionView();
+        final CountDownLatch loaderStarted = new CountDownLatch(1);
+        final CountDownLatch releaseLoader = new CountDownLatch(1);
+
+        final ExecutorService executorService = Executors.newFixedThreadPool(2);
+        try {
+            final Future<HubBucketItem<HubResponse>> loader = executorService.submit(() -> hubBucket.computeIfAbsent(PROJECT_VERSION_URI, uri -> {
+                loaderStarted.countDown();
+                await(releaseLoader);
+                return new HubBucketItem<>(uri, projectVersionView);
+            }));
+            loaderStarted.await(10, TimeUnit.SECONDS);
+            final Future<HubBucketItem<HubResponse>> waiter = executorService.submit(() -> hubBucket.computeIfAbsent(PROJECT_VERSION_URI, uri -> {
+                fail("The uri should not be loaded twice");
+                return null;
+            }));
+            while (hubBucket.getSharedLoadCount() == 0) {
+                Thread.sleep(1);
+            }
+            releaseLoader.countDown();
+
+            assertSame(loader.get(10, TimeUnit.SECONDS), waiter.get(10, TimeUnit.SECONDS));
+            assertSame(projectVersionView, hubBucket.getResponse(PROJECT_VERSION_URI).get());
+            assertEquals(1, hubBucket.getLoadCount());
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testErrorsAreKeptLikeResponses() {
+        final HubBucket hubBucket = new HubBucket();
+        final HubBucketItem<HubResponse> bucketItem = hubBucket.computeIfAbsent(PROJECT_VERSION_URI, uri -> new HubBucketItem<>(uri, new HubIntegrationException("not found")));
+
+        assertTrue(bucketItem.hasException());
+        assertTrue(hubBucket.contains(PROJECT_VERSION_URI));
+        assertSame(bucketItem, hubBucket.computeIfAbsent(PROJECT_VERSION_URI, uri -> new HubBucketItem<>(uri, new ProjectVersionView())));
+        assertFalse(hubBucket.getResponse(PROJECT_VERSION_URI).isPresent());
+        assertFalse(hubBucket.getError("http://hub/api/projects/3").isPresent());
+    }
+
+    private void await(final CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
@@ -0,0 +1,127 @@
+/**
+ * hub-common
+ *
+ * Copyright (C) 2018 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.service.bucket;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import com.blackducksoftware.integration.hub.api.UriSingleResponse;
+import com.blackducksoftware.integration.hub.api.core.HubView;
+import com.blackducksoftware.integration.hub.api.generated.view.PolicyRuleView;
+import com.blackducksoftware.integration.hub.api.generated.view.ProjectVersionView;
+import com.blackducksoftware.integration.hub.api.generated.view.VersionBomComponentView;
+import com.blackducksoftware.integration.hub.api.generated.view.VersionBomPolicyStatusView;
+import com.blackducksoftware.integration.hub.api.view.MetaHandler;
+import com.blackducksoftware.integration.hub.exception.HubIntegrationException;
+import com.blackducksoftware.integration.hub.rest.RestConnection;
+import com.blackducksoftware.integration.hub.service.HubService;
+import com.blackducksoftware.integration.hub.service.HubTaskExecutor;
+import com.blackducksoftware.integration.hub.service.model.HubExecutionMode;
+import com.google.gson.Gson;
+
+public class HubLinkPrefetcherTest {
+    private static final Gson gson = new Gson();
+    private static final String VERSION_URI = "http://hub/api/projects/1/versions/1";
+    private static final String COMPONENTS_URI = VERSION_URI + "/components";
+    private static final String POLICY_STATUS_URI = VERSION_URI + "/policy-status";
+    private static final String RISK_PROFILE_URI = VERSION_URI + "/risk-profile";
+    private static final String COMPONENT_URI = VERSION_URI + "/components/1";
+    private static final String POLICY_RULES_URI = COMPONENT_URI + "/policy-rules";
+
+    @Test
+    public void testLinksAreCrawledToTheMaxDepth() throws Exception {
+        final HubService hubService = createHubService();
+        final HubBucket hubBucket = new HubBucket();
+        final int followedCount = createHubLinkPrefetcher(hubService, 1).prefetch(hubBucket, Collections.singletonList(createProjectVersionView()));
+
+        assertEquals(3, followedCount);
+        assertTrue(hubBucket.getResponse(POLICY_STATUS_URI).isPresent());
+        assertTrue(hubBucket.getResponse(COMPONENT_URI).isPresent());
+        assertTrue(hubBucket.getError(RISK_PROFILE_URI).isPresent());
+        Mockito.verify(hubService, Mockito.never()).getAllResponses(POLICY_RULES_URI, PolicyRuleView.class);
+    }
+
+    @Test
+    public void testViewsReachedMoreThanOnceAreRetrievedOnce() throws Exception {
+        final HubService hubService = createHubService();
+        final HubBucket hubBucket = new HubBucket();
+        final int followedCount = createHubLinkPrefetcher(hubService, 3).prefetch(hubBucket, Arrays.asList(createProjectVersionView(), createProjectVersionView()));
+
+        assertEquals(4, followedCount);
+        assertFalse(hubBucket.contains(VERSION_URI));
+        Mockito.verify(hubService, Mockito.times(1)).getAllResponses(COMPONENTS_URI, VersionBomComponentView.class);
+        Mockito.verify(hubService, Mockito.times(1)).getAllResponses(POLICY_RULES_URI, PolicyRuleView.class);
+    }
+
+    private HubLinkPrefetcher createHubLinkPrefetcher(final HubService hubService, final int maxDepth) {
+        final HubLinkPrefetcher hubLinkPrefetcher = new HubLinkPrefetcher(hubService, new HubBucketService(hubService, 2), maxDepth);
+        hubLinkPrefetcher.addLink(ProjectVersionView.class, ProjectVersionView.COMPONENTS_LINK_RESPONSE);
+        hubLinkPrefetcher.addLink(ProjectVersionView.class, ProjectVersionView.POLICY_STATUS_LINK_RESPONSE);
+        hubLinkPrefetcher.addLink(ProjectVersionView.class, ProjectVersionView.RISKPROFILE_LINK, VersionBomPolicyStatusView.class);
+        hubLinkPrefetcher.addLink(VersionBomComponentView.class, VersionBomComponentView.POLICY_RULES_LINK_RESPONSE);
+        return hubLinkPrefetcher;
+    }
+
+    @SuppressWarnings("unchecked")
+    private HubService createHubService() throws Exception {
+        final HubService hubService = Mockito.mock(HubService.class);
+        Mockito.when(hubService.getRestConnection()).thenReturn(Mockito.mock(RestConnection.class));
+        Mockito.when(hubService.getMetaHandler()).thenReturn(new MetaHandler(null));
+        Mockito.when(hubService.getHubTaskExecutor()).thenReturn(new HubTaskExecutor(HubExecutionMode.PLATFORM_THREADS));
+        Mockito.when(hubService.getResponse(Mockito.any(UriSingleResponse.class))).thenAnswer(invocation -> {
+            final UriSingleResponse<?> uriSingleResponse = invocation.getArgument(0);
+            if (POLICY_STATUS_URI.equals(uriSingleResponse.uri)) {
+                return createView(VersionBomPolicyStatusView.class, POLICY_STATUS_URI);
+            }
+            throw new HubIntegrationException("Not found : " + uriSingleResponse.uri);
+        });
+        Mockito.when(hubService.getAllResponses(COMPONENTS_URI, VersionBomComponentView.class))
+                .thenReturn(Collections.singletonList(createView(VersionBomComponentView.class, COMPONENT_URI, VersionBomComponentView.POLICY_RULES_LINK, POLICY_RULES_URI)));
+        Mockito.when(hubService.getAllResponses(POLICY_RULES_URI, PolicyRuleView.class)).thenReturn(Collections.emptyList());
+        return hubService;
+    }
+
+    private ProjectVersionView createProjectVersionView() {
+        return createView(ProjectVersionView.class, VERSION_URI, ProjectVersionView.COMPONENTS_LINK, COMPONENTS_URI, ProjectVersionView.POLICY_STATUS_LINK, POLICY_STATUS_URI, ProjectVersionView.RISKPROFILE_LINK, RISK_PROFILE_URI);
+    }
+
+    private <T extends HubView> T createView(final Class<T> viewClass, final String href, final String... relsAndHrefs) {
+        final StringBuilder links = new StringBuilder();
+        for (int i = 0; i < relsAndHrefs.length; i += 2) {
+            if (i > 0) {
+                links.append(",");
+            }
+            links.append("{\"rel\":\"" + relsAndHrefs[i] + "\",\"href\":\"" + relsAndHrefs[i + 1] + "\"}");
+        }
+        return gson.fromJson("{\"_meta\":{\"href\":\"" + href + "\",\"links\":[" + links + "]}}", viewClass);
+    }
+
+}
@@ -0,0 +1,114 @@
+/**
+ * hub-common
+ *
+ * Copyright (C) 2018 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.service.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.blackducksoftware.integration.hub.api.generated.view.ProjectVersionView;
+import com.blackducksoftware.integration.hub.exception.HubIntegrationException;
+import com.blackducksoftware.integration.hub.notification.processor.MockRestConnection;
+import com.blackducksoftware.integration.hub.service.HubResponseTransformer;
+
+public class HubRequestCoalescerTest {
+    private static final String PROJECT_VERSION_URI = "http://hub/api/projects/1/versions/2";
+
+    private final HubResponseBinder hubResponseBinder = new HubResponseTransformer(new MockRestConnection(), false);
+
+    @Test
+    public void testConcurrentRequestsShareOneGet() throws Exception {
+        final HubRequestCoalescer hubRequestCoalescer = new HubRequestCoalescer();
+        final ProjectVersionView projectVersionView = new ProjectVersionView();
+        projectVersionView.versionName = "1.0";
+        final CountDownLatch leaderStarted = new CountDownLatch(1);
+        final CountDownLatch releaseLeader = new CountDownLatch(1);
+
+        final ExecutorService executorService = Executors.newFixedThreadPool(2);
+        try {
+            final Future<ProjectVersionView> leader = executorService.submit(() -> hubRequestCoalescer.getResponse(PROJECT_VERSION_URI, ProjectVersionView.class, hubResponseBinder, () -> {
+                leaderStarted.countDown();
+                await(releaseLeader);
+                return projectVersionView;
+            }));
+            leaderStarted.await(10, TimeUnit.SECONDS);
+            final Future<ProjectVersionView> follower = executorService.submit(() -> hubRequestCoalescer.getResponse(PROJECT_VERSION_URI, ProjectVersionView.class, hubResponseBinder, () -> {
+                fail("The follower should not make its own request");
+                return null;
+            }));
+            while (hubRequestCoalescer.getCoalescedCount() == 0) {
+                Thread.sleep(1);
+            }
+            releaseLeader.countDown();
+
+            assertSame(projectVersionView, leader.get(10, TimeUnit.SECONDS));
+            // the follower gets a view of its own, so it does not see changes the leader makes to its view
+            projectVersionView.versionName = "changed by the leader";
+            final ProjectVersionView followerProjectVersionView = follower.get(10, TimeUnit.SECONDS);
+            assertNotSame(projectVersionView, followerProjectVersionView);
+            assertEquals("1.0", followerProjectVersionView.versionName);
+            assertEquals(1, hubRequestCoalescer.getExecutedCount());
+            assertEquals(1, hubRequestCoalescer.getCoalescedCount());
+            assertEquals(0, hubRequestCoalescer.getInFlightCount());
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testFailuresAreNotRemembered() throws Exception {
+        final HubRequestCoalescer hubRequestCoalescer = new HubRequestCoalescer();
+        try {
+            hubRequestCoalescer.getResponse(PROJECT_VERSION_URI, ProjectVersionView.class, hubResponseBinder, () -> {
+                throw new HubIntegrationException("Forbidden");
+            });
+            fail("Expected exception");
+        } catch (final HubIntegrationException e) {
+            assertEquals("Forbidden", e.getMessage());
+        }
+
+        final ProjectVersionView projectVersionView = new ProjectVersionView();
+        assertSame(projectVersionView, hubRequestCoalescer.getResponse(PROJECT_VERSION_URI, ProjectVersionView.class, hubResponseBinder, () -> projectVersionView));
+        assertEquals(2, hubRequestCoalescer.getExecutedCount());
+    }
+
+    private static void await(final CountDownLatch latch) throws HubIntegrationException {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new HubIntegrationException("Interrupted", e);
+        }
+    }
+
+}
@@ -0,0 +1,138 @@
+/**
+ * hub-common
+ *
+ * Copyright (C) 2018 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.service.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.nio.file.Files;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Test;
+
+public class HubResponseCacheTest {
+    @Test
+    public void testInMemoryEvictsLeastRecentlyUsed() {
+        final InMemoryHubResponseCache cache = new InMemoryHubResponseCache(20);
+        cache.put(new CachedResponse("uri1", "\"1\"", null, "0123456789"));
+        cache.put(new CachedResponse("uri2", "\"2\"", null, "0123456789"));
+        assertNotNull(cache.get("uri1"));
+
+        cache.put(new CachedResponse("uri3", "\"3\"", null, "0123456789"));
+        assertNotNull(cache.get("uri1"));
+        assertNull(cache.get("uri2"));
+        assertNotNull(cache.get("uri3"));
+        assertEquals(20, cache.getCurrentSize());
+    }
+
+    @Test
+    public void testInMemoryReplacesEntries() {
+        final InMemoryHubResponseCache cache = new InMemoryHubResponseCache(100);
+        cache.put(new CachedResponse("uri1", "\"1\"", null, "0123456789"));
+        cache.put(new CachedResponse("uri1", "\"2\"", null, "01234"));
+        assertEquals("\"2\"", cache.get("uri1").getETag());
+        assertEquals(5, cache.getCurrentSize());
+        assertEquals(1, cache.getEntryCount());
+
+        cache.put(new CachedResponse("uri1", "\"3\"", null, new String(new char[200])));
+        assertNull(cache.get("uri1"));
+        assertEquals(0, cache.getCurrentSize());
+    }
+
+    @Test
+    public void testDirectoryRoundTrip() throws Exception {
+        final File directory = Files.createTempDirectory("hub-response-cache").toFile();
+        try {
+            final DirectoryHubResponseCache cache = new DirectoryHubResponseCache(directory);
+            cache.put(new CachedResponse("http://hub/api/projects/1", "\"abc\"", "Tue, 15 Nov 1994 12:45:26 GMT", "{\"name\":\"one\"}"));
+
+            final CachedResponse cachedResponse = new DirectoryHubResponseCache(directory).get("http://hub/api/projects/1");
+            assertEquals("\"abc\"", cachedResponse.getETag());
+            assertEquals("Tue, 15 Nov 1994 12:45:26 GMT", cachedResponse.getLastModified());
+            assertEquals("{\"name\":\"one\"}", cachedResponse.getBody());
+            assertNull(cache.get("http://hub/api/projects/2"));
+
+            cache.remove("http://hub/api/projects/1");
+            assertNull(cache.get("http://hub/api/projects/1"));
+        } finally {
+            FileUtils.deleteQuietly(directory);
+        }
+    }
+
+    @Test
+    public void testDirectoryEvictsOnceOverTheLimit() throws Exception {
+        final File directory = Files.createTempDirectory("hub-response-cache").toFile();
+        try {
+            final DirectoryHubResponseCache cache = new DirectoryHubResponseCache(directory, 80);
+            cache.put(new CachedResponse("uri1", "\"1\"", null, "0123456789"));
+            new File(directory, directory.list()[0]).setLastModified(System.currentTimeMillis() - 60000);
+            cache.put(new CachedResponse("uri2", "\"2\"", null, "0123456789"));
+
+            assertNull(cache.get("uri1"));
+            assertNotNull(cache.get("uri2"));
+        } finally {
+            FileUtils.deleteQuietly(directory);
+        }
+    }
+
+    @Test
+    public void testDirectoryKeepsTheOrderOfUseAcrossRuns() throws Exception {
+        final File directory = Files.createTempDirectory("hub-response-cache").toFile();
+        try {
+            final DirectoryHubResponseCache cache = new DirectoryHubResponseCache(directory);
+            cache.put(new CachedResponse("uri1", "\"1\"", null, "0123456789"));
+            cache.put(new CachedResponse("uri2", "\"2\"", null, "0123456789"));
+            for (final File cacheFile : directory.listFiles()) {
+                cacheFile.setLastModified(System.currentTimeMillis() - 60000);
+            }
+            assertNotNull(cache.get("uri1"));
+            final long entrySize = cache.getCurrentSize() / 2;
+
+            final DirectoryHubResponseCache nextRunCache = new DirectoryHubResponseCache(directory, entrySize);
+            assertEquals(1, nextRunCache.getEntryCount());
+            assertEquals(entrySize, nextRunCache.getCurrentSize());
+            assertNotNull(nextRunCache.get("uri1"));
+            assertNull(nextRunCache.get("uri2"));
+        } finally {
+            FileUtils.deleteQuietly(directory);
+        }
+    }
+
+    @Test
+    public void testDirectoryKeepsHubUsersApart() throws Exception {
+        final File directory = Files.createTempDirectory("hub-response-cache").toFile();
+        try {
+            new DirectoryHubResponseCache(directory, DirectoryHubResponseCache.DEFAULT_MAX_SIZE, "alice").put(new CachedResponse("uri1", "\"1\"", null, "{\"name\":\"alice\"}"));
+
+            assertNull(new DirectoryHubResponseCache(directory, DirectoryHubResponseCache.DEFAULT_MAX_SIZE, "bob").get("uri1"));
+            assertNull(new DirectoryHubResponseCache(directory).get("uri1"));
+            assertEquals("{\"name\":\"alice\"}", new DirectoryHubResponseCache(directory, DirectoryHubResponseCache.DEFAULT_MAX_SIZE, "alice").get("uri1").getBody());
+        } finally {
+            FileUtils.deleteQuietly(directory);
+        }
+    }
+
+}
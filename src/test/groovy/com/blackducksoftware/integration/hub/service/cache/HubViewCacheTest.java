@@ -0,0 +1,83 @@
+/**
+ * hub-common
+ *
+ * Copyright (C) 2018 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.service.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+import com.blackducksoftware.integration.hub.api.generated.view.ComponentVersionView;
+import com.blackducksoftware.integration.hub.api.generated.view.PolicyRuleView;
+import com.blackducksoftware.integration.hub.api.generated.view.VersionBomPolicyStatusView;
+
+public class HubViewCacheTest {
+    private static final String COMPONENT_VERSION_URI = "http://hub/api/components/1/versions/2";
+    private static final String COMPONENT_VERSION_JSON = "{\"versionName\":\"1.0\"}";
+    private static final String POLICY_RULE_URI = "http://hub/api/policy-rules/3";
+
+    @Test
+    public void testHitsAndMisses() {
+        final HubViewCache hubViewCache = new HubViewCache();
+
+        assertNull(hubViewCache.getJson(COMPONENT_VERSION_URI, ComponentVersionView.class));
+        hubViewCache.put(COMPONENT_VERSION_URI, ComponentVersionView.class, COMPONENT_VERSION_JSON);
+        assertEquals(COMPONENT_VERSION_JSON, hubViewCache.getJson(COMPONENT_VERSION_URI, ComponentVersionView.class));
+        assertNull(hubViewCache.getJson(COMPONENT_VERSION_URI, PolicyRuleView.class));
+
+        assertEquals(1, hubViewCache.getHitCount());
+        assertEquals(2, hubViewCache.getMissCount());
+    }
+
+    @Test
+    public void testExpiredEntriesAreDropped() throws InterruptedException {
+        final HubViewCache hubViewCache = new HubViewCache(10, 1);
+        hubViewCache.put(POLICY_RULE_URI, PolicyRuleView.class, "{}");
+        Thread.sleep(5);
+        assertNull(hubViewCache.getJson(POLICY_RULE_URI, PolicyRuleView.class));
+        assertEquals(0, hubViewCache.size());
+    }
+
+    @Test
+    public void testTypesWithoutTimeToLiveAreNotCached() {
+        final HubViewCache hubViewCache = new HubViewCache();
+        hubViewCache.setTimeToLive(VersionBomPolicyStatusView.class, 0);
+        hubViewCache.put("http://hub/api/projects/1/versions/2/policy-status", VersionBomPolicyStatusView.class, "{}");
+        assertEquals(0, hubViewCache.size());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedIsEvicted() {
+        final HubViewCache hubViewCache = new HubViewCache(2, 60000);
+        hubViewCache.put("uri1", PolicyRuleView.class, "{}");
+        hubViewCache.put("uri2", PolicyRuleView.class, "{}");
+        hubViewCache.getJson("uri1", PolicyRuleView.class);
+        hubViewCache.put("uri3", PolicyRuleView.class, "{}");
+
+        assertNull(hubViewCache.getJson("uri2", PolicyRuleView.class));
+        assertEquals(2, hubViewCache.size());
+        assertEquals(1, hubViewCache.getEvictionCount());
+    }
+
+}
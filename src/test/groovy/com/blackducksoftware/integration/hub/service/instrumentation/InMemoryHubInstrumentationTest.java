@@ -0,0 +1,84 @@
+/**
+ * hub-common
+ *
+ * Copyright (C) 2018 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.service.instrumentation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+
+import org.junit.Test;
+
+public class InMemoryHubInstrumentationTest {
+    private static final String PROJECTS = "/api/projects";
+    private static final String VERSIONS = "/api/projects/{id}/versions";
+
+    @Test
+    public void testSnapshotTotalsEachEndpoint() {
+        final InMemoryHubInstrumentation instrumentation = new InMemoryHubInstrumentation();
+        for (int i = 1; i <= 100; i++) {
+            instrumentation.recordRequest(VERSIONS, i);
+        }
+        instrumentation.recordResponseBytes(VERSIONS, 2048);
+        instrumentation.recordTransferredBytes(VERSIONS, 512);
+        instrumentation.recordBind(VERSIONS, 10, 5000000);
+        instrumentation.recordPagedCall(VERSIONS, 4, 400);
+        instrumentation.recordPagedCall(VERSIONS, 2, 150);
+        instrumentation.recordRequest(PROJECTS, 30);
+        instrumentation.recordError(PROJECTS, new IOException("connection reset"));
+
+        final HubInstrumentationSnapshot snapshot = instrumentation.getSnapshot();
+        assertEquals(101, snapshot.getTotalRequestCount());
+        assertEquals(VERSIONS, snapshot.getEndpointSnapshots().get(0).getEndpoint());
+
+        final EndpointMetricsSnapshot versions = snapshot.getEndpointSnapshot(VERSIONS).get();
+        assertEquals(100, versions.getRequestCount());
+        assertEquals(5050, versions.getTotalLatencyMilliseconds());
+        assertEquals(100, versions.getMaxLatencyMilliseconds());
+        assertEquals(50, versions.getLatencyPercentileMilliseconds(0.5));
+        assertEquals(100, versions.getLatencyPercentileMilliseconds(0.95));
+        assertEquals(2048, versions.getResponseBytes());
+        assertEquals(512, versions.getTransferredBytes());
+        assertEquals(1536, versions.getCompressionSavedBytes());
+        assertEquals(3.0, versions.getAveragePagesPerCall(), 0.001);
+        assertEquals(0, versions.getErrorCount());
+
+        final EndpointMetricsSnapshot projects = snapshot.getEndpointSnapshot(PROJECTS).get();
+        assertEquals(1, projects.getErrorCount());
+        assertEquals(Long.valueOf(1), projects.getErrorCounts().get("IOException"));
+        assertTrue(snapshot.toString().contains(PROJECTS));
+    }
+
+    @Test
+    public void testResetClearsTheMeasurements() {
+        final InMemoryHubInstrumentation instrumentation = new InMemoryHubInstrumentation();
+        instrumentation.recordRequest(PROJECTS, 10);
+        instrumentation.reset();
+
+        assertEquals(0, instrumentation.getSnapshot().getTotalRequestCount());
+        assertFalse(instrumentation.getSnapshot().getEndpointSnapshot(PROJECTS).isPresent());
+    }
+
+}
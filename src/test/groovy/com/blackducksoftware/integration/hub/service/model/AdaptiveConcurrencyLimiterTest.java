@@ -0,0 +1,128 @@
+/**
+ * hub-common
+ *
+ * Copyright (C) 2018 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.service.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import com.blackducksoftware.integration.hub.rest.exception.IntegrationRestException;
+
+public class AdaptiveConcurrencyLimiterTest {
+    @Test
+    public void testLimitGrowsWhileItIsUsed() throws Exception {
+        final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 64, 10000, 3.0);
+        for (int i = 0; i < 10; i++) {
+            assertEquals("ok", limiter.execute(() -> "ok"));
+        }
+        // a single caller only keeps one request in flight, so the limit stops growing once that is less than half of it
+        assertEquals(4, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    public void testThrottlingHalvesTheLimit() throws Exception {
+        final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(8, 1, 64, 10000, 3.0);
+        final IntegrationRestException tooManyRequests = Mockito.mock(IntegrationRestException.class);
+        Mockito.when(tooManyRequests.getHttpStatusCode()).thenReturn(429);
+
+        try {
+            limiter.execute(() -> {
+                throw tooManyRequests;
+            });
+            fail("The exception should have been rethrown");
+        } catch (final IntegrationRestException e) {
+            assertSame(tooManyRequests, e);
+        }
+        assertEquals(4, limiter.getLimit());
+        assertEquals(1, limiter.getThrottledCount());
+    }
+
+    @Test
+    public void testSlowResponsesHalveTheLimitButNotBelowTheMinimum() throws Exception {
+        final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 64, 5, 3.0);
+        for (int i = 0; i < 3; i++) {
+            limiter.execute(() -> sleep(20));
+        }
+        assertEquals(1, limiter.getLimit());
+        assertEquals(3, limiter.getLatencySpikeCount());
+    }
+
+    @Test
+    public void testConcurrentSlowResponsesBackOffOnce() throws Exception {
+        final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(8, 1, 64, 5, 3.0);
+        final int callCount = 4;
+        final CountDownLatch allSent = new CountDownLatch(callCount);
+        final ExecutorService executorService = Executors.newFixedThreadPool(callCount);
+        try {
+            final List<Future<String>> futures = new ArrayList<>();
+            for (int i = 0; i < callCount; i++) {
+                futures.add(executorService.submit(() -> limiter.execute("/api/components", () -> {
+                    allSent.countDown();
+                    awaitQuietly(allSent);
+                    return sleep(20);
+                })));
+            }
+            for (final Future<String> future : futures) {
+                assertEquals("slow", future.get());
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+        // every response was slow, but they were all sent before the first one cut the limit
+        assertEquals(callCount, limiter.getLatencySpikeCount());
+        assertEquals(4, limiter.getLimit());
+
+        limiter.execute("/api/components", () -> sleep(20));
+        assertEquals(2, limiter.getLimit());
+    }
+
+    private void awaitQuietly(final CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private String sleep(final long milliseconds) {
+        try {
+            Thread.sleep(milliseconds);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return "slow";
+    }
+
+}
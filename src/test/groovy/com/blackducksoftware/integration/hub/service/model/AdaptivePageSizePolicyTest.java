@@ -0,0 +1,86 @@
+/**
+ * hub-common
+ *
+ * Copyright (C) 2018 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.service.model;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class AdaptivePageSizePolicyTest {
+    private static final String VERSIONS_URI = "https://hub.example.com/api/projects/acae7891-cabb-4186-87ff-d650abb10a38/versions?limit=100&offset=0";
+    private static final String OTHER_VERSIONS_URI = "https://hub.example.com/api/projects/96497043-89f9-4ae7-8b5a-e9945e0a57cf/versions";
+
+    @Test
+    public void testEndpointKeyReplacesIds() {
+        final AdaptivePageSizePolicy policy = new AdaptivePageSizePolicy();
+        assertEquals("/api/projects/{id}/versions", policy.getEndpointKey(VERSIONS_URI));
+        assertEquals(policy.getEndpointKey(VERSIONS_URI), policy.getEndpointKey(OTHER_VERSIONS_URI));
+    }
+
+    @Test
+    public void testRequestedSizeIsUsedUntilMeasured() {
+        final AdaptivePageSizePolicy policy = new AdaptivePageSizePolicy(25, 500, 2000, 1024 * 1024);
+        assertEquals(100, policy.getPageSize(VERSIONS_URI, 100));
+        assertEquals(500, policy.getPageSize(VERSIONS_URI, 5000));
+        assertEquals(25, policy.getPageSize(VERSIONS_URI, 1));
+    }
+
+    @Test
+    public void testFastSmallPagesGrow() {
+        final AdaptivePageSizePolicy policy = new AdaptivePageSizePolicy(25, 500, 2000, 1024 * 1024);
+        policy.recordPage(VERSIONS_URI, 100, 100, 100, 10 * 1024);
+        assertEquals(200, policy.getPageSize(OTHER_VERSIONS_URI, 100));
+
+        policy.recordPage(VERSIONS_URI, 200, 200, 200, 20 * 1024);
+        assertEquals(400, policy.getPageSize(VERSIONS_URI, 100));
+
+        policy.recordPage(VERSIONS_URI, 400, 400, 400, 40 * 1024);
+        assertEquals(500, policy.getPageSize(VERSIONS_URI, 100));
+    }
+
+    @Test
+    public void testSlowPagesShrink() {
+        final AdaptivePageSizePolicy policy = new AdaptivePageSizePolicy(25, 500, 2000, 1024 * 1024);
+        policy.recordPage(VERSIONS_URI, 100, 100, 8000, 10 * 1024);
+        assertEquals(62, policy.getPageSize(VERSIONS_URI, 100));
+
+        policy.recordPage(VERSIONS_URI, 62, 62, 30000, 10 * 1024);
+        assertEquals(33, policy.getPageSize(VERSIONS_URI, 100));
+    }
+
+    @Test
+    public void testLargePagesShrink() {
+        final AdaptivePageSizePolicy policy = new AdaptivePageSizePolicy(25, 500, 2000, 1024 * 1024);
+        policy.recordPage(VERSIONS_URI, 100, 100, 100, 4 * 1024 * 1024);
+        assertEquals(62, policy.getPageSize(VERSIONS_URI, 100));
+    }
+
+    @Test
+    public void testEmptyPagesAreIgnored() {
+        final AdaptivePageSizePolicy policy = new AdaptivePageSizePolicy();
+        policy.recordPage(VERSIONS_URI, 100, 0, 10, 20);
+        assertEquals(0, policy.getPageSizes().size());
+    }
+
+}
@@ -0,0 +1,61 @@
+/**
+ * hub-common
+ *
+ * Copyright (C) 2018 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.service.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.junit.Test;
+
+import com.blackducksoftware.integration.hub.request.Request;
+
+public class ResponseContentInterceptorTest {
+    @Test
+    public void testMarkedRequestIsLeftEncoded() {
+        final Request request = RequestFactory.acceptCompressedResponse(RequestFactory.createCommonGetRequest("https://hub.example.com/api/components"));
+        final HttpGet httpGet = new HttpGet(request.getUri());
+        request.getAdditionalHeaders().forEach(httpGet::addHeader);
+        final HttpClientContext context = HttpClientContext.create();
+
+        new ResponseContentInterceptor().process(httpGet, context);
+
+        assertFalse(httpGet.containsHeader(ResponseContentInterceptor.DECODED_BY_CALLER_HEADER));
+        assertEquals(RequestFactory.COMPRESSED_ENCODINGS, httpGet.getFirstHeader(RequestFactory.ACCEPT_ENCODING_HEADER).getValue());
+        assertFalse(context.getRequestConfig().isContentCompressionEnabled());
+    }
+
+    @Test
+    public void testOtherRequestsKeepTheCompressionOfTheClient() {
+        final HttpGet httpGet = new HttpGet("https://hub.example.com/api/components");
+        final HttpClientContext context = HttpClientContext.create();
+
+        new ResponseContentInterceptor().process(httpGet, context);
+
+        assertTrue(context.getRequestConfig().isContentCompressionEnabled());
+    }
+
+}
@@ -0,0 +1,72 @@
+/**
+ * hub-common
+ *
+ * Copyright (C) 2018 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.service.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.lang3.StringUtils;
+import org.junit.Test;
+
+public class ResponseContentTest {
+    private static final String JSON = "{\"totalCount\":100,\"items\":[" + StringUtils.repeat("{\"name\":\"component\",\"version\":\"1.0.0\"}", ",", 100) + "]}";
+
+    @Test
+    public void testGzipContentIsDecompressed() throws IOException {
+        final byte[] compressed = gzip(JSON);
+        try (ResponseContent responseContent = new ResponseContent(new ByteArrayInputStream(compressed), "gzip")) {
+            assertTrue(responseContent.isCompressed());
+            assertEquals(JSON, responseContent.getContentString());
+            assertEquals(JSON.length(), responseContent.getByteCount());
+            assertEquals(compressed.length, responseContent.getTransferredByteCount());
+            assertTrue(responseContent.getTransferredByteCount() < responseContent.getByteCount());
+        }
+    }
+
+    @Test
+    public void testUnencodedContentIsReadAsIs() throws IOException {
+        try (ResponseContent responseContent = new ResponseContent(new ByteArrayInputStream(JSON.getBytes(StandardCharsets.UTF_8)), null)) {
+            assertFalse(responseContent.isCompressed());
+            assertEquals(JSON, responseContent.getContentString());
+            assertEquals(JSON.length(), responseContent.getByteCount());
+            assertEquals(JSON.length(), responseContent.getTransferredByteCount());
+        }
+    }
+
+    private byte[] gzip(final String content) throws IOException {
+        final ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(byteArrayOutputStream)) {
+            gzipOutputStream.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+        return byteArrayOutputStream.toByteArray();
+    }
+
+}
@@ -0,0 +1,246 @@
+/**
+ * hub-common
+ *
+ * Copyright (C) 2018 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.service.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.blackducksoftware.integration.exception.IntegrationException;
+import com.blackducksoftware.integration.hub.exception.HubIntegrationException;
+
+public class RetryPolicyTest {
+    private static final String URI = "http://hub/api/projects/9f1b2d2e-8f3c-4b6a-9a57-1c1d2e3f4a5b/versions";
+
+    @Test
+    public void testTransientFailuresAreRetried() throws Exception {
+        final RetryPolicy retryPolicy = new RetryPolicy(3, 1, 5, 0.1, 10, false);
+        final AtomicInteger attempts = new AtomicInteger();
+
+        final String result = retryPolicy.execute(URI, () -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new HubIntegrationException("connection reset", new IOException("connection reset"));
+            }
+            return "page";
+        });
+
+        assertEquals("page", result);
+        assertEquals(3, attempts.get());
+        assertEquals(2, retryPolicy.getRetryCount());
+    }
+
+    @Test
+    public void testOtherFailuresAreNotRetried() throws Exception {
+        final RetryPolicy retryPolicy = new RetryPolicy(3, 1, 5, 0.1, 10, false);
+        final AtomicInteger attempts = new AtomicInteger();
+        final HubIntegrationException failure = new HubIntegrationException("not found");
+
+        try {
+            retryPolicy.execute(URI, () -> {
+                attempts.incrementAndGet();
+                throw failure;
+            });
+            fail("The failure should have been rethrown");
+        } catch (final IntegrationException e) {
+            assertSame(failure, e);
+        }
+        assertEquals(1, attempts.get());
+    }
+
+    @Test
+    public void testRetriesStopWhenTheBudgetIsSpent() throws Exception {
+        final RetryPolicy retryPolicy = new RetryPolicy(5, 1, 5, 0.0, 1, false);
+        final AtomicInteger attempts = new AtomicInteger();
+
+        try {
+            retryPolicy.execute(URI, () -> {
+                attempts.incrementAndGet();
+                throw new HubIntegrationException("timed out", new IOException("timed out"));
+            });
+            fail("The failure should have been rethrown");
+        } catch (final IntegrationException e) {
+            assertTrue(e.getCause() instanceof IOException);
+        }
+        assertEquals(2, attempts.get());
+        assertEquals(1, retryPolicy.getBudgetExhaustedCount());
+    }
+
+    @Test
+    public void testSlowRequestsAreHedged() throws Exception {
+        final RetryPolicy retryPolicy = new RetryPolicy(1, 1, 5, 0.1, 10, true);
+        for (int i = 0; i < 20; i++) {
+            retryPolicy.execute(URI, () -> "fast");
+        }
+        assertTrue(retryPolicy.getHedgeDelayMilliseconds(URI) >= 0);
+
+        final AtomicInteger attempts = new AtomicInteger();
+        final String result = retryPolicy.execute(URI, () -> {
+            if (attempts.incrementAndGet() == 1) {
+                sleep(5000);
+                return "slow";
+            }
+            return "hedged";
+        });
+
+        assertEquals("hedged", result);
+        assertEquals(1, retryPolicy.getHedgeCount());
+    }
+
+    @Test
+    public void testHedgeDelayHasAFloor() throws Exception {
+        final RetryPolicy retryPolicy = new RetryPolicy(1, 1, 5, 0.1, 10, true);
+        for (int i = 0; i < 20; i++) {
+            retryPolicy.execute(URI, () -> "fast");
+        }
+
+        assertEquals(RetryPolicy.MIN_HEDGE_DELAY_MILLISECONDS, retryPolicy.getHedgeDelayMilliseconds(URI));
+    }
+
+    @Test
+    public void testRequestsAreNotHedgedWhenTheHedgingThreadsAreBusy() throws Exception {
+        final RetryPolicy retryPolicy = new RetryPolicy(1, 1, 5, 0.1, 10, true, 1);
+        for (int i = 0; i < 20; i++) {
+            retryPolicy.execute(URI, () -> "fast");
+        }
+
+        final AtomicInteger attempts = new AtomicInteger();
+        final String result = retryPolicy.execute(URI, () -> {
+            attempts.incrementAndGet();
+            sleep(RetryPolicy.MIN_HEDGE_DELAY_MILLISECONDS * 4);
+            return "slow";
+        });
+
+        assertEquals("slow", result);
+        assertEquals(1, attempts.get());
+        assertEquals(0, retryPolicy.getHedgeCount());
+    }
+
+    @Test
+    public void testRequestsAreHedgedAgainAfterClose() throws Exception {
+        final RetryPolicy retryPolicy = new RetryPolicy(1, 1, 5, 0.1, 10, true);
+        for (int i = 0; i < 20; i++) {
+            retryPolicy.execute(URI, () -> "fast");
+        }
+        retryPolicy.close();
+
+        final AtomicInteger attempts = new AtomicInteger();
+        final String result = retryPolicy.execute(URI, () -> {
+            if (attempts.incrementAndGet() == 1) {
+                sleep(5000);
+                return "slow";
+            }
+            return "hedged";
+        });
+
+        assertEquals("hedged", result);
+        assertEquals(1, retryPolicy.getHedgeCount());
+        retryPolicy.close();
+    }
+
+    @Test
+    public void testCancelledHedgedRequestGivesBackItsPlaceUnderTheLimit() throws Exception {
+        final RetryPolicy retryPolicy = new RetryPolicy(1, 1, 5, 0.1, 10, true);
+        final AdaptiveConcurrencyLimiter concurrencyLimiter = new AdaptiveConcurrencyLimiter(2, 1, 2, 10000, 1000.0);
+        for (int i = 0; i < 20; i++) {
+            retryPolicy.execute(URI, () -> concurrencyLimiter.execute(() -> "fast"));
+        }
+
+        final AtomicInteger attempts = new AtomicInteger();
+        final CountDownLatch responseArrived = new CountDownLatch(1);
+        final CountDownLatch slowRequestDone = new CountDownLatch(1);
+        final String result = retryPolicy.execute(URI, () -> {
+            if (attempts.incrementAndGet() == 1) {
+                // like a blocking socket read, the first request ignores the interrupt sent when it is cancelled
+                final String slow = concurrencyLimiter.execute(() -> {
+                    awaitUninterruptibly(responseArrived);
+                    return "slow";
+                });
+                slowRequestDone.countDown();
+                return slow;
+            }
+            return concurrencyLimiter.execute(() -> "hedged");
+        });
+
+        assertEquals("hedged", result);
+        assertEquals(0, concurrencyLimiter.getInFlight());
+
+        responseArrived.countDown();
+        assertTrue(slowRequestDone.await(5, TimeUnit.SECONDS));
+        assertEquals(0, concurrencyLimiter.getInFlight());
+        assertEquals(2, concurrencyLimiter.getLimit());
+        retryPolicy.close();
+    }
+
+    @Test
+    public void testRuntimeExceptionsOfHedgedRequestsAreRethrownAsIs() throws Exception {
+        final RetryPolicy retryPolicy = new RetryPolicy(1, 1, 5, 0.1, 10, true);
+        for (int i = 0; i < 20; i++) {
+            retryPolicy.execute(URI, () -> "fast");
+        }
+        assertTrue(retryPolicy.getHedgeDelayMilliseconds(URI) >= 0);
+        final IllegalStateException failure = new IllegalStateException("unexpected response");
+
+        try {
+            retryPolicy.execute(URI, () -> {
+                throw failure;
+            });
+            fail("The failure should have been rethrown");
+        } catch (final IllegalStateException e) {
+            assertSame(failure, e);
+        }
+        retryPolicy.close();
+    }
+
+    private void awaitUninterruptibly(final CountDownLatch latch) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                latch.await();
+                break;
+            } catch (final InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void sleep(final long milliseconds) {
+        try {
+            Thread.sleep(milliseconds);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
@@ -0,0 +1,99 @@
+/**
+ * hub-common
+ *
+ * Copyright (C) 2018 Black Duck Software, Inc.
+ * http://www.blackducksoftware.com/
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.blackducksoftware.integration.hub.service.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.blackducksoftware.integration.hub.api.generated.view.ProjectView;
+import com.google.gson.Gson;
+
+public class SpillingResponseListTest {
+    private final Gson gson = new Gson();
+
+    @Test
+    public void testItemsBeyondTheLimitAreSpilledAndReadBack() throws Exception {
+        final List<ProjectView> projects = new ArrayList<>();
+        try (SpillingResponseList<ProjectView> spillingResponseList = new SpillingResponseList<>(gson, 10, null)) {
+            for (int i = 0; i < 1000; i++) {
+                final ProjectView projectView = createProjectView("project-" + i);
+                if (i % 2 == 0) {
+                    projectView.json = gson.toJson(projectView);
+                }
+                projects.add(projectView);
+                spillingResponseList.append(projectView);
+            }
+
+            assertEquals(1000, spillingResponseList.size());
+            assertEquals(990, spillingResponseList.getSpilledCount());
+            assertTrue(spillingResponseList.getSpilledBytes() > 0);
+            assertSame(projects.get(0), spillingResponseList.get(0));
+
+            int index = 0;
+            for (final ProjectView projectView : spillingResponseList) {
+                assertEquals("project-" + index, projectView.name);
+                if (index >= 10 && index % 2 == 1) {
+                    assertNull(projectView.json);
+                } else if (index >= 10) {
+                    assertEquals(projects.get(index).json, projectView.json);
+                }
+                index++;
+            }
+            assertEquals("project-500", spillingResponseList.get(500).name);
+            assertEquals("project-20", spillingResponseList.get(20).name);
+        }
+    }
+
+    @Test
+    public void testReadsInterleavedWithAppends() throws Exception {
+        try (SpillingResponseList<ProjectView> spillingResponseList = new SpillingResponseList<>(gson, 0, null)) {
+            for (int i = 0; i < 100; i++) {
+                spillingResponseList.append(createProjectView("project-" + i));
+                assertEquals("project-" + i, spillingResponseList.get(i).name);
+            }
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testClosedListCanNotBeRead() throws Exception {
+        final SpillingResponseList<ProjectView> spillingResponseList = new SpillingResponseList<>(gson, 0, null);
+        spillingResponseList.append(createProjectView("project"));
+        spillingResponseList.close();
+        spillingResponseList.get(0);
+    }
+
+    private ProjectView createProjectView(final String name) {
+        final ProjectView projectView = new ProjectView();
+        projectView.name = name;
+        return projectView;
+    }
+
+}